@@ -0,0 +1,42 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import java.nio.Buffer;
+
+/**
+ * The native bindings under test.
+ */
+public enum Binding {
+
+	JNA {
+		@Override
+		public int compress(int compressionLevel, int shuffleType, int typeSize, Buffer src, long srcLength,
+				Buffer dest, long destLength, String compressorName, int blockSize, int numThreads) {
+			return io.github.dlmarion.clowncar.jna.BloscLibrary.compress(compressionLevel, shuffleType, typeSize,
+					src, srcLength, dest, destLength, compressorName, blockSize, numThreads);
+		}
+
+		@Override
+		public int decompress(Buffer src, Buffer dest, long destSize, int numThreads) {
+			return io.github.dlmarion.clowncar.jna.BloscLibrary.decompress(src, dest, destSize, numThreads);
+		}
+	},
+	JNR {
+		@Override
+		public int compress(int compressionLevel, int shuffleType, int typeSize, Buffer src, long srcLength,
+				Buffer dest, long destLength, String compressorName, int blockSize, int numThreads) {
+			return io.github.dlmarion.clowncar.jnr.BloscLibrary.compress(compressionLevel, shuffleType, typeSize,
+					src, srcLength, dest, destLength, compressorName, blockSize, numThreads);
+		}
+
+		@Override
+		public int decompress(Buffer src, Buffer dest, long destSize, int numThreads) {
+			return io.github.dlmarion.clowncar.jnr.BloscLibrary.decompress(src, dest, destSize, numThreads);
+		}
+	};
+
+	public abstract int compress(int compressionLevel, int shuffleType, int typeSize, Buffer src, long srcLength,
+			Buffer dest, long destLength, String compressorName, int blockSize, int numThreads);
+
+	public abstract int decompress(Buffer src, Buffer dest, long destSize, int numThreads);
+
+}
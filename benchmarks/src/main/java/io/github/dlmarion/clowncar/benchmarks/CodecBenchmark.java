@@ -0,0 +1,123 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import io.github.dlmarion.clowncar.Blosc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compress and decompress throughput and per-call latency of the jna and jnr bindings across the
+ * full compressor x level x shuffle x thread matrix. The full matrix is large, narrow it from the
+ * command line, e.g. {@code -p compressor=lz4,zstd -p level=1,5,9}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CodecBenchmark {
+
+	@Param({"JNA", "JNR"})
+	public Binding binding;
+
+	@Param({"blosclz", "lz4", "lz4hc", "snappy", "zlib", "zstd"})
+	public String compressor;
+
+	@Param({"1", "2", "3", "4", "5", "6", "7", "8", "9"})
+	public int level;
+
+	@Param({"0", "1", "2"})
+	public int shuffle;
+
+	@Param({"1", "2", "4"})
+	public int threads;
+
+	@Param({"TIMES", "FLAT", "RATE", "WAVE", "TIMES_LARGE", "RANDOM_WALK_LARGE", "RANDOM_LARGE"})
+	public Dataset dataset;
+
+	@Param({"true", "false"})
+	public boolean direct;
+
+	private ByteBuffer src;
+	private ByteBuffer compressed;
+	private ByteBuffer restored;
+	private int length;
+
+	/**
+	 * Reports bytes processed per second next to the operation rate.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.src = dataset.allocate(direct);
+		this.length = dataset.getLength();
+		this.compressed = direct ? ByteBuffer.allocateDirect(length + Blosc.OVERHEAD) : ByteBuffer.allocate(length + Blosc.OVERHEAD);
+		this.restored = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+		if (compress() <= 0 || decompress() != length) {
+			throw new IllegalStateException("Round trip failed for " + dataset + " with " + compressor);
+		}
+	}
+
+	private int compress() {
+		return binding.compress(level, shuffle, dataset.getTypeSize(), src, length, compressed,
+				compressed.capacity(), compressor, length, threads);
+	}
+
+	private int decompress() {
+		return binding.decompress(compressed, restored, restored.capacity(), threads);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int compressThroughput(Bytes counter) {
+		counter.bytes += length;
+		return compress();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public int decompressThroughput(Bytes counter) {
+		counter.bytes += length;
+		return decompress();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int compressLatency() {
+		return compress();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SampleTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int decompressLatency() {
+		return decompress();
+	}
+
+}
@@ -0,0 +1,107 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Benchmark inputs. The first four mirror the TIMES, FLAT, RATE and WAVE data sets in TestBase
+ * (one day of minute samples), the rest are larger synthetic sets of roughly 1 MB.
+ */
+public enum Dataset {
+
+	TIMES(1440) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			long time = BEGIN;
+			for (int i = 0; i < elements; i++) {
+				buf.putLong(time);
+				time += 60000;
+			}
+		}
+	},
+	FLAT(1440) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			double c = rand.nextDouble();
+			for (int i = 0; i < elements; i++) {
+				buf.putDouble(c);
+			}
+		}
+	},
+	RATE(1440) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			double c = rand.nextDouble();
+			for (int i = 0; i < elements; i++) {
+				buf.putDouble(c + (125 * i));
+			}
+		}
+	},
+	WAVE(1440) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			double low = Math.abs(rand.nextDouble()) * -1;
+			double high = rand.nextDouble();
+			for (int i = 0; i < elements; i++) {
+				switch (i % 4) {
+					case 1: buf.putDouble(high); break;
+					case 3: buf.putDouble(low); break;
+					default: buf.putDouble(0.0D);
+				}
+			}
+		}
+	},
+	TIMES_LARGE(128 * 1024) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			TIMES.fill(buf, elements, rand);
+		}
+	},
+	RANDOM_WALK_LARGE(128 * 1024) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			double value = rand.nextDouble() * 1000;
+			for (int i = 0; i < elements; i++) {
+				value += rand.nextGaussian();
+				buf.putDouble(value);
+			}
+		}
+	},
+	RANDOM_LARGE(128 * 1024) {
+		@Override
+		void fill(ByteBuffer buf, int elements, Random rand) {
+			for (int i = 0; i < elements; i++) {
+				buf.putLong(rand.nextLong());
+			}
+		}
+	};
+
+	private static final long BEGIN = 1451606400000L;
+
+	private final int elements;
+
+	private Dataset(int elements) {
+		this.elements = elements;
+	}
+
+	abstract void fill(ByteBuffer buf, int elements, Random rand);
+
+	public int getTypeSize() {
+		return Long.BYTES;
+	}
+
+	public int getLength() {
+		return this.elements * getTypeSize();
+	}
+
+	/**
+	 * @return buffer of {@link #getLength()} bytes, positioned at zero
+	 */
+	public ByteBuffer allocate(boolean direct) {
+		ByteBuffer buf = direct ? ByteBuffer.allocateDirect(getLength()) : ByteBuffer.allocate(getLength());
+		fill(buf, this.elements, new Random(235235159511L));
+		buf.clear();
+		return buf;
+	}
+
+}
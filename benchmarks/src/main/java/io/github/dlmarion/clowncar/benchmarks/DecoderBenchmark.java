@@ -0,0 +1,83 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.jnr.JnrBackend;
+import io.github.dlmarion.clowncar.pure.BloscDecoder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-call latency of decompressing one chunk through c-blosc, with the jnr binding, and with the
+ * Java decoder, as the chunk grows. The size where the two lines cross is the one to give
+ * {@code clowncar.decoder.threshold}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecoderBenchmark {
+
+	@Param({"256", "1024", "4096", "16384", "65536"})
+	public int size;
+
+	@Param({"blosclz", "lz4"})
+	public String compressor;
+
+	@Param({"0", "1", "2"})
+	public int shuffle;
+
+	@Param({"TIMES_LARGE", "RANDOM_WALK_LARGE"})
+	public Dataset dataset;
+
+	@Param({"true", "false"})
+	public boolean direct;
+
+	private final JnrBackend jnr = new JnrBackend();
+	private final BloscDecoder decoder = new BloscDecoder();
+	private ByteBuffer compressed;
+	private ByteBuffer restored;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		ByteBuffer src = dataset.allocate(direct);
+		src.limit(Math.min(size, src.limit()));
+		this.compressed = direct ? ByteBuffer.allocateDirect(size + Blosc.OVERHEAD) : ByteBuffer.allocate(size + Blosc.OVERHEAD);
+		this.restored = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+		compressed.limit(jnr.compress(5, shuffle, dataset.getTypeSize(), src, compressed,
+				BloscCompressorType.getCompressorType(compressor), 0, 1));
+		if (!decoder.supports(compressed)) {
+			throw new IllegalStateException("Java decoder cannot read the " + compressor + " chunk");
+		}
+		if (jnr.decompress(compressed, restored, 1) != src.remaining() || decoder.decompress(compressed, restored) != src.remaining()) {
+			throw new IllegalStateException("Round trip failed for " + dataset + " with " + compressor);
+		}
+	}
+
+	@Benchmark
+	public int nativeDecompress() {
+		return jnr.decompress(compressed, restored, 1);
+	}
+
+	@Benchmark
+	public int javaDecompress() {
+		return decoder.decompress(compressed, restored);
+	}
+
+}
@@ -0,0 +1,114 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+import io.github.dlmarion.clowncar.io.BloscFrameWriter;
+import io.github.dlmarion.clowncar.io.FrameCompressor;
+import io.github.dlmarion.clowncar.io.FrameWriter;
+import io.github.dlmarion.clowncar.io.LongBloscOutputStream;
+import io.github.dlmarion.clowncar.io.ParallelBloscFrameWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of a single LongBloscOutputStream as the number of frames compressed in parallel
+ * grows. A parallelism of 0 is the synchronous writer, for reference.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParallelWriterBenchmark {
+
+	@Param({"0", "1", "2", "4", "8", "16"})
+	public int parallelism;
+
+	@Param({"65536"})
+	public int frameSize;
+
+	@Param({"lz4", "zstd"})
+	public String compressor;
+
+	@Param({"5"})
+	public int level;
+
+	@Param({"RANDOM_WALK_LARGE"})
+	public Dataset dataset;
+
+	private long[] values;
+	private ExecutorService pool;
+	private LongBloscOutputStream out;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.values = new long[dataset.getLength() / Long.BYTES];
+		dataset.allocate(false).asLongBuffer().get(values);
+		FrameCompressor settings = new FrameCompressor(BloscCompressorType.getCompressorType(compressor), level,
+				BloscShuffleType.BYTE_SHUFFLE, frameSize, 1);
+		FrameWriter writer;
+		if (parallelism == 0) {
+			writer = new BloscFrameWriter(new NullOutputStream(), settings);
+		} else {
+			this.pool = new ForkJoinPool(parallelism);
+			writer = new ParallelBloscFrameWriter(new NullOutputStream(), settings, frameSize, pool, parallelism * 2);
+		}
+		this.out = new LongBloscOutputStream(writer, frameSize);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		out.close();
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public void write(Bytes counter) throws IOException {
+		out.write(values);
+		counter.bytes += values.length * Long.BYTES;
+	}
+
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+}
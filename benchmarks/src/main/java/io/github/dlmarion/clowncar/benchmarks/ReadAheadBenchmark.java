@@ -0,0 +1,117 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+import io.github.dlmarion.clowncar.io.BloscFrameReader;
+import io.github.dlmarion.clowncar.io.FrameReader;
+import io.github.dlmarion.clowncar.io.LongBloscInputStream;
+import io.github.dlmarion.clowncar.io.LongBloscOutputStream;
+import io.github.dlmarion.clowncar.io.ReadAheadBloscFrameReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full scan of an in-memory stream with a LongBloscInputStream as the number of frames read ahead
+ * grows. A read ahead of 0 is the synchronous reader, for reference.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadAheadBenchmark {
+
+	@Param({"0", "1", "2", "4", "8", "16"})
+	public int readAhead;
+
+	@Param({"65536"})
+	public int frameSize;
+
+	@Param({"lz4", "zstd"})
+	public String compressor;
+
+	@Param({"5"})
+	public int level;
+
+	@Param({"RANDOM_WALK_LARGE"})
+	public Dataset dataset;
+
+	private byte[] data;
+	private long[] values;
+	private ExecutorService pool;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		this.values = new long[dataset.getLength() / Long.BYTES];
+		dataset.allocate(false).asLongBuffer().get(values);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(baos, frameSize, BloscCompressorType.getCompressorType(compressor), level,
+				BloscShuffleType.BYTE_SHUFFLE, 1)) {
+			//several scans worth of frames per invocation
+			for (int i = 0; i < 16; i++) {
+				out.write(values);
+			}
+		}
+		this.data = baos.toByteArray();
+		if (readAhead > 0) {
+			this.pool = new ForkJoinPool(readAhead);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	@Benchmark
+	public long scan(Bytes counter) throws IOException {
+		ByteArrayInputStream bais = new ByteArrayInputStream(data);
+		FrameReader reader = readAhead == 0 ? new BloscFrameReader(bais, 1) : new ReadAheadBloscFrameReader(bais, pool, readAhead);
+		long sum = 0;
+		try (LongBloscInputStream in = new LongBloscInputStream(reader)) {
+			int n;
+			while ((n = in.read(values)) > 0) {
+				for (int i = 0; i < n; i++) {
+					sum += values[i];
+				}
+				counter.bytes += n * Long.BYTES;
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import io.github.dlmarion.clowncar.Blosc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Many caller threads sharing the static library instance of each binding. Each JMH thread owns its
+ * buffers so the only shared state is the binding itself. Run with {@code -t N}, or use
+ * {@link ScalingRunner} to sweep the caller thread count.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScalingBenchmark {
+
+	@Param({"JNA", "JNR"})
+	public Binding binding;
+
+	@Param({"lz4"})
+	public String compressor;
+
+	@Param({"5"})
+	public int level;
+
+	@Param({"1"})
+	public int shuffle;
+
+	@Param({"1"})
+	public int threads;
+
+	@Param({"TIMES", "TIMES_LARGE"})
+	public Dataset dataset;
+
+	private ByteBuffer src;
+	private ByteBuffer compressed;
+	private ByteBuffer restored;
+	private int length;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.src = dataset.allocate(true);
+		this.length = dataset.getLength();
+		this.compressed = ByteBuffer.allocateDirect(length + Blosc.OVERHEAD);
+		this.restored = ByteBuffer.allocateDirect(length);
+		compress();
+	}
+
+	@Benchmark
+	public int compress() {
+		return binding.compress(level, shuffle, dataset.getTypeSize(), src, length, compressed,
+				compressed.capacity(), compressor, length, threads);
+	}
+
+	@Benchmark
+	public int decompress() {
+		return binding.decompress(compressed, restored, restored.capacity(), threads);
+	}
+
+}
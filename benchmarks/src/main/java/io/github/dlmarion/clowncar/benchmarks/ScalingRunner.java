@@ -0,0 +1,29 @@
+package io.github.dlmarion.clowncar.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link ScalingBenchmark} with 1, 2, 4, ... caller threads up to twice the number of
+ * available processors. Any other JMH command line options are passed through.
+ */
+public class ScalingRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		int max = Runtime.getRuntime().availableProcessors() * 2;
+		for (int threads = 1; threads <= max; threads *= 2) {
+			Options opts = new OptionsBuilder()
+					.parent(cmd)
+					.include(ScalingBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build();
+			new Runner(opts).run();
+		}
+	}
+
+}
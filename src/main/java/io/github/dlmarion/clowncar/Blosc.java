@@ -4,4 +4,7 @@ public class Blosc {
 	
 	public static final int OVERHEAD = 16;
 
+	/* Largest chunk header of any Blosc version, c-blosc2 chunks have a 32 byte header */
+	public static final int MAX_OVERHEAD = 32;
+
 }
@@ -0,0 +1,65 @@
+package io.github.dlmarion.clowncar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A binding to c-blosc 1.x. Implementations are found with {@link java.util.ServiceLoader} and
+ * selected by {@link BloscBackends}; they need a public no argument constructor that does not fail
+ * when c-blosc cannot be loaded, see {@link #isAvailable()}.
+ * <p>
+ * Buffers may be heap or direct. The calls work on the bytes between the position and the limit
+ * and leave the positions unchanged.
+ */
+public interface BloscBackend {
+
+	/**
+	 * @return the name used to select the backend, e.g. {@code jnr}
+	 */
+	String getName();
+
+	/**
+	 * @return true if the binding and c-blosc can be loaded
+	 */
+	boolean isAvailable();
+
+	/**
+	 * @return false if the backend does not call c-blosc, {@value BloscBackends#CALIBRATE} then
+	 *         only selects it when no native backend is available
+	 */
+	default boolean isNative() {
+		return true;
+	}
+
+	/**
+	 * Compresses the bytes of {@code src} into {@code dst}.
+	 *
+	 * @return number of bytes written to {@code dst}
+	 */
+	int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads);
+
+	/**
+	 * Decompresses the chunk at the position of {@code src}, writing at most {@code dst.remaining()} bytes.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 */
+	int decompress(ByteBuffer src, ByteBuffer dst, int numThreads);
+
+	/**
+	 * Decompresses {@code nitems} items starting at item {@code start}, only the blocks holding
+	 * them are decompressed. {@code dst} must hold {@code nitems} times the type size of the chunk.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 */
+	int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst);
+
+	/**
+	 * Reads the header of the chunk at the position of {@code src}, which gives the values of
+	 * {@code blosc_cbuffer_sizes} and {@code blosc_cbuffer_metainfo}. The header is read in Java
+	 * by default, so every backend answers the same without a native call.
+	 */
+	default BloscChunkHeader readHeader(ByteBuffer src) throws IOException {
+		return BloscChunkHeader.parse(src);
+	}
+
+}
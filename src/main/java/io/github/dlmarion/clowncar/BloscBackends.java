@@ -0,0 +1,191 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the {@link BloscBackend}s on the class path and selects one, by name or by timing them.
+ * The {@value #BACKEND_PROPERTY} system property picks the default backend:
+ * <ul>
+ * <li>{@value #AUTO}, the default, the first available backend, in the order of the service
+ * files; the bundled ones are {@code ffm}, on Java 22 and later, then {@code jnr}, then {@code jna},
+ * then {@code java}, which needs no native library</li>
+ * <li>{@value #CALIBRATE}, the available native backend that compresses and decompresses a small
+ * sample the fastest, timed once on first use; {@code java} when no native backend is available
+ * or every one fails</li>
+ * <li>the name of a backend</li>
+ * </ul>
+ */
+public class BloscBackends {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BloscBackends.class);
+
+	public static final String BACKEND_PROPERTY = "clowncar.backend";
+	public static final String AUTO = "auto";
+	public static final String CALIBRATE = "calibrate";
+
+	private static final int SAMPLE_SIZE = 64 * 1024;
+	private static final int WARMUP_ROUNDS = 50;
+	private static final int ROUNDS = 100;
+
+	private static final List<BloscBackend> BACKENDS = load();
+
+	private static class DefaultHolder {
+		private static final BloscBackend DEFAULT = get(System.getProperty(BACKEND_PROPERTY, AUTO));
+	}
+
+	private static class CalibratedHolder {
+		private static final BloscBackend CALIBRATED = calibrateNative(getAvailable());
+	}
+
+	private static List<BloscBackend> load() {
+		List<BloscBackend> backends = new ArrayList<>();
+		for (BloscBackend backend : ServiceLoader.load(BloscBackend.class, BloscBackends.class.getClassLoader())) {
+			backends.add(backend);
+		}
+		return Collections.unmodifiableList(backends);
+	}
+
+	/**
+	 * @return every backend found, available or not
+	 */
+	public static List<BloscBackend> getBackends() {
+		return BACKENDS;
+	}
+
+	public static List<BloscBackend> getAvailable() {
+		List<BloscBackend> available = new ArrayList<>();
+		for (BloscBackend backend : BACKENDS) {
+			if (backend.isAvailable()) {
+				available.add(backend);
+			}
+		}
+		return available;
+	}
+
+	/**
+	 * @return the backend selected by {@value #BACKEND_PROPERTY}
+	 */
+	public static BloscBackend getDefault() {
+		return DefaultHolder.DEFAULT;
+	}
+
+	/**
+	 * @param name {@value #AUTO}, {@value #CALIBRATE} or the name of a backend, null for the default
+	 * @throws IllegalArgumentException if no backend has that name
+	 * @throws IllegalStateException if the backend is not available
+	 */
+	public static BloscBackend get(String name) {
+		if (name == null) {
+			return getDefault();
+		}
+		if (AUTO.equals(name)) {
+			List<BloscBackend> available = getAvailable();
+			if (available.isEmpty()) {
+				throw new IllegalStateException("No Blosc backend is available, is c-blosc on the library path?");
+			}
+			return available.get(0);
+		}
+		if (CALIBRATE.equals(name)) {
+			return CalibratedHolder.CALIBRATED;
+		}
+		for (BloscBackend backend : BACKENDS) {
+			if (backend.getName().equals(name)) {
+				if (!backend.isAvailable()) {
+					throw new IllegalStateException("Blosc backend " + name + " is not available");
+				}
+				return backend;
+			}
+		}
+		throw new IllegalArgumentException("Unknown Blosc backend: " + name);
+	}
+
+	/**
+	 * @return the fastest of the native backends in {@code available}, or the first backend that
+	 *         is not native when there is none or every one of them fails
+	 */
+	static BloscBackend calibrateNative(List<BloscBackend> available) {
+		List<BloscBackend> backends = new ArrayList<>();
+		BloscBackend fallback = null;
+		for (BloscBackend backend : available) {
+			if (backend.isNative()) {
+				backends.add(backend);
+			} else if (fallback == null) {
+				fallback = backend;
+			}
+		}
+		if (fallback == null) {
+			return calibrate(backends);
+		}
+		if (!backends.isEmpty()) {
+			try {
+				return calibrate(backends);
+			} catch (IllegalStateException e) {
+				LOG.warn("Calibration failed, selecting Blosc backend {}", fallback.getName(), e);
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * Times compressing and decompressing a sample of 64 KB of longs with each backend.
+	 *
+	 * @return the fastest backend
+	 */
+	public static BloscBackend calibrate(List<BloscBackend> backends) {
+		if (backends.isEmpty()) {
+			throw new IllegalStateException("No Blosc backend is available, is c-blosc on the library path?");
+		}
+		ByteBuffer src = ByteBuffer.allocateDirect(SAMPLE_SIZE);
+		for (int i = 0; i < SAMPLE_SIZE / Long.BYTES; i++) {
+			src.putLong(i * 7L);
+		}
+		src.flip();
+		ByteBuffer compressed = ByteBuffer.allocateDirect(SAMPLE_SIZE + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(SAMPLE_SIZE);
+		BloscBackend fastest = null;
+		long best = Long.MAX_VALUE;
+		for (BloscBackend backend : backends) {
+			long elapsed;
+			try {
+				for (int i = 0; i < WARMUP_ROUNDS; i++) {
+					roundTrip(backend, src, compressed, dst);
+				}
+				long start = System.nanoTime();
+				for (int i = 0; i < ROUNDS; i++) {
+					roundTrip(backend, src, compressed, dst);
+				}
+				elapsed = System.nanoTime() - start;
+			} catch (RuntimeException | LinkageError e) {
+				LOG.warn("Blosc backend {} failed during calibration, skipping it", backend.getName(), e);
+				continue;
+			}
+			LOG.debug("Blosc backend {} took {} ns per round trip", backend.getName(), elapsed / ROUNDS);
+			if (elapsed < best) {
+				best = elapsed;
+				fastest = backend;
+			}
+		}
+		if (fastest == null) {
+			throw new IllegalStateException("Every Blosc backend failed during calibration");
+		}
+		LOG.info("Selected Blosc backend {}", fastest.getName());
+		return fastest;
+	}
+
+	private static void roundTrip(BloscBackend backend, ByteBuffer src, ByteBuffer compressed, ByteBuffer dst) {
+		compressed.clear();
+		compressed.limit(backend.compress(5, BloscShuffleType.BYTE_SHUFFLE.getShuffleType(), Long.BYTES, src, compressed, BloscCompressorType.LZ4, 0, 1));
+		dst.clear();
+		if (backend.decompress(compressed, dst, 1) != SAMPLE_SIZE) {
+			throw new IllegalStateException("Blosc backend " + backend.getName() + " failed to decompress the calibration sample");
+		}
+	}
+
+}
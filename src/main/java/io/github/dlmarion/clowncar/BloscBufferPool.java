@@ -0,0 +1,160 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of direct buffers in power of two size classes, shared by instances that are created and
+ * thrown away often, like the Hadoop compressors. Buffers larger than the largest size class are
+ * allocated on every call and not kept. Idle buffers are kept up to a total size, buffers released
+ * beyond that are left to the garbage collector.
+ */
+public class BloscBufferPool {
+
+	public static final String MAX_POOLED_BYTES_PROPERTY = "clowncar.buffer.pool.max.bytes";
+	private static final long DEFAULT_MAX_POOLED_BYTES = 256L * 1024 * 1024;
+	private static final int MIN_SHIFT = 12;
+	private static final int MAX_SHIFT = 26;
+
+	private static final BloscBufferPool SHARED = new BloscBufferPool(Long.getLong(MAX_POOLED_BYTES_PROPERTY, DEFAULT_MAX_POOLED_BYTES));
+
+	private final ConcurrentLinkedQueue<ByteBuffer>[] free;
+	private final long maxPooledBytes;
+	private final AtomicLong leasedBytes = new AtomicLong();
+	private final AtomicLong pooledBytes = new AtomicLong();
+	private final AtomicLong highWaterBytes = new AtomicLong();
+	private final AtomicLong allocations = new AtomicLong();
+	private final AtomicLong reuses = new AtomicLong();
+
+	/**
+	 * @return the pool shared by the whole process, it keeps up to {@value #MAX_POOLED_BYTES_PROPERTY}
+	 *         bytes, 256 MB by default
+	 */
+	public static BloscBufferPool getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * @param maxPooledBytes total size of the idle buffers that are kept
+	 */
+	@SuppressWarnings("unchecked")
+	public BloscBufferPool(long maxPooledBytes) {
+		this.maxPooledBytes = maxPooledBytes;
+		this.free = (ConcurrentLinkedQueue<ByteBuffer>[]) new ConcurrentLinkedQueue<?>[MAX_SHIFT - MIN_SHIFT + 1];
+		for (int i = 0; i < free.length; i++) {
+			free[i] = new ConcurrentLinkedQueue<>();
+		}
+	}
+
+	/**
+	 * @return index of the smallest size class holding {@code size} bytes, or -1 if it is larger than all of them
+	 */
+	private static int sizeClass(int size) {
+		if (size <= (1 << MIN_SHIFT)) {
+			return 0;
+		}
+		int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+		return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+	}
+
+	/**
+	 * Returns a cleared direct buffer with a capacity of at least {@code size} bytes. Callers that
+	 * need an exact capacity should work on a {@link ByteBuffer#slice()} and release the buffer
+	 * returned here.
+	 */
+	public ByteBuffer acquire(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Negative buffer size: " + size);
+		}
+		int sizeClass = sizeClass(size);
+		ByteBuffer buf = sizeClass < 0 ? null : free[sizeClass].poll();
+		if (buf != null) {
+			pooledBytes.addAndGet(-buf.capacity());
+			reuses.incrementAndGet();
+			buf.clear();
+		} else {
+			buf = ByteBuffer.allocateDirect(sizeClass < 0 ? size : 1 << (sizeClass + MIN_SHIFT));
+			allocations.incrementAndGet();
+		}
+		long leased = leasedBytes.addAndGet(buf.capacity());
+		updateHighWater(leased + pooledBytes.get());
+		return buf;
+	}
+
+	/**
+	 * Returns a buffer obtained from {@link #acquire(int)} to the pool. The buffer must not be used,
+	 * or released again, afterwards.
+	 */
+	public void release(ByteBuffer buf) {
+		if (buf == null) {
+			return;
+		}
+		int capacity = buf.capacity();
+		leasedBytes.addAndGet(-capacity);
+		int sizeClass = sizeClass(capacity);
+		if (!buf.isDirect() || sizeClass < 0 || capacity != 1 << (sizeClass + MIN_SHIFT)) {
+			return;
+		}
+		if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+			pooledBytes.addAndGet(-capacity);
+			return;
+		}
+		free[sizeClass].offer(buf);
+	}
+
+	private void updateHighWater(long total) {
+		long current;
+		while (total > (current = highWaterBytes.get())) {
+			if (highWaterBytes.compareAndSet(current, total)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return size of the buffers that have been acquired and not released yet
+	 */
+	public long getLeasedBytes() {
+		return leasedBytes.get();
+	}
+
+	/**
+	 * @return size of the idle buffers kept by the pool
+	 */
+	public long getPooledBytes() {
+		return pooledBytes.get();
+	}
+
+	/**
+	 * @return largest total size of leased and idle buffers seen so far
+	 */
+	public long getHighWaterBytes() {
+		return highWaterBytes.get();
+	}
+
+	public long getMaxPooledBytes() {
+		return maxPooledBytes;
+	}
+
+	/**
+	 * @return number of buffers allocated because none of the right size was idle
+	 */
+	public long getAllocationCount() {
+		return allocations.get();
+	}
+
+	/**
+	 * @return number of buffers handed out again after being released
+	 */
+	public long getReuseCount() {
+		return reuses.get();
+	}
+
+	@Override
+	public String toString() {
+		return "BloscBufferPool [leased=" + getLeasedBytes() + ", pooled=" + getPooledBytes() + ", highWater=" + getHighWaterBytes()
+				+ ", max=" + maxPooledBytes + ", allocations=" + getAllocationCount() + ", reuses=" + getReuseCount() + "]";
+	}
+
+}
@@ -0,0 +1,168 @@
+package io.github.dlmarion.clowncar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The header at the start of every Blosc chunk, read in Java, so chunks can be sized, split and
+ * checked without calling into c-blosc:
+ *
+ * <pre>
+ * [version][versionlz][flags][typesize][nbytes][blocksize][cbytes]
+ *  byte     byte       byte   byte      int     int        int, little endian
+ * </pre>
+ *
+ * c-blosc2 chunks with both shuffle flags set have a 32 byte extended header, whose first 16 bytes
+ * have the same layout. Instances are reused by {@link #read(ByteBuffer)} so the hot paths do not
+ * allocate, they are not thread safe.
+ */
+public class BloscChunkHeader {
+
+	public static final int LENGTH = Blosc.OVERHEAD;
+	public static final int EXTENDED_LENGTH = Blosc.MAX_OVERHEAD;
+
+	public static final int BYTE_SHUFFLE_FLAG = 0x01;
+	public static final int MEMCPYED_FLAG = 0x02;
+	public static final int BIT_SHUFFLE_FLAG = 0x04;
+	/** Blocks are compressed as one stream instead of one per byte of the type. */
+	public static final int NO_SPLIT_FLAG = 0x10;
+
+	private int version;
+	private int versionLz;
+	private int flags;
+	private int typeSize;
+	private int unCompressedSize;
+	private int blockSize;
+	private int compressedSize;
+
+	/**
+	 * @return the header of the chunk starting at the position of {@code src}
+	 * @throws IOException if the header is not a valid Blosc chunk header
+	 */
+	public static BloscChunkHeader parse(ByteBuffer src) throws IOException {
+		return new BloscChunkHeader().read(src);
+	}
+
+	/**
+	 * Reads the header of the chunk starting at the position of {@code src} into this instance. The
+	 * position of {@code src} is left unchanged. Only the header is needed, the chunk itself may not
+	 * be complete yet.
+	 *
+	 * @return this
+	 * @throws IOException if the header is not a valid Blosc chunk header, this instance is then
+	 *         left in an undefined state
+	 */
+	public BloscChunkHeader read(ByteBuffer src) throws IOException {
+		int p = src.position();
+		if (src.remaining() < LENGTH) {
+			throw new IOException("Blosc chunk header needs " + LENGTH + " bytes, only " + src.remaining() + " available");
+		}
+		version = src.get(p) & 0xFF;
+		versionLz = src.get(p + 1) & 0xFF;
+		flags = src.get(p + 2) & 0xFF;
+		typeSize = src.get(p + 3) & 0xFF;
+		unCompressedSize = readInt(src, p + 4);
+		blockSize = readInt(src, p + 8);
+		compressedSize = readInt(src, p + 12);
+		if (version == 0 || typeSize == 0) {
+			throw new IOException("Invalid Blosc chunk header, version: " + version + ", type size: " + typeSize);
+		}
+		if (unCompressedSize < 0 || blockSize < 0 || (blockSize == 0 && unCompressedSize > 0)) {
+			throw new IOException("Invalid Blosc chunk header, uncompressed size: " + unCompressedSize + ", block size: " + blockSize);
+		}
+		//c-blosc stores incompressible data as is, a chunk never grows by more than its header
+		if (compressedSize < getHeaderLength() || compressedSize > (long) unCompressedSize + EXTENDED_LENGTH) {
+			throw new IOException("Invalid Blosc chunk header, compressed size: " + compressedSize + ", uncompressed size: " + unCompressedSize);
+		}
+		if (isMemcpyed() && !isExtended() && compressedSize != unCompressedSize + LENGTH) {
+			throw new IOException("Invalid Blosc chunk header, uncompressed chunk of " + unCompressedSize + " bytes has a size of " + compressedSize);
+		}
+		return this;
+	}
+
+	private static int readInt(ByteBuffer src, int index) {
+		return (src.get(index) & 0xFF)
+				| (src.get(index + 1) & 0xFF) << 8
+				| (src.get(index + 2) & 0xFF) << 16
+				| (src.get(index + 3) & 0xFF) << 24;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public int getVersionLz() {
+		return versionLz;
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public int getTypeSize() {
+		return typeSize;
+	}
+
+	/**
+	 * @return number of bytes the chunk decompresses to
+	 */
+	public int getUncompressedSize() {
+		return unCompressedSize;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * @return size of the whole chunk, header included
+	 */
+	public int getCompressedSize() {
+		return compressedSize;
+	}
+
+	/**
+	 * @return true if the data was stored without compression
+	 */
+	public boolean isMemcpyed() {
+		return (flags & MEMCPYED_FLAG) != 0;
+	}
+
+	public boolean isExtended() {
+		return (flags & (BYTE_SHUFFLE_FLAG | BIT_SHUFFLE_FLAG)) == (BYTE_SHUFFLE_FLAG | BIT_SHUFFLE_FLAG);
+	}
+
+	public int getHeaderLength() {
+		return isExtended() ? EXTENDED_LENGTH : LENGTH;
+	}
+
+	/**
+	 * @return the shuffle recorded in the flags, c-blosc2 keeps the filters of extended headers
+	 *         elsewhere and they are reported as {@link BloscShuffleType#NO_SHUFFLE}
+	 */
+	public BloscShuffleType getShuffleType() {
+		if (isExtended()) {
+			return BloscShuffleType.NO_SHUFFLE;
+		} else if ((flags & BIT_SHUFFLE_FLAG) != 0) {
+			return BloscShuffleType.BIT_SHUFFLE;
+		} else if ((flags & BYTE_SHUFFLE_FLAG) != 0) {
+			return BloscShuffleType.BYTE_SHUFFLE;
+		}
+		return BloscShuffleType.NO_SHUFFLE;
+	}
+
+	/**
+	 * @return the compressed format code, 0 blosclz, 1 lz4 and lz4hc, 2 snappy, 3 zlib, 4 zstd
+	 */
+	public int getCompressorFormat() {
+		return flags >>> 5;
+	}
+
+	@Override
+	public String toString() {
+		return "BloscChunkHeader[version=" + version + ", versionLz=" + versionLz + ", flags=0x" + Integer.toHexString(flags)
+				+ ", typeSize=" + typeSize + ", uncompressed=" + unCompressedSize + ", blockSize=" + blockSize
+				+ ", compressed=" + compressedSize + "]";
+	}
+
+}
@@ -2,23 +2,44 @@ package io.github.dlmarion.clowncar;
 
 public enum BloscCompressorType {
 
-	BLOSCLZ("blosclz"),
-	LZ4("lz4"),
-	LZ4HC("lz4hc"),
-	SNAPPY("snappy"),
-	ZLIB("zlib"),
-	ZSTD("zstd");
+	BLOSCLZ("blosclz", 0),
+	LZ4("lz4", 1),
+	LZ4HC("lz4hc", 2),
+	SNAPPY("snappy", 3),
+	ZLIB("zlib", 4),
+	ZSTD("zstd", 5);
 	
 	private final String compressorName;
+	private final int compressorCode;
 	
-	private BloscCompressorType(String name) {
+	private BloscCompressorType(String name, int code) {
 		this.compressorName = name;
+		this.compressorCode = code;
 	}
 	
 	public String getCompressorName() {
 		return this.compressorName;
 	}
 
+	/**
+	 * @return the BLOSC_* compressor code from blosc.h, stable across releases
+	 */
+	public int getCompressorCode() {
+		return this.compressorCode;
+	}
+
+	public static BloscCompressorType getCompressorType(int code) {
+		switch (code) {
+			case 0: return BLOSCLZ;
+			case 1: return LZ4;
+			case 2: return LZ4HC;
+			case 3: return SNAPPY;
+			case 4: return ZLIB;
+			case 5: return ZSTD;
+			default: throw new IllegalArgumentException("Unknown compressor code: " + code);
+		}
+	}
+
 	public static BloscCompressorType getCompressorType(String name) {
 		switch(name) {
 			case "blosclz": return BLOSCLZ;
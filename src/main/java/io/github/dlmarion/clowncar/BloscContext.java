@@ -0,0 +1,233 @@
+package io.github.dlmarion.clowncar;
+
+import io.github.dlmarion.clowncar.jna.Blosc2Context;
+import io.github.dlmarion.clowncar.pure.BloscDecoder;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ * Compression settings bound to native state that lives as long as the context. With c-blosc2
+ * the context owns a compression and a decompression context, and their worker threads, that are
+ * reused by every call. With c-blosc 1.x each call still creates its own context, see
+ * {@link PerCallBloscContext}, through the {@link BloscBackend} given to {@code create}, or the
+ * default one, see {@link BloscBackends}.
+ * <p>
+ * Chunks written through a c-blosc2 context use the Blosc2 chunk format, which c-blosc 1.x and
+ * {@link BloscDecoder} cannot read, so contexts that compress use c-blosc 1.x unless the
+ * {@value #IMPLEMENTATION_PROPERTY} system property is {@code blosc2} or the native delta filter is
+ * asked for. c-blosc2 reads c-blosc 1.x chunks, so contexts that only decompress use it whenever it
+ * can be loaded; set the property to {@code blosc1} to never use it.
+ * <p>
+ * c-blosc 1.x chunks that decompress to at most {@value #DEFAULT_JAVA_DECODER_THRESHOLD} bytes are
+ * decoded in Java by a {@link BloscDecoder}, where the call into c-blosc would cost as much as the
+ * decompression; the {@value #JAVA_DECODER_THRESHOLD_PROPERTY} system property changes the size, 0
+ * turns it off.
+ * <p>
+ * The number of threads given to {@code create} is the most a call uses, {@link
+ * BloscThreadGovernor#getShared()} chooses how many each call gets.
+ * <p>
+ * Contexts are not thread safe, each thread or stream should hold its own and close it when done.
+ */
+public abstract class BloscContext implements Closeable {
+
+	/**
+	 * {@code auto}, the default, only decompresses with c-blosc2, {@code blosc2} also compresses with
+	 * it, {@code blosc1} never uses it.
+	 */
+	public static final String IMPLEMENTATION_PROPERTY = "clowncar.context";
+	public static final String JAVA_DECODER_THRESHOLD_PROPERTY = "clowncar.decoder.threshold";
+	public static final int DEFAULT_JAVA_DECODER_THRESHOLD = 4096;
+
+	private static final int JAVA_DECODER_THRESHOLD = Integer.getInteger(JAVA_DECODER_THRESHOLD_PROPERTY, DEFAULT_JAVA_DECODER_THRESHOLD);
+
+	protected final BloscCompressorType compressor;
+	protected final int compressionLevel;
+	protected final BloscShuffleType shuffleType;
+	protected final int blockSize;
+	protected final int numThreads;
+	protected final boolean nativeDelta;
+	private BloscDecoder decoder;
+
+	protected BloscContext(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads, boolean nativeDelta) {
+		this.compressor = compressor;
+		this.compressionLevel = compressionLevel;
+		this.shuffleType = shuffleType;
+		this.blockSize = blockSize;
+		this.numThreads = numThreads;
+		this.nativeDelta = nativeDelta;
+	}
+
+	/**
+	 * @param blockSize Blosc block size, 0 lets Blosc choose
+	 * @param numThreads most threads Blosc uses for each call, see {@link BloscThreadGovernor}
+	 */
+	public static BloscContext create(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads) {
+		return create(compressor, compressionLevel, shuffleType, blockSize, numThreads, false);
+	}
+
+	/**
+	 * @param nativeDelta apply the c-blosc2 delta filter, see {@link BloscPrefilter#NATIVE_DELTA}, the
+	 *        chunks are then written by c-blosc2
+	 * @throws IllegalStateException if {@code nativeDelta} is set and c-blosc2 cannot be used
+	 */
+	public static BloscContext create(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads, boolean nativeDelta) {
+		return create(compressor, compressionLevel, shuffleType, blockSize, numThreads, nativeDelta, null);
+	}
+
+	/**
+	 * @param backend binding used when c-blosc2 is not, null for the default one
+	 * @throws IllegalStateException if {@code nativeDelta} is set and c-blosc2 cannot be used
+	 */
+	public static BloscContext create(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads, boolean nativeDelta, BloscBackend backend) {
+		if (useBlosc2(compressor != null && !nativeDelta) && Blosc2Context.supports(compressor)) {
+			return new Blosc2Context(compressor, compressionLevel, shuffleType, blockSize, numThreads, nativeDelta);
+		}
+		if (nativeDelta) {
+			throw new IllegalStateException("The native delta filter needs c-blosc2");
+		}
+		return new PerCallBloscContext(backend == null ? BloscBackends.getDefault() : backend, compressor, compressionLevel, shuffleType, blockSize, numThreads);
+	}
+
+	/**
+	 * @return a context that can only decompress
+	 */
+	public static BloscContext create(int numThreads) {
+		return create(numThreads, null);
+	}
+
+	/**
+	 * @return a context that can only decompress
+	 */
+	public static BloscContext create(int numThreads, BloscBackend backend) {
+		return create(null, 0, BloscShuffleType.NO_SHUFFLE, 0, numThreads, false, backend);
+	}
+
+	/**
+	 * @param compressing whether the context writes chunks that c-blosc 1.x readers expect
+	 */
+	private static boolean useBlosc2(boolean compressing) {
+		String implementation = System.getProperty(IMPLEMENTATION_PROPERTY, "auto");
+		if ("blosc1".equals(implementation) || (compressing && !"blosc2".equals(implementation))) {
+			return false;
+		}
+		return Blosc2Context.isAvailable();
+	}
+
+	/**
+	 * Compresses the bytes between the position and the limit of {@code src} into {@code dst},
+	 * starting at the position of {@code dst}. The positions of both buffers are left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}
+	 */
+	public abstract int compress(ByteBuffer src, int typeSize, ByteBuffer dst);
+
+	/**
+	 * Decompresses the chunk starting at the position of {@code src} into {@code dst}, starting at
+	 * the position of {@code dst} and writing at most {@code dst.remaining()} bytes. The positions of
+	 * both buffers are left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 */
+	public abstract int decompress(ByteBuffer src, ByteBuffer dst);
+
+	/**
+	 * Decompresses {@code count} items, starting at item {@code startItem}, of the chunk starting at
+	 * the position of {@code src} into {@code dst}, starting at the position of {@code dst}. Only the
+	 * blocks of the chunk holding the items are decompressed. The positions of both buffers are
+	 * left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 * @throws IllegalArgumentException if {@code dst} cannot hold the items
+	 */
+	public abstract int getItems(ByteBuffer src, int startItem, int count, ByteBuffer dst);
+
+	/**
+	 * @return a decoder for the chunk starting at the position of {@code src} if it is small enough
+	 *         to be decoded in Java and the decoder supports it, null otherwise
+	 */
+	protected BloscDecoder smallChunkDecoder(ByteBuffer src) {
+		if (JAVA_DECODER_THRESHOLD <= 0) {
+			return null;
+		}
+		if (decoder == null) {
+			decoder = new BloscDecoder();
+		}
+		return decoder.supports(src, JAVA_DECODER_THRESHOLD) ? decoder : null;
+	}
+
+	/**
+	 * @return type size recorded in the header of the chunk starting at the position of {@code src}
+	 */
+	protected static int chunkTypeSize(ByteBuffer src) {
+		return src.get(src.position() + 3) & 0xFF;
+	}
+
+	/**
+	 * @return uncompressed size recorded in the header of the chunk starting at the position of
+	 *         {@code src}, or its remaining bytes when it holds less than a header
+	 */
+	protected static int chunkUncompressedSize(ByteBuffer src) {
+		int p = src.position();
+		if (src.remaining() < BloscChunkHeader.LENGTH) {
+			return src.remaining();
+		}
+		return (src.get(p + 4) & 0xFF)
+				| (src.get(p + 5) & 0xFF) << 8
+				| (src.get(p + 6) & 0xFF) << 16
+				| (src.get(p + 7) & 0xFF) << 24;
+	}
+
+	protected static void checkItems(ByteBuffer src, int startItem, int count, ByteBuffer dst) {
+		if (startItem < 0 || count < 0) {
+			throw new IllegalArgumentException("Invalid item range, start: " + startItem + ", count: " + count);
+		}
+		if ((long) count * chunkTypeSize(src) > dst.remaining()) {
+			throw new IllegalArgumentException(count + " items of " + chunkTypeSize(src) + " bytes do not fit in " + dst.remaining() + " bytes");
+		}
+	}
+
+	/**
+	 * Releases the native state, the context cannot be used afterwards.
+	 */
+	@Override
+	public abstract void close();
+
+	protected void checkCompressor() {
+		if (compressor == null) {
+			throw new IllegalStateException("Context was created for decompression only");
+		}
+	}
+
+	/**
+	 * The bindings do not all honor the position of direct buffers.
+	 */
+	protected static ByteBuffer atPosition(ByteBuffer buf) {
+		return buf.position() == 0 ? buf : buf.slice();
+	}
+
+	public BloscCompressorType getCompressor() {
+		return compressor;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public BloscShuffleType getShuffleType() {
+		return shuffleType;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public boolean isNativeDelta() {
+		return nativeDelta;
+	}
+
+}
@@ -0,0 +1,140 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Transforms applied to frames of 4 or 8 byte elements before they are compressed, and reversed
+ * after they are decompressed. Doubles and floats are transformed as their raw bits. Each frame is
+ * transformed on its own, the first element is kept as is.
+ * <p>
+ * Writers and readers must use the same prefilter, it is not recorded in the frames.
+ */
+public enum BloscPrefilter {
+
+	NONE("none"),
+	/** Difference to the previous element, for steadily increasing values such as counters. */
+	DELTA("delta"),
+	/** Difference between consecutive deltas, for values taken at a fixed interval such as timestamps. */
+	DELTA_OF_DELTA("delta-of-delta"),
+	/** XOR with the previous element, for doubles that change little from one element to the next. */
+	XOR("xor"),
+	/**
+	 * The delta filter of c-blosc2, applied and reversed by the library itself. Blosc2 records it in
+	 * the chunk header, so readers need no configuration, but both writers and readers need c-blosc2.
+	 */
+	NATIVE_DELTA("native-delta");
+
+	private final String prefilterName;
+
+	private BloscPrefilter(String name) {
+		this.prefilterName = name;
+	}
+
+	public String getPrefilterName() {
+		return this.prefilterName;
+	}
+
+	public static BloscPrefilter getPrefilter(String name) {
+		switch (name) {
+			case "none": return NONE;
+			case "delta": return DELTA;
+			case "delta-of-delta": return DELTA_OF_DELTA;
+			case "xor": return XOR;
+			case "native-delta": return NATIVE_DELTA;
+			default: throw new IllegalArgumentException("Unknown prefilter: " + name);
+		}
+	}
+
+	/**
+	 * @return true if the transform is done in Java by {@link #encode} and {@link #decode}
+	 */
+	public boolean isJava() {
+		return this == DELTA || this == DELTA_OF_DELTA || this == XOR;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the transform is done in Java and {@code typeSize} is not 4 or 8
+	 */
+	public void checkTypeSize(int typeSize) {
+		if (isJava() && typeSize != Long.BYTES && typeSize != Integer.BYTES) {
+			throw new IllegalArgumentException("Prefilter " + prefilterName + " needs 4 or 8 byte elements, not " + typeSize);
+		}
+	}
+
+	/**
+	 * Transforms the whole elements between the position and the limit of {@code buf} in place. Bytes
+	 * after the last whole element are left as is. The position of {@code buf} is left unchanged.
+	 */
+	public void encode(ByteBuffer buf, int typeSize) {
+		if (!isJava()) {
+			return;
+		}
+		checkTypeSize(typeSize);
+		int start = buf.position();
+		int n = buf.remaining() / typeSize;
+		//from the end, so that the elements each one depends on are still unchanged
+		if (typeSize == Long.BYTES) {
+			for (int i = n - 1; i > 0; i--) {
+				int at = start + i * Long.BYTES;
+				long prev = buf.getLong(at - Long.BYTES);
+				long value = buf.getLong(at);
+				switch (this) {
+					case DELTA: value -= prev; break;
+					case XOR: value ^= prev; break;
+					default: value -= i > 1 ? 2 * prev - buf.getLong(at - 2 * Long.BYTES) : prev;
+				}
+				buf.putLong(at, value);
+			}
+		} else {
+			for (int i = n - 1; i > 0; i--) {
+				int at = start + i * Integer.BYTES;
+				int prev = buf.getInt(at - Integer.BYTES);
+				int value = buf.getInt(at);
+				switch (this) {
+					case DELTA: value -= prev; break;
+					case XOR: value ^= prev; break;
+					default: value -= i > 1 ? 2 * prev - buf.getInt(at - 2 * Integer.BYTES) : prev;
+				}
+				buf.putInt(at, value);
+			}
+		}
+	}
+
+	/**
+	 * Reverses {@link #encode} in place. The position of {@code buf} is left unchanged.
+	 */
+	public void decode(ByteBuffer buf, int typeSize) {
+		if (!isJava()) {
+			return;
+		}
+		checkTypeSize(typeSize);
+		int start = buf.position();
+		int n = buf.remaining() / typeSize;
+		if (typeSize == Long.BYTES) {
+			for (int i = 1; i < n; i++) {
+				int at = start + i * Long.BYTES;
+				long prev = buf.getLong(at - Long.BYTES);
+				long value = buf.getLong(at);
+				switch (this) {
+					case DELTA: value += prev; break;
+					case XOR: value ^= prev; break;
+					default: value += i > 1 ? 2 * prev - buf.getLong(at - 2 * Long.BYTES) : prev;
+				}
+				buf.putLong(at, value);
+			}
+		} else {
+			for (int i = 1; i < n; i++) {
+				int at = start + i * Integer.BYTES;
+				int prev = buf.getInt(at - Integer.BYTES);
+				int value = buf.getInt(at);
+				switch (this) {
+					case DELTA: value += prev; break;
+					case XOR: value ^= prev; break;
+					default: value += i > 1 ? 2 * prev - buf.getInt(at - 2 * Integer.BYTES) : prev;
+				}
+				buf.putInt(at, value);
+			}
+		}
+	}
+
+}
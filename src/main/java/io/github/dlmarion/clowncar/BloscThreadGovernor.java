@@ -0,0 +1,170 @@
+package io.github.dlmarion.clowncar;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the number of threads each Blosc call uses, so that streams that each ask for a few
+ * threads do not together start more native threads than the machine has cores. The number of
+ * threads configured on a stream or codec is the most a call gets; it gets fewer when the data is
+ * too small to keep them busy, when other calls are in flight on the shared cores, or when the
+ * threads of the calls in flight reach the budget.
+ * <p>
+ * A call with one thread runs in the calling thread and starts no native worker, so it is always
+ * granted and does not count against the budget. Every {@link #acquire(int, long)} must be followed
+ * by a {@link #release(int)} of the threads it granted.
+ */
+public class BloscThreadGovernor {
+
+	/** Total number of native worker threads, the number of cores by default, 0 turns the governor off. */
+	public static final String BUDGET_PROPERTY = "clowncar.threads.budget";
+	/** Bytes a call needs per thread, Blosc splits the data in blocks and smaller calls leave threads idle. */
+	public static final int BYTES_PER_THREAD = 32 * 1024;
+
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+	private static final BloscThreadGovernor SHARED = new BloscThreadGovernor(Integer.getInteger(BUDGET_PROPERTY, CORES), CORES);
+
+	private final int budget;
+	private final int cores;
+	private final AtomicInteger workers = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakWorkers = new AtomicInteger();
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong reducedCalls = new AtomicLong();
+	private final AtomicLong requestedThreads = new AtomicLong();
+	private final AtomicLong grantedThreads = new AtomicLong();
+
+	/**
+	 * @return the governor shared by the whole process, with a budget of {@value #BUDGET_PROPERTY}
+	 */
+	public static BloscThreadGovernor getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * @param budget most native worker threads used at once by the calls in flight, 0 or less grants
+	 *        every call the threads it asks for
+	 * @param cores number of cores the calls in flight share
+	 */
+	public BloscThreadGovernor(int budget, int cores) {
+		this.budget = budget;
+		this.cores = Math.max(1, cores);
+	}
+
+	/**
+	 * @param requested threads configured for the call, the most it gets
+	 * @param bytes uncompressed size of the data
+	 * @return threads to pass to Blosc, at least 1
+	 */
+	public int acquire(int requested, long bytes) {
+		requested = Math.max(1, requested);
+		int calling = inFlight.incrementAndGet();
+		int granted = requested;
+		if (budget > 0 && requested > 1) {
+			int wanted = (int) Math.min(requested, Math.max(1, bytes / BYTES_PER_THREAD));
+			wanted = Math.min(wanted, Math.max(1, cores / calling));
+			granted = reserve(wanted);
+		}
+		calls.incrementAndGet();
+		requestedThreads.addAndGet(requested);
+		grantedThreads.addAndGet(granted);
+		if (granted < requested) {
+			reducedCalls.incrementAndGet();
+		}
+		return granted;
+	}
+
+	/**
+	 * @return {@code wanted}, or what is left of the budget, or 1 when fewer than 2 threads are left
+	 */
+	private int reserve(int wanted) {
+		if (wanted <= 1) {
+			return 1;
+		}
+		while (true) {
+			int current = workers.get();
+			int granted = Math.min(wanted, budget - current);
+			if (granted <= 1) {
+				return 1;
+			}
+			if (workers.compareAndSet(current, current + granted)) {
+				updatePeak(current + granted);
+				return granted;
+			}
+		}
+	}
+
+	private void updatePeak(int total) {
+		int current;
+		while (total > (current = peakWorkers.get())) {
+			if (peakWorkers.compareAndSet(current, total)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param granted the value returned by {@link #acquire(int, long)}
+	 */
+	public void release(int granted) {
+		inFlight.decrementAndGet();
+		if (budget > 0 && granted > 1) {
+			workers.addAndGet(-granted);
+		}
+	}
+
+	/**
+	 * @return most native worker threads used at once, 0 or less when the governor is off
+	 */
+	public int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @return native worker threads granted to the calls in flight
+	 */
+	public int getWorkers() {
+		return workers.get();
+	}
+
+	public int getPeakWorkers() {
+		return peakWorkers.get();
+	}
+
+	public int getCallsInFlight() {
+		return inFlight.get();
+	}
+
+	public long getCallCount() {
+		return calls.get();
+	}
+
+	/**
+	 * @return number of calls granted fewer threads than they asked for
+	 */
+	public long getReducedCallCount() {
+		return reducedCalls.get();
+	}
+
+	/**
+	 * @return sum of the threads asked for by every call
+	 */
+	public long getRequestedThreads() {
+		return requestedThreads.get();
+	}
+
+	/**
+	 * @return sum of the threads granted to every call
+	 */
+	public long getGrantedThreads() {
+		return grantedThreads.get();
+	}
+
+	@Override
+	public String toString() {
+		return "BloscThreadGovernor[budget=" + budget + ", workers=" + workers.get() + ", peak=" + peakWorkers.get()
+				+ ", calls=" + calls.get() + ", reduced=" + reducedCalls.get() + ", requested=" + requestedThreads.get()
+				+ ", granted=" + grantedThreads.get() + "]";
+	}
+
+}
@@ -0,0 +1,66 @@
+package io.github.dlmarion.clowncar;
+
+import io.github.dlmarion.clowncar.pure.BloscDecoder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Context for c-blosc 1.x, which has no long lived contexts that are safe to use from several
+ * threads. Every call goes through {@code blosc_compress_ctx} or {@code blosc_decompress_ctx} of
+ * a {@link BloscBackend}, except for small chunks, see {@link BloscContext}.
+ */
+public class PerCallBloscContext extends BloscContext {
+
+	private final BloscBackend backend;
+
+	public PerCallBloscContext(BloscBackend backend, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads) {
+		super(compressor, compressionLevel, shuffleType, blockSize, numThreads, false);
+		this.backend = backend;
+	}
+
+	public BloscBackend getBackend() {
+		return backend;
+	}
+
+	@Override
+	public int compress(ByteBuffer src, int typeSize, ByteBuffer dst) {
+		checkCompressor();
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(numThreads, src.remaining());
+		try {
+			return backend.compress(compressionLevel, shuffleType.getShuffleType(), typeSize, src, dst, compressor, blockSize, threads);
+		} finally {
+			governor.release(threads);
+		}
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst) {
+		BloscDecoder small = smallChunkDecoder(src);
+		if (small != null) {
+			return small.decompress(src, dst);
+		}
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(numThreads, chunkUncompressedSize(src));
+		try {
+			return backend.decompress(src, dst, threads);
+		} finally {
+			governor.release(threads);
+		}
+	}
+
+	@Override
+	public int getItems(ByteBuffer src, int startItem, int count, ByteBuffer dst) {
+		checkItems(src, startItem, count, dst);
+		BloscDecoder small = smallChunkDecoder(src);
+		if (small != null) {
+			return small.getItems(src, startItem, count, dst);
+		}
+		return backend.getItem(src, startItem, count, dst);
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
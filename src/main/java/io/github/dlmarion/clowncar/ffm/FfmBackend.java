@@ -0,0 +1,39 @@
+package io.github.dlmarion.clowncar.ffm;
+
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link BloscBackend} over the {@code java.lang.foreign} binding, see {@link FfmSupport}. It is
+ * only available on Java 22 and later.
+ */
+public class FfmBackend implements BloscBackend {
+
+	@Override
+	public String getName() {
+		return "ffm";
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return FfmSupport.isAvailable();
+	}
+
+	@Override
+	public int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		return FfmSupport.compress(compressionLevel, shuffleType, typeSize, src, dst, compressor, blockSize, numThreads);
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		return FfmSupport.decompress(src, dst, numThreads);
+	}
+
+	@Override
+	public int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		return FfmSupport.getItem(src, start, nitems, dst);
+	}
+
+}
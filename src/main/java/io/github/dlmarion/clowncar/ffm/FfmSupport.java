@@ -0,0 +1,34 @@
+package io.github.dlmarion.clowncar.ffm;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Entry point to the {@code java.lang.foreign} binding, used by {@link FfmBackend}. The binding is
+ * in the Java 22 classes of the multi-release jar, which replace this class; this version is the
+ * one older JVMs load and the binding is never available.
+ */
+public class FfmSupport {
+
+	public static boolean isAvailable() {
+		return false;
+	}
+
+	public static int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		throw unavailable();
+	}
+
+	public static int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		throw unavailable();
+	}
+
+	public static int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		throw unavailable();
+	}
+
+	private static IllegalStateException unavailable() {
+		return new IllegalStateException("The java.lang.foreign binding needs Java 22");
+	}
+
+}
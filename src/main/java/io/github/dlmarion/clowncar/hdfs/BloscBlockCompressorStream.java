@@ -0,0 +1,110 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import io.github.dlmarion.clowncar.Blosc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.CompressorStream;
+
+/**
+ * Writes the splittable format read by {@link BloscSplitCompressionInputStream}:
+ *
+ * <pre>
+ * header: [magic][version][sync marker]
+ * blocks: [sync marker][uncompressed length][compressed length][blosc chunk] ...
+ * </pre>
+ *
+ * The sync marker is 16 random bytes chosen per file, every block of up to {@code blockSize}
+ * uncompressed bytes starts with it so that a reader can start at any offset and skip ahead to
+ * the next block.
+ */
+public class BloscBlockCompressorStream extends CompressorStream {
+
+	static final int MAGIC = 0x424C5350; //BLSP
+	static final byte VERSION = 1;
+	static final int SYNC_SIZE = 16;
+	static final int HEADER_SIZE = Integer.BYTES + 1 + SYNC_SIZE;
+	static final int BLOCK_HEADER_SIZE = SYNC_SIZE + 2 * Integer.BYTES;
+
+	private final int blockSize;
+	private final byte[] sync = new byte[SYNC_SIZE];
+	private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+	private int pending = 0;
+	private boolean headerWritten = false;
+
+	/**
+	 * @param blockSize uncompressed size of a block, it must fit in the input buffer of {@code compressor}
+	 */
+	public BloscBlockCompressorStream(OutputStream out, Compressor compressor, int blockSize) {
+		super(out, compressor, blockSize + Blosc.MAX_OVERHEAD);
+		this.blockSize = blockSize;
+		UUID uuid = UUID.randomUUID();
+		ByteBuffer.wrap(sync).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+	}
+
+	private void writeHeader() throws IOException {
+		if (headerWritten) {
+			return;
+		}
+		headerWritten = true;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).put(VERSION).put(sync);
+		out.write(header.array());
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (compressor.finished()) {
+			throw new IOException("write beyond end of stream");
+		}
+		if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		while (len > 0) {
+			if (pending == blockSize) {
+				writeBlock();
+			}
+			int n = Math.min(len, blockSize - pending);
+			compressor.setInput(b, off, n);
+			pending += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (pending == 0) {
+			return;
+		}
+		writeHeader();
+		compressor.finish();
+		int compressedLength = compressor.compress(buffer, 0, buffer.length);
+		if (!compressor.finished()) {
+			throw new IOException("Block of " + pending + " bytes was not compressed in one call");
+		}
+		blockHeader.clear();
+		blockHeader.put(sync).putInt(pending).putInt(compressedLength);
+		out.write(blockHeader.array());
+		out.write(buffer, 0, compressedLength);
+		compressor.reset();
+		pending = 0;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writeBlock();
+		writeHeader();
+		compressor.finish();
+	}
+
+	@Override
+	public void resetState() throws IOException {
+		super.resetState();
+		pending = 0;
+	}
+
+}
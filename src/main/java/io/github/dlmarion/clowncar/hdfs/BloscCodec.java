@@ -3,20 +3,33 @@ package io.github.dlmarion.clowncar.hdfs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Seekable;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.CompressionInputStream;
 import org.apache.hadoop.io.compress.CompressionOutputStream;
 import org.apache.hadoop.io.compress.Compressor;
-import org.apache.hadoop.io.compress.CompressorStream;
 import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.hadoop.io.compress.DecompressorStream;
 import org.apache.hadoop.io.compress.DirectDecompressionCodec;
 import org.apache.hadoop.io.compress.DirectDecompressor;
+import org.apache.hadoop.io.compress.SplitCompressionInputStream;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
 
-public class BloscCodec implements Configurable, CompressionCodec, DirectDecompressionCodec {
+/**
+ * Streams are written as blocks of {@link #BUFFER_SIZE} uncompressed bytes, each starting with a
+ * per file sync marker, so that input formats can split large files, see
+ * {@link BloscBlockCompressorStream} and {@link BloscSplitCompressionInputStream}.
+ * <p>
+ * Files written before the streams were splittable have no magic number and are still read, with a
+ * {@link DecompressorStream}. Such a file is a single split: the split that starts at 0 reads the
+ * whole file and every other split is empty.
+ */
+public class BloscCodec implements Configurable, CompressionCodec, DirectDecompressionCodec, SplittableCompressionCodec {
 	
 	public static final String BUFFER_SIZE = "blosc.codec.stream.buffer.size";
 	private static final int DEFAULT_BUFFER_SIZE = 64*1024;
@@ -40,24 +53,195 @@ public class BloscCodec implements Configurable, CompressionCodec, DirectDecompr
 		return new BloscDecompressor(conf);
 	}
 
+	/**
+	 * The decompressor is created for the stream and ended when it is closed.
+	 */
 	@Override
 	public CompressionInputStream createInputStream(InputStream in) throws IOException {
-		return createInputStream(in, new BloscDecompressor(conf));
+		Decompressor decompressor = new BloscDecompressor(conf);
+		try {
+			return new EndingInputStream(createInputStream(in, decompressor), decompressor);
+		} catch (IOException | RuntimeException e) {
+			decompressor.end();
+			throw e;
+		}
 	}
 
 	@Override
 	public CompressionInputStream createInputStream(InputStream in, Decompressor decompressor) throws IOException {
-		return new DecompressorStream(in, decompressor, getBufferSize());
+		return createInputStream(in, decompressor, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Opens a stream from its start, either format.
+	 */
+	private CompressionInputStream createInputStream(InputStream in, Decompressor decompressor, long end) throws IOException {
+		byte[] magic = new byte[Integer.BYTES];
+		PushbackInputStream pushback = new PushbackInputStream(in, magic.length);
+		int n = readMagic(pushback, magic);
+		pushback.unread(magic, 0, n);
+		if (isSplittable(magic, n)) {
+			return new BloscSplitCompressionInputStream(pushback, decompressor, 0, end);
+		}
+		return new DecompressorStream(pushback, decompressor, getBufferSize());
 	}
 
+	/**
+	 * Both read modes report positions by block, see {@link BloscSplitCompressionInputStream#getPos()}.
+	 */
+	@Override
+	public SplitCompressionInputStream createInputStream(InputStream seekableIn, Decompressor decompressor, long start, long end, READ_MODE readMode) throws IOException {
+		if (start == 0) {
+			CompressionInputStream in = createInputStream(seekableIn, decompressor, end);
+			if (in instanceof SplitCompressionInputStream) {
+				return (SplitCompressionInputStream) in;
+			}
+			return new SingleSplitInputStream(in, in, start, end);
+		}
+		if (!(seekableIn instanceof Seekable)) {
+			throw new IllegalArgumentException("Stream must be Seekable to start at " + start);
+		}
+		((Seekable) seekableIn).seek(0);
+		byte[] magic = new byte[Integer.BYTES];
+		if (isSplittable(magic, readMagic(seekableIn, magic))) {
+			return new BloscSplitCompressionInputStream(seekableIn, decompressor, start, end);
+		}
+		return new SingleSplitInputStream(seekableIn, null, start, end);
+	}
+
+	private static int readMagic(InputStream in, byte[] magic) throws IOException {
+		int n = 0;
+		while (n < magic.length) {
+			int r = in.read(magic, n, magic.length - n);
+			if (r < 0) {
+				break;
+			}
+			n += r;
+		}
+		return n;
+	}
+
+	/**
+	 * An empty stream is read as a splittable one, it has no blocks either way.
+	 */
+	private static boolean isSplittable(byte[] magic, int length) {
+		return length == 0 || (length == magic.length && ByteBuffer.wrap(magic).getInt() == BloscBlockCompressorStream.MAGIC);
+	}
+
+	/**
+	 * A file without sync markers. The split starting at 0 reads all of it and reports the
+	 * position of its only block plus one, like {@link BloscSplitCompressionInputStream#getPos()},
+	 * any other split is empty.
+	 */
+	private static class SingleSplitInputStream extends SplitCompressionInputStream {
+
+		/* null for a split that does not start at 0 */
+		private final CompressionInputStream stream;
+
+		private SingleSplitInputStream(InputStream in, CompressionInputStream stream, long start, long end) throws IOException {
+			super(in, start, end);
+			this.stream = stream;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return stream == null ? -1 : stream.read(b, off, len);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return stream == null ? -1 : stream.read();
+		}
+
+		@Override
+		public long getPos() {
+			return stream == null ? getAdjustedStart() : 1;
+		}
+
+		@Override
+		public void resetState() throws IOException {
+			if (stream != null) {
+				stream.resetState();
+			}
+		}
+	}
+
+	/**
+	 * Ends a decompressor the codec created once its stream is closed, so that its buffers go back
+	 * to the pool.
+	 */
+	private static class EndingInputStream extends CompressionInputStream {
+
+		private final CompressionInputStream stream;
+		private final Decompressor decompressor;
+
+		private EndingInputStream(CompressionInputStream stream, Decompressor decompressor) throws IOException {
+			super(stream);
+			this.stream = stream;
+			this.decompressor = decompressor;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return stream.read(b, off, len);
+		}
+
+		@Override
+		public int read() throws IOException {
+			return stream.read();
+		}
+
+		@Override
+		public long getPos() throws IOException {
+			return stream.getPos();
+		}
+
+		@Override
+		public void resetState() throws IOException {
+			stream.resetState();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				decompressor.end();
+			}
+		}
+	}
+
+	/**
+	 * The compressor is created for the stream and ended when it is closed.
+	 */
 	@Override
 	public CompressionOutputStream createOutputStream(OutputStream out) throws IOException {
-		return createOutputStream(out, new BloscCompressor(conf));
+		return new EndingCompressorStream(out, new BloscCompressor(conf), getBufferSize());
+	}
+
+	/**
+	 * Ends a compressor the codec created once its stream is closed, so that its buffers go back to
+	 * the pool.
+	 */
+	private static class EndingCompressorStream extends BloscBlockCompressorStream {
+
+		private EndingCompressorStream(OutputStream out, Compressor compressor, int blockSize) {
+			super(out, compressor, blockSize);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				compressor.end();
+			}
+		}
 	}
 
 	@Override
 	public CompressionOutputStream createOutputStream(OutputStream out, Compressor compressor) throws IOException {
-		return new CompressorStream(out, compressor, getBufferSize());
+		return new BloscBlockCompressorStream(out, compressor, getBufferSize());
 	}
 
 	@Override
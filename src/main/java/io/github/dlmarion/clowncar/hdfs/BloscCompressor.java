@@ -1,9 +1,14 @@
 package io.github.dlmarion.clowncar.hdfs;
 
 import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscBackends;
+import io.github.dlmarion.clowncar.BloscBufferPool;
 import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscPrefilter;
 import io.github.dlmarion.clowncar.BloscShuffleType;
-import io.github.dlmarion.clowncar.jnr.BloscLibrary;
+import io.github.dlmarion.clowncar.BloscThreadGovernor;
 
 import java.io.IOException;
 import java.nio.BufferOverflowException;
@@ -11,9 +16,13 @@ import java.nio.ByteBuffer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
-import org.apache.hadoop.io.compress.DoNotPool;
 
-@DoNotPool
+/**
+ * Compresses each chunk of input into a single Blosc chunk. The direct buffers come from the
+ * shared {@link BloscBufferPool} and are given back by {@link #end()}, instances can be reused
+ * through the {@code CodecPool}. The native {@link BloscContext} is kept until {@link #end()} or
+ * until {@link #reinit(Configuration)} changes the settings.
+ */
 public class BloscCompressor implements Compressor {
 	
 	public static final String BUFFER_SIZE_KEY = "blosc.compressor.buffer.size";
@@ -22,7 +31,22 @@ public class BloscCompressor implements Compressor {
 	public static final String COMPRESSION_LEVEL_KEY = "blosc.compressor.compression.level";
 	public static final String BYTES_FOR_TYPE_KEY = "blosc.compressor.bytes.for.type";
 	public static final String COMPRESSED_BLOCK_SIZE_KEY = "blosc.compressor.compressed.block.size";
+	/**
+	 * Most threads a Blosc call uses, the {@link BloscThreadGovernor} grants fewer to small blocks and
+	 * when many streams are busy.
+	 */
 	public static final String NUM_THREADS_KEY = "blosc.compressor.threads";
+	/**
+	 * One of the {@link BloscPrefilter} names, also read by {@link BloscDecompressor}. The
+	 * {@code CodecPool} does not reinit decompressors, pooled ones keep the prefilter they were
+	 * created with.
+	 */
+	public static final String PREFILTER_KEY = "blosc.compressor.prefilter";
+	/**
+	 * Name of the {@link BloscBackend} that calls c-blosc 1.x, or {@code auto} or {@code calibrate},
+	 * see {@link BloscBackends}. Also read by {@link BloscDecompressor}. Unset uses the default backend.
+	 */
+	public static final String BACKEND_KEY = "blosc.backend";
 
 	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
 	private static final BloscCompressorType DEFAULT_COMPRESSOR_NAME = BloscCompressorType.ZLIB;
@@ -31,8 +55,13 @@ public class BloscCompressor implements Compressor {
 	private static final int DEFAULT_BYTES_FOR_TYPE = Long.BYTES;
 	private static final int DEFAULT_COMPRESSED_BLOCK_SIZE = 1024;
 	private static final int DEFAULT_NUM_THREADS = 2;
+	private static final BloscPrefilter DEFAULT_PREFILTER = BloscPrefilter.NONE;
 	
+	private ByteBuffer pooledBuffer;
+	private ByteBuffer pooledCompressed;
 	private ByteBuffer buffer;
+	private ByteBuffer compressed;
+	private BloscContext context;
 	private int bufferSize = DEFAULT_BUFFER_SIZE;
 	private BloscCompressorType compressionType;
 	private BloscShuffleType shuffleType;
@@ -40,6 +69,8 @@ public class BloscCompressor implements Compressor {
 	private int compressionLevel;
 	private int blockSize;
 	private int numThreads;
+	private BloscPrefilter prefilter;
+	private BloscBackend backend;
 
 	private boolean finish = false;
 	private long read = 0L;
@@ -61,22 +92,80 @@ public class BloscCompressor implements Compressor {
 				conf.getInt(COMPRESSION_LEVEL_KEY, DEFAULT_COMPRESSION_LEVEL),
 				conf.getInt(BYTES_FOR_TYPE_KEY, DEFAULT_BYTES_FOR_TYPE),
 				conf.getInt(COMPRESSED_BLOCK_SIZE_KEY, DEFAULT_COMPRESSED_BLOCK_SIZE),
-				conf.getInt(NUM_THREADS_KEY, DEFAULT_NUM_THREADS));
+				conf.getInt(NUM_THREADS_KEY, DEFAULT_NUM_THREADS),
+				BloscPrefilter.getPrefilter(conf.get(PREFILTER_KEY, DEFAULT_PREFILTER.getPrefilterName())),
+				BloscBackends.get(conf.get(BACKEND_KEY)));
 	}
 	
 	public BloscCompressor(int bufferSize, BloscCompressorType compressionType, 
 			BloscShuffleType shuffleType, int compressionLevel, int bytesForType,
 			int blocksize, int numThreads) {
+		this(bufferSize, compressionType, shuffleType, compressionLevel, bytesForType, blocksize, numThreads, DEFAULT_PREFILTER);
+	}
+
+	/**
+	 * @param prefilter applied to the whole elements of {@code bytesForType} bytes in each chunk
+	 */
+	public BloscCompressor(int bufferSize, BloscCompressorType compressionType, 
+			BloscShuffleType shuffleType, int compressionLevel, int bytesForType,
+			int blocksize, int numThreads, BloscPrefilter prefilter) {
+		this(bufferSize, compressionType, shuffleType, compressionLevel, bytesForType, blocksize, numThreads, prefilter, null);
+	}
+
+	/**
+	 * @param backend binding used for c-blosc 1.x, null for the default one
+	 */
+	public BloscCompressor(int bufferSize, BloscCompressorType compressionType, 
+			BloscShuffleType shuffleType, int compressionLevel, int bytesForType,
+			int blocksize, int numThreads, BloscPrefilter prefilter, BloscBackend backend) {
+		prefilter.checkTypeSize(bytesForType);
 		this.bufferSize = bufferSize;
-		this.buffer = ByteBuffer.allocateDirect(bufferSize * 2);
+		allocateBuffers();
 		this.compressionType = compressionType;
 		this.shuffleType = shuffleType;
 		this.compressionLevel = compressionLevel;
 		this.bytesForType = bytesForType;
 		this.blockSize = blocksize;
 		this.numThreads = numThreads;
+		this.prefilter = prefilter;
+		this.backend = backend;
+		this.context = newContext();
+	}
+
+	private BloscContext newContext() {
+		return BloscContext.create(compressionType, compressionLevel, shuffleType, blockSize, numThreads, prefilter == BloscPrefilter.NATIVE_DELTA, backend);
 	}
 	
+	/**
+	 * Takes buffers of exactly the configured size from the pool, the input buffer holds up to
+	 * twice the buffer size.
+	 */
+	private void allocateBuffers() {
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		this.pooledBuffer = pool.acquire(bufferSize * 2);
+		this.pooledBuffer.limit(bufferSize * 2);
+		this.buffer = this.pooledBuffer.slice();
+		this.pooledCompressed = pool.acquire(bufferSize * 2 + Blosc.MAX_OVERHEAD);
+		this.pooledCompressed.limit(bufferSize * 2 + Blosc.MAX_OVERHEAD);
+		this.compressed = this.pooledCompressed.slice();
+	}
+
+	private void releaseBuffers() {
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		pool.release(this.pooledBuffer);
+		pool.release(this.pooledCompressed);
+		this.pooledBuffer = null;
+		this.pooledCompressed = null;
+		this.buffer = null;
+		this.compressed = null;
+	}
+
+	private void checkNotEnded() {
+		if (this.buffer == null) {
+			throw new IllegalStateException("Compressor has been ended");
+		}
+	}
+
 	@Override
 	public void setInput(byte[] b, int off, int len) {
         if (b== null) {
@@ -85,6 +174,7 @@ public class BloscCompressor implements Compressor {
         if (off < 0 || len < 0 || off > b.length - len) {
             throw new ArrayIndexOutOfBoundsException();
         }
+        checkNotEnded();
         if (len > buffer.remaining()) {
         	throw new BufferOverflowException();
         }
@@ -105,27 +195,31 @@ public class BloscCompressor implements Compressor {
 	    if (off < 0 || len < 0 || off > b.length - len) {
 	        throw new ArrayIndexOutOfBoundsException();
 	    }
+	    checkNotEnded();
 	    if (this.buffer.position() == 0) {
 	    	return 0;
 	    }
-	    int bytesToRead = len - off;
+	    int bytesToRead = len;
 		if (bytesToRead <= 0) {
 			return 0;
 		}
 		if (bytesToRead > buffer.position()) {
 			bytesToRead = buffer.position();
 		}
-		int bytesToWrite = bytesToRead + Blosc.OVERHEAD;
+		//Compress straight from the direct input buffer into the reusable direct output buffer
 		buffer.flip();
-		ByteBuffer src = buffer.slice();
-		ByteBuffer dst = ByteBuffer.allocate(bytesToWrite);
-		int w = BloscLibrary.compress(this.compressionLevel, this.shuffleType.getShuffleType(), this.bytesForType, src, bytesToRead, 
-				dst, dst.capacity(), this.compressionType.getCompressorName(), this.blockSize, this.numThreads);
+		int end = buffer.limit();
+		buffer.limit(bytesToRead);
+		prefilter.encode(buffer, this.bytesForType);
+		int w = context.compress(buffer, this.bytesForType, compressed);
+		buffer.limit(end);
 		written += w;
-		if (w > b.length) {
-			throw new RuntimeException("destination array is not large enough. Currently: " + b.length + ", needs to be: " + w);
+		if (w > len) {
+			compressed.clear();
+			throw new RuntimeException("destination array is not large enough. Currently: " + len + ", needs to be: " + w);
 		}
-		dst.get(b, off, w);
+		compressed.get(b, off, w);
+		compressed.clear();
 		//We have read src.position() bytes. We need to preserve the bytes left over from the position to the limit.
 		buffer.position(bytesToRead);
 		buffer.compact();
@@ -158,18 +252,39 @@ public class BloscCompressor implements Compressor {
 
 	@Override
 	public void reset() {
+		checkNotEnded();
 		this.buffer.clear();
 		this.finish = false;
 		this.read = 0L;
 		this.written = 0L;
 	}
 
+	/**
+	 * Gives the buffers back to the pool, the compressor cannot be used afterwards.
+	 */
 	@Override
 	public void end() {
+		if (this.buffer != null) {
+			releaseBuffers();
+			this.context.close();
+			this.context = null;
+		}
 	}
 
+	/**
+	 * Called by the {@code CodecPool} when handing out a pooled compressor. Settings missing from
+	 * {@code conf} go back to their defaults, a null {@code conf} keeps the current settings.
+	 */
 	@Override
 	public void reinit(Configuration conf) {
+		if (conf == null) {
+			reset();
+			return;
+		}
+		int oldBufferSize = this.bufferSize;
+		if (this.context != null) {
+			this.context.close();
+		}
 		this.bufferSize = conf.getInt(BUFFER_SIZE_KEY, DEFAULT_BUFFER_SIZE);
 		this.compressionType = BloscCompressorType.getCompressorType(conf.get(COMPRESSOR_NAME_KEY, DEFAULT_COMPRESSOR_NAME.getCompressorName()));
 		this.shuffleType = BloscShuffleType.getShuffleType(conf.getInt(SHUFFLE_TYPE_KEY,DEFAULT_SHUFFLE_TYPE.getShuffleType())); 
@@ -177,10 +292,17 @@ public class BloscCompressor implements Compressor {
 		this.bytesForType = conf.getInt(BYTES_FOR_TYPE_KEY, DEFAULT_BYTES_FOR_TYPE);
 		this.blockSize = conf.getInt(COMPRESSED_BLOCK_SIZE_KEY, DEFAULT_COMPRESSED_BLOCK_SIZE);
 		this.numThreads = conf.getInt(NUM_THREADS_KEY, DEFAULT_NUM_THREADS);
-		reset();
-		if (this.bufferSize != this.buffer.capacity()) {
-			buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.prefilter = BloscPrefilter.getPrefilter(conf.get(PREFILTER_KEY, DEFAULT_PREFILTER.getPrefilterName()));
+		this.prefilter.checkTypeSize(this.bytesForType);
+		this.backend = BloscBackends.get(conf.get(BACKEND_KEY));
+		if (this.buffer == null) {
+			allocateBuffers();
+		} else if (this.bufferSize != oldBufferSize) {
+			releaseBuffers();
+			allocateBuffers();
 		}
+		this.context = newContext();
+		reset();
 	}
 
 }
@@ -1,17 +1,30 @@
 package io.github.dlmarion.clowncar.hdfs;
 
-import io.github.dlmarion.clowncar.jnr.BloscLibrary;
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscBackends;
+import io.github.dlmarion.clowncar.BloscBufferPool;
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscPrefilter;
 
 import java.io.IOException;
-import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.hadoop.io.compress.DirectDecompressor;
-import org.apache.hadoop.io.compress.DoNotPool;
 
-@DoNotPool
+/**
+ * Decompresses Blosc chunks. The direct buffers come from the shared {@link BloscBufferPool} and
+ * are given back by {@link #end()}, instances can be reused through the {@code CodecPool}. The
+ * prefilter and element size are read from the {@link BloscCompressor} keys. Chunk headers are
+ * read in Java to size the output and to reject corrupt input before it reaches c-blosc.
+ * <p>
+ * Input given to {@link #setInput(byte[], int, int)} is accumulated and split into chunks by their
+ * headers, so it may end in the middle of a chunk or hold several of them. The input buffer grows
+ * to hold the largest chunk seen. Output that does not fit in the array given to
+ * {@link #decompress(byte[], int, int)} is kept for the next calls.
+ */
 public class BloscDecompressor implements Decompressor, DirectDecompressor {
 
 	public static final String BUFFER_SIZE_KEY = "blosc.decompressor.buffer.size";
@@ -19,22 +32,57 @@ public class BloscDecompressor implements Decompressor, DirectDecompressor {
 	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
 	private static final int DEFAULT_NUM_THREADS = 2;
 
-	private final ByteBuffer buffer;
-	private final int numThreads;
+	private BloscContext context;
+	private final BloscChunkHeader chunk = new BloscChunkHeader();
+	private final BloscPrefilter prefilter;
+	private final int bytesForType;
+	/* compressed input, between 0 and the position */
+	private ByteBuffer buffer;
+	/* output of the last chunk not returned yet, between the position and the limit */
+	private ByteBuffer uncompressed;
 
 	public BloscDecompressor() {
 		this(64*1024);
 	}
 
 	public BloscDecompressor(int bufferSize) {
-		buffer = ByteBuffer.allocateDirect(bufferSize);
-		this.numThreads = DEFAULT_NUM_THREADS;
+		this(bufferSize, DEFAULT_NUM_THREADS, BloscPrefilter.NONE, 0);
 	}
 	
 	public BloscDecompressor(Configuration conf) {
-		buffer = ByteBuffer.allocateDirect(conf.getInt(BUFFER_SIZE_KEY, DEFAULT_BUFFER_SIZE));
-		this.numThreads = conf.getInt(NUM_THREADS_KEY, DEFAULT_NUM_THREADS);
+		this(conf.getInt(BUFFER_SIZE_KEY, DEFAULT_BUFFER_SIZE), conf.getInt(NUM_THREADS_KEY, DEFAULT_NUM_THREADS),
+				BloscPrefilter.getPrefilter(conf.get(BloscCompressor.PREFILTER_KEY, BloscPrefilter.NONE.getPrefilterName())),
+				conf.getInt(BloscCompressor.BYTES_FOR_TYPE_KEY, Long.BYTES),
+				BloscBackends.get(conf.get(BloscCompressor.BACKEND_KEY)));
+	}
+
+	/**
+	 * @param bufferSize initial size of the input and output buffers
+	 * @param prefilter the prefilter the chunks were written with
+	 * @param bytesForType element size the chunks were written with
+	 */
+	public BloscDecompressor(int bufferSize, int numThreads, BloscPrefilter prefilter, int bytesForType) {
+		this(bufferSize, numThreads, prefilter, bytesForType, null);
+	}
 
+	/**
+	 * @param backend binding used for c-blosc 1.x, null for the default one
+	 */
+	public BloscDecompressor(int bufferSize, int numThreads, BloscPrefilter prefilter, int bytesForType, BloscBackend backend) {
+		prefilter.checkTypeSize(bytesForType);
+		this.prefilter = prefilter;
+		this.bytesForType = bytesForType;
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		buffer = pool.acquire(bufferSize);
+		uncompressed = pool.acquire(bufferSize);
+		uncompressed.limit(0);
+		this.context = BloscContext.create(numThreads, backend);
+	}
+
+	private void checkNotEnded() {
+		if (this.buffer == null) {
+			throw new IllegalStateException("Decompressor has been ended");
+		}
 	}
 	
 	@Override
@@ -45,15 +93,67 @@ public class BloscDecompressor implements Decompressor, DirectDecompressor {
         if (off < 0 || len < 0 || off > b.length - len) {
             throw new ArrayIndexOutOfBoundsException();
         }
+        checkNotEnded();
         if (len > buffer.remaining()) {
-        	throw new BufferOverflowException();
+        	growInput(buffer.position() + len);
         }
         buffer.put(b, off, len);
 	}
 
+	/**
+	 * Moves the buffered input to a pooled buffer of at least {@code size} bytes.
+	 */
+	private void growInput(int size) {
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		ByteBuffer larger = pool.acquire(Math.max(size, 2 * buffer.capacity()));
+		buffer.flip();
+		larger.put(buffer);
+		pool.release(buffer);
+		buffer = larger;
+	}
+
+	/**
+	 * @return true when all output has been returned and the buffered input does not hold a whole
+	 *         chunk
+	 */
 	@Override
 	public boolean needsInput() {
-		return (buffer.remaining() != 0);
+		if (uncompressed.hasRemaining()) {
+			return false;
+		}
+		try {
+			return bufferedChunkSize() < 0;
+		} catch (IOException e) {
+			//decompress reports the corrupt chunk
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the header of the first buffered chunk into {@link #chunk}.
+	 *
+	 * @return size of the chunk, or -1 if it is not completely buffered yet
+	 */
+	private int bufferedChunkSize() throws IOException {
+		int buffered = buffer.position();
+		if (buffered < BloscChunkHeader.LENGTH) {
+			return -1;
+		}
+		buffer.flip();
+		try {
+			chunk.read(buffer);
+		} finally {
+			buffer.limit(buffer.capacity());
+			buffer.position(buffered);
+		}
+		int size = chunk.getCompressedSize();
+		if (size > buffered) {
+			if (size > buffer.capacity()) {
+				growInput(size);
+			}
+			return -1;
+		}
+		return size;
 	}
 
 	@Override
@@ -65,11 +165,20 @@ public class BloscDecompressor implements Decompressor, DirectDecompressor {
 		return false;
 	}
 
+	/**
+	 * @return true when all output has been returned and no input is buffered
+	 */
 	@Override
 	public boolean finished() {
-		return buffer.position() == 0;
+		return buffer.position() == 0 && !uncompressed.hasRemaining();
 	}
 
+	/**
+	 * Returns the output of the last decompressed chunk that is left, or decompresses the next
+	 * buffered chunk.
+	 *
+	 * @return number of bytes written to {@code b}, 0 if more input is needed
+	 */
 	@Override
 	public int decompress(byte[] b, int off, int len) throws IOException {
 	    if (b == null) {
@@ -78,29 +187,49 @@ public class BloscDecompressor implements Decompressor, DirectDecompressor {
 	    if (off < 0 || len < 0 || off > b.length - len) {
 	        throw new ArrayIndexOutOfBoundsException();
 	    }
-	    if (this.buffer.position() == 0) {
+	    checkNotEnded();
+	    if (len == 0 || (!uncompressed.hasRemaining() && !decompressChunk())) {
 	    	return 0;
 	    }
-	    //Read b.length-Blosc.OVERHEAD bytes from buffered input
-	    int bytesToRead = len - off;
-		if (bytesToRead <= 0) {
-			return 0;
+	    int n = Math.min(len, uncompressed.remaining());
+	    uncompressed.get(b, off, n);
+	    return n;
+	}
+
+	/**
+	 * Decompresses the first buffered chunk into {@link #uncompressed} and drops it from the input.
+	 *
+	 * @return false if no whole chunk is buffered
+	 */
+	private boolean decompressChunk() throws IOException {
+		int chunkSize = bufferedChunkSize();
+		if (chunkSize < 0) {
+			return false;
 		}
-		if (bytesToRead > buffer.position()) {
-			bytesToRead = buffer.position();
+		int unCompressedSize = chunk.getUncompressedSize();
+		//Decompress straight from the direct input buffer into the reusable direct output buffer,
+		//sized from the chunk header, which only grows for a chunk larger than any seen before.
+		if (uncompressed.capacity() < unCompressedSize) {
+			BloscBufferPool pool = BloscBufferPool.getShared();
+			pool.release(uncompressed);
+			uncompressed = pool.acquire(unCompressedSize);
 		}
+		uncompressed.clear();
+		uncompressed.limit(unCompressedSize);
+		int buffered = buffer.position();
 		buffer.flip();
-		ByteBuffer src = buffer.slice();
-		ByteBuffer dst = ByteBuffer.allocate(len);
-		int r = BloscLibrary.decompress(src, dst, dst.capacity(), this.numThreads);
-		if (r == -1) {
-			throw new RuntimeException("Error decompressing data: src: " + src + ", dst: " + dst + ", toRead: " + bytesToRead);
+		int r = context.decompress(buffer, uncompressed);
+		if (r != unCompressedSize) {
+			uncompressed.limit(0);
+			buffer.limit(buffer.capacity());
+			buffer.position(buffered);
+			throw new IOException("Error decompressing data, expected " + unCompressedSize + " bytes, got: " + r + ", chunk: " + chunk);
 		}
-		dst.get(b, off, r);
-		//We have read src.position() bytes. We need to preserve the bytes left over from the position to the limit.
-		buffer.position(bytesToRead);
+		prefilter.decode(uncompressed, bytesForType);
+		//Keep any chunks after this one for the next calls.
+		buffer.position(chunkSize);
 		buffer.compact();
-		return r;
+		return true;
 	}
 
 	@Override
@@ -110,16 +239,53 @@ public class BloscDecompressor implements Decompressor, DirectDecompressor {
 
 	@Override
 	public void reset() {
+		checkNotEnded();
 		buffer.clear();
+		uncompressed.limit(0);
 	}
 
+	/**
+	 * Gives the buffers back to the pool, the decompressor cannot be used afterwards.
+	 */
 	@Override
 	public void end() {
+		if (buffer != null) {
+			BloscBufferPool pool = BloscBufferPool.getShared();
+			pool.release(buffer);
+			pool.release(uncompressed);
+			buffer = null;
+			uncompressed = null;
+			context.close();
+			context = null;
+		}
 	}
 
+	/**
+	 * Decompresses the Blosc chunks between the position and the limit of {@code src} into
+	 * {@code dst}, consuming {@code src} and moving the position of {@code dst} past the output.
+	 */
 	@Override
 	public void decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
-		BloscLibrary.decompress(src, dst, dst.remaining(), this.numThreads);
+		checkNotEnded();
+		while (src.hasRemaining()) {
+			chunk.read(src);
+			if (chunk.getCompressedSize() > src.remaining()) {
+				throw new IOException("Truncated chunk, " + src.remaining() + " of " + chunk.getCompressedSize() + " bytes available");
+			}
+			int unCompressedSize = chunk.getUncompressedSize();
+			if (unCompressedSize > dst.remaining()) {
+				throw new IOException("Chunk of " + unCompressedSize + " bytes does not fit in " + dst);
+			}
+			int r = context.decompress(src, dst);
+			if (r != unCompressedSize) {
+				throw new IOException("Error decompressing data, expected " + unCompressedSize + " bytes, got: " + r + ", src: " + src + ", dst: " + dst);
+			}
+			ByteBuffer out = dst.slice();
+			out.limit(r);
+			prefilter.decode(out, bytesForType);
+			src.position(src.position() + chunk.getCompressedSize());
+			dst.position(dst.position() + r);
+		}
 	}
 
 }
@@ -0,0 +1,249 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import io.github.dlmarion.clowncar.Blosc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.io.compress.DirectDecompressor;
+import org.apache.hadoop.io.compress.SplitCompressionInputStream;
+
+/**
+ * Reads the format written by {@link BloscBlockCompressorStream}, starting at the first block
+ * whose sync marker is at or after {@code start}. A split owns the blocks whose sync marker starts
+ * before its end, and reading continues past the end until the caller stops.
+ * <p>
+ * {@link #getPos()} reports the offset of the sync marker of the block being read plus one, so a
+ * caller that reads records while the position is at most the end of its split, like
+ * {@code LineRecordReader}, stops after the first record of the next split's first block and a
+ * block that starts exactly at the end of a split is left to the next one.
+ */
+public class BloscSplitCompressionInputStream extends SplitCompressionInputStream {
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	private final DirectDecompressor decompressor;
+	private final byte[] sync = new byte[BloscBlockCompressorStream.SYNC_SIZE];
+	private final byte[] blockHeader = new byte[BloscBlockCompressorStream.BLOCK_HEADER_SIZE];
+	private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+	private final byte[] oneByte = new byte[1];
+	private int readPos = 0;
+	private int readLimit = 0;
+	/* offset in the underlying stream of readBuffer[readPos] */
+	private long position;
+	/* offset of a sync marker that has already been consumed while looking for the first block */
+	private long foundMarker = -1;
+	private long reportedPos;
+	private byte[] scratch = new byte[0];
+	private ByteBuffer src = ByteBuffer.allocateDirect(0);
+	private ByteBuffer raw = ByteBuffer.allocateDirect(0);
+	private boolean eof = false;
+
+	/**
+	 * @param in must implement {@link Seekable} when {@code start} is not 0
+	 * @param decompressor must be a {@link DirectDecompressor}, like {@link BloscDecompressor}
+	 */
+	public BloscSplitCompressionInputStream(InputStream in, Decompressor decompressor, long start, long end) throws IOException {
+		super(in, start, end);
+		if (!(decompressor instanceof DirectDecompressor)) {
+			throw new IllegalArgumentException("Decompressor must be a DirectDecompressor: " + decompressor);
+		}
+		this.decompressor = (DirectDecompressor) decompressor;
+		raw.limit(0);
+		if (start != 0) {
+			if (!(in instanceof Seekable)) {
+				throw new IllegalArgumentException("Stream must be Seekable to start at " + start);
+			}
+			((Seekable) in).seek(0);
+		}
+		this.position = 0;
+		byte[] header = new byte[BloscBlockCompressorStream.HEADER_SIZE];
+		if (!readFully(header, 0, header.length, true)) {
+			//empty stream
+			eof = true;
+			setStart(start);
+			reportedPos = start;
+			return;
+		}
+		ByteBuffer h = ByteBuffer.wrap(header);
+		if (h.getInt() != BloscBlockCompressorStream.MAGIC) {
+			throw new IOException("Not a splittable Blosc stream");
+		}
+		byte version = h.get();
+		if (version != BloscBlockCompressorStream.VERSION) {
+			throw new IOException("Unsupported splittable Blosc stream version: " + version);
+		}
+		h.get(sync);
+		if (start == 0) {
+			setStart(0);
+		} else {
+			if (start > position) {
+				((Seekable) in).seek(start);
+				position = start;
+				readPos = 0;
+				readLimit = 0;
+			}
+			setStart(findSync());
+		}
+		reportedPos = getAdjustedStart();
+	}
+
+	private int fill() throws IOException {
+		position += readLimit - readPos;
+		readPos = 0;
+		readLimit = 0;
+		int n = in.read(readBuffer, 0, readBuffer.length);
+		if (n > 0) {
+			readLimit = n;
+		}
+		return n;
+	}
+
+	private boolean readFully(byte[] b, int off, int len, boolean eofAllowed) throws IOException {
+		int n = 0;
+		while (n < len) {
+			if (readPos == readLimit && fill() < 0) {
+				if (n == 0 && eofAllowed) {
+					return false;
+				}
+				throw new EOFException("Unexpected end of stream, read " + n + " of " + len + " bytes");
+			}
+			int c = Math.min(len - n, readLimit - readPos);
+			System.arraycopy(readBuffer, readPos, b, off + n, c);
+			readPos += c;
+			position += c;
+			n += c;
+		}
+		return true;
+	}
+
+	/**
+	 * Skips to just after the next sync marker.
+	 *
+	 * @return offset of the marker, or the end of the stream if there is none
+	 */
+	private long findSync() throws IOException {
+		final byte last = sync[sync.length - 1];
+		byte[] window = new byte[sync.length];
+		long seen = 0;
+		while (true) {
+			if (readPos == readLimit && fill() < 0) {
+				eof = true;
+				return position;
+			}
+			byte b = readBuffer[readPos++];
+			position++;
+			window[(int) (seen % window.length)] = b;
+			seen++;
+			if (b == last && seen >= window.length && matches(window, (int) (seen % window.length))) {
+				foundMarker = position - sync.length;
+				return foundMarker;
+			}
+		}
+	}
+
+	private boolean matches(byte[] window, int head) {
+		for (int i = 0; i < sync.length; i++) {
+			if (window[(head + i) % window.length] != sync[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean nextBlock() throws IOException {
+		if (eof) {
+			return false;
+		}
+		long marker;
+		if (foundMarker >= 0) {
+			marker = foundMarker;
+			foundMarker = -1;
+			readFully(blockHeader, sync.length, blockHeader.length - sync.length, false);
+		} else {
+			marker = position;
+			if (!readFully(blockHeader, 0, blockHeader.length, true)) {
+				eof = true;
+				return false;
+			}
+			for (int i = 0; i < sync.length; i++) {
+				if (blockHeader[i] != sync[i]) {
+					throw new IOException("Missing sync marker at offset " + marker);
+				}
+			}
+		}
+		ByteBuffer sizes = ByteBuffer.wrap(blockHeader, sync.length, 2 * Integer.BYTES);
+		int uncompressedLength = sizes.getInt();
+		int compressedLength = sizes.getInt();
+		if (compressedLength <= 0 || uncompressedLength < 0 || compressedLength > uncompressedLength + Blosc.MAX_OVERHEAD) {
+			throw new IOException("Invalid block at offset " + marker + ", compressed length: " + compressedLength + ", uncompressed length: " + uncompressedLength);
+		}
+		if (scratch.length < compressedLength) {
+			scratch = new byte[compressedLength];
+			src = ByteBuffer.allocateDirect(compressedLength);
+		}
+		readFully(scratch, 0, compressedLength, false);
+		src.clear();
+		src.put(scratch, 0, compressedLength);
+		src.flip();
+		if (raw.capacity() < uncompressedLength) {
+			raw = ByteBuffer.allocateDirect(uncompressedLength);
+		}
+		raw.clear();
+		raw.limit(uncompressedLength);
+		decompressor.decompress(src, raw);
+		if (raw.hasRemaining()) {
+			throw new IOException("Block at offset " + marker + " decompressed to " + raw.position() + " of " + uncompressedLength + " bytes");
+		}
+		raw.flip();
+		reportedPos = marker + 1;
+		return true;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		while (!raw.hasRemaining()) {
+			if (!nextBlock()) {
+				return -1;
+			}
+		}
+		//never past the end of the current block, see getPos
+		int n = Math.min(len, raw.remaining());
+		raw.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		return read(oneByte, 0, 1) < 0 ? -1 : (oneByte[0] & 0xff);
+	}
+
+	@Override
+	public long getPos() {
+		return reportedPos;
+	}
+
+	/**
+	 * Resets the decompressor and drops what is left of the current block, reading continues at the
+	 * next block. The position in the underlying stream is kept.
+	 */
+	@Override
+	public void resetState() throws IOException {
+		if (decompressor instanceof Decompressor) {
+			((Decompressor) decompressor).reset();
+		}
+		raw.clear();
+		raw.limit(0);
+	}
+
+}
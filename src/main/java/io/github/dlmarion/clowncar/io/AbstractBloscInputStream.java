@@ -0,0 +1,89 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the frames written by {@link AbstractBloscOutputStream} one at a time from a {@link FrameReader},
+ * reversing the {@link BloscPrefilter} the frames were written with.
+ */
+public abstract class AbstractBloscInputStream extends InputStream implements AutoCloseable {
+
+	private final FrameReader reader;
+	private final BloscPrefilter prefilter;
+	private final int typeSize;
+	protected ByteBuffer buf;
+
+	protected AbstractBloscInputStream(InputStream in, int numThreads) {
+		this(new BloscFrameReader(in, numThreads));
+	}
+
+	protected AbstractBloscInputStream(FrameReader reader) {
+		this(reader, BloscPrefilter.NONE, 0);
+	}
+
+	protected AbstractBloscInputStream(InputStream in, int numThreads, BloscPrefilter prefilter, int typeSize) {
+		this(new BloscFrameReader(in, numThreads), prefilter, typeSize);
+	}
+
+	protected AbstractBloscInputStream(FrameReader reader, BloscPrefilter prefilter, int typeSize) {
+		prefilter.checkTypeSize(typeSize);
+		this.reader = reader;
+		this.prefilter = prefilter;
+		this.typeSize = typeSize;
+	}
+
+	/**
+	 * Moves {@link #buf} to the next frame.
+	 *
+	 * @return false if the underlying stream is at the end
+	 */
+	protected boolean fillBuffer() throws IOException {
+		ByteBuffer next = reader.next();
+		if (next == null) {
+			return false;
+		}
+		this.prefilter.decode(next, this.typeSize);
+		this.buf = next;
+		return true;
+	}
+
+	/**
+	 * Makes sure the current frame holds at least {@code bytes} more bytes, moving on to the next
+	 * frame when it is exhausted.
+	 *
+	 * @return false at the end of the stream
+	 */
+	protected boolean ensureAvailable(int bytes) throws IOException {
+		while (this.buf == null || !this.buf.hasRemaining()) {
+			if (!fillBuffer()) {
+				return false;
+			}
+		}
+		if (this.buf.remaining() < bytes) {
+			throw new IOException("Frame ends in the middle of an element, " + this.buf.remaining() + " bytes left");
+		}
+		return true;
+	}
+
+	protected static void checkBounds(int arrayLength, int off, int len) {
+		if (off < 0 || len < 0 || off > arrayLength - len) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		throw new IOException("Unsupported operation.");
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		reader.close();
+	}
+
+}
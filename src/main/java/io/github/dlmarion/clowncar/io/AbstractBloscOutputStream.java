@@ -0,0 +1,108 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Buffers elements in a direct buffer and hands it to a {@link FrameWriter} whenever it fills up,
+ * after applying the {@link BloscPrefilter}, if any.
+ */
+public abstract class AbstractBloscOutputStream extends OutputStream implements AutoCloseable {
+
+	private final FrameWriter writer;
+	protected final ByteBuffer buf;
+	private final int typeSize;
+	private final BloscPrefilter prefilter;
+
+	protected AbstractBloscOutputStream(OutputStream out, int blocksize, int typeSize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads) {
+		this(out, blocksize, typeSize, compressor, compressionLevel, shuffleType, numThreads, BloscPrefilter.NONE);
+	}
+
+	protected AbstractBloscOutputStream(OutputStream out, int blocksize, int typeSize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads, BloscPrefilter prefilter) {
+		this(new BloscFrameWriter(out, new FrameCompressor(compressor, compressionLevel, shuffleType, blocksize, numThreads, prefilter == BloscPrefilter.NATIVE_DELTA)),
+				blocksize, typeSize, prefilter);
+	}
+
+	protected AbstractBloscOutputStream(FrameWriter writer, int blocksize, int typeSize) {
+		this(writer, blocksize, typeSize, BloscPrefilter.NONE);
+	}
+
+	/**
+	 * @param prefilter applied to each frame before it is handed to {@code writer}, for
+	 *        {@link BloscPrefilter#NATIVE_DELTA} the writer's compressor must enable it instead
+	 * @throws IllegalArgumentException if {@code writer} is an {@link IndexedBloscFrameWriter} and
+	 *         the prefilter is done in Java, the container does not record it so
+	 *         {@link SeekableBloscReader} would return the encoded values
+	 */
+	protected AbstractBloscOutputStream(FrameWriter writer, int blocksize, int typeSize, BloscPrefilter prefilter) {
+		prefilter.checkTypeSize(typeSize);
+		if (prefilter.isJava() && writer instanceof IndexedBloscFrameWriter) {
+			throw new IllegalArgumentException("Prefilter " + prefilter.getPrefilterName() + " cannot be used with an indexed container");
+		}
+		this.writer = writer;
+		this.buf = ByteBuffer.allocateDirect(blocksize);
+		this.typeSize = typeSize;
+		this.prefilter = prefilter;
+	}
+
+	protected void writeBuffer() throws IOException {
+		if (this.buf.position() == 0) {
+			return;
+		}
+		this.buf.flip();
+		this.prefilter.encode(this.buf, this.typeSize);
+		this.writer.write(this.buf, this.typeSize);
+		this.buf.clear();
+	}
+
+	/**
+	 * Writes out the current frame if fewer than {@code bytes} bytes are left in it.
+	 */
+	protected void ensureRemaining(int bytes) throws IOException {
+		if (this.buf.remaining() < bytes) {
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * @return number of whole elements of {@code elementSize} bytes that fit in the current frame,
+	 *         writing out the frame first if there is no room for any
+	 */
+	protected int elementsRemaining(int elementSize) throws IOException {
+		ensureRemaining(elementSize);
+		return this.buf.remaining() / elementSize;
+	}
+
+	protected static void checkBounds(int arrayLength, int off, int len) {
+		if (off < 0 || len < 0 || off > arrayLength - len) {
+			throw new ArrayIndexOutOfBoundsException();
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		throw new IOException("Unsupported operation.");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writeBuffer();
+		} finally {
+			this.buf.clear();
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * Overlaps compression and I/O with the thread filling the frames. Frames are copied into a ring of
+ * pre-allocated direct buffers, compressed by one thread and written to the underlying stream, in
+ * order, by another. A producer that gets a full ring ahead of the writer blocks until a slot is
+ * free. The first failure in either stage is rethrown from the next {@link #write}, {@link #flush}
+ * or {@link #close} call.
+ */
+public class AsyncBloscFrameWriter implements FrameWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncBloscFrameWriter.class);
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+	private static class FrameEvent {
+		private final ByteBuffer raw;
+		private final ByteBuffer compressed;
+		private int typeSize;
+		private int length;
+		private boolean flush;
+
+		private FrameEvent(int frameSize) {
+			this.raw = ByteBuffer.allocateDirect(frameSize);
+			this.compressed = ByteBuffer.allocateDirect(HEADER_SIZE + FrameCompressor.maxCompressedSize(frameSize));
+		}
+	}
+
+	private final OutputStream out;
+	private final FrameCompressor compressor;
+	/* only used by the compression thread */
+	private final BloscContext context;
+	private final int frameSize;
+	private final ExecutorService executor;
+	private final Disruptor<FrameEvent> disruptor;
+	private final RingBuffer<FrameEvent> ring;
+	private final Object lock = new Object();
+	private long written = -1L;
+	private volatile Throwable error;
+	private boolean closed = false;
+
+	/**
+	 * @param frameSize largest frame that will be written, normally the block size of the stream
+	 * @param ringSize number of frames that can be in flight, must be a power of 2
+	 */
+	public AsyncBloscFrameWriter(OutputStream out, FrameCompressor compressor, int frameSize, int ringSize) {
+		this.out = out;
+		this.compressor = compressor;
+		this.context = compressor.newContext();
+		this.frameSize = frameSize;
+		final String name = "blosc-async-writer-" + INSTANCES.incrementAndGet();
+		this.executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		this.disruptor = new Disruptor<>(new EventFactory<FrameEvent>() {
+			@Override
+			public FrameEvent newInstance() {
+				return new FrameEvent(AsyncBloscFrameWriter.this.frameSize);
+			}
+		}, ringSize, executor, ProducerType.SINGLE, new BlockingWaitStrategy());
+		chain(new CompressHandler(), new WriteHandler());
+		this.ring = this.disruptor.start();
+	}
+
+	/*
+	 * The Disruptor only takes handlers as generic varargs, so each call creates an
+	 * EventHandler<? super FrameEvent>[]. The arrays are only read by the Disruptor.
+	 */
+	@SuppressWarnings("unchecked")
+	private void chain(EventHandler<FrameEvent> compress, EventHandler<FrameEvent> write) {
+		this.disruptor.handleEventsWith(compress).then(write);
+	}
+
+	private class CompressHandler implements EventHandler<FrameEvent> {
+		@Override
+		public void onEvent(FrameEvent event, long sequence, boolean endOfBatch) {
+			if (event.flush || error != null) {
+				return;
+			}
+			try {
+				int srcLength = event.raw.remaining();
+				event.compressed.clear();
+				event.compressed.position(HEADER_SIZE);
+				int w = compressor.compress(context, event.raw, event.typeSize, event.compressed);
+				event.compressed.putInt(0, w);
+				event.compressed.putInt(Integer.BYTES, srcLength);
+				event.length = HEADER_SIZE + w;
+			} catch (Throwable t) {
+				fail(t);
+			}
+		}
+	}
+
+	private class WriteHandler implements EventHandler<FrameEvent> {
+		private final byte[] copy = new byte[HEADER_SIZE + FrameCompressor.maxCompressedSize(frameSize)];
+
+		@Override
+		public void onEvent(FrameEvent event, long sequence, boolean endOfBatch) {
+			try {
+				if (error == null) {
+					if (event.length > 0) {
+						event.compressed.clear();
+						event.compressed.get(copy, 0, event.length);
+						out.write(copy, 0, event.length);
+					}
+					if (event.flush) {
+						out.flush();
+					}
+				}
+			} catch (Throwable t) {
+				fail(t);
+			} finally {
+				if (endOfBatch || event.flush) {
+					synchronized (lock) {
+						written = sequence;
+						lock.notifyAll();
+					}
+				}
+			}
+		}
+	}
+
+	private void fail(Throwable t) {
+		LOG.error("Error writing frame", t);
+		if (error == null) {
+			error = t;
+		}
+	}
+
+	private void checkError() throws IOException {
+		Throwable t = error;
+		if (t != null) {
+			throw new IOException("Error in asynchronous frame writer", t);
+		}
+	}
+
+	@Override
+	public void write(ByteBuffer frame, int typeSize) throws IOException {
+		checkError();
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		int length = frame.remaining();
+		if (length > frameSize) {
+			throw new IllegalArgumentException("Frame of " + length + " bytes is larger than " + frameSize);
+		}
+		//blocks while the ring is full
+		long sequence = ring.next();
+		try {
+			FrameEvent event = ring.get(sequence);
+			int position = frame.position();
+			event.raw.clear();
+			event.raw.put(frame);
+			event.raw.flip();
+			frame.position(position);
+			event.typeSize = typeSize;
+			event.length = 0;
+			event.flush = false;
+		} finally {
+			ring.publish(sequence);
+		}
+	}
+
+	/**
+	 * Waits for all frames written so far to be compressed and written, then flushes the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		checkError();
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		long sequence = ring.next();
+		try {
+			FrameEvent event = ring.get(sequence);
+			event.length = 0;
+			event.flush = true;
+		} finally {
+			ring.publish(sequence);
+		}
+		synchronized (lock) {
+			while (written < sequence) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for frames to be written");
+				}
+			}
+		}
+		checkError();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			disruptor.shutdown();
+			executor.shutdown();
+			try {
+				out.close();
+			} finally {
+				context.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Picks the compression settings from the data. The first {@code sampleFrames} frames, and as many
+ * frames every {@code resampleInterval} frames after that, are compressed with every candidate
+ * through a {@link CodecTuner}. Each frame is written with the best candidate so far, which is kept
+ * until the next sampling round. The Blosc chunk header records the compressor, shuffle, type size
+ * and block size of every frame, so the frames are read back without any configuration.
+ */
+public class AutoTuningFrameWriter implements FrameWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AutoTuningFrameWriter.class);
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+	public static final int DEFAULT_SAMPLE_FRAMES = 2;
+	public static final int DEFAULT_RESAMPLE_INTERVAL = 1024;
+
+	private final OutputStream out;
+	private final CodecTuner tuner;
+	private final int sampleFrames;
+	private final int resampleInterval;
+	private long frames = 0L;
+	private int current = 0;
+	private ByteBuffer dst = ByteBuffer.allocateDirect(0);
+	private byte[] copy = new byte[0];
+
+	public AutoTuningFrameWriter(OutputStream out, CodecTuner.Objective objective, int numThreads) {
+		this(out, CodecTuner.defaultCandidates(numThreads), objective, DEFAULT_SAMPLE_FRAMES, DEFAULT_RESAMPLE_INTERVAL);
+	}
+
+	/**
+	 * @param sampleFrames number of frames sampled in each round
+	 * @param resampleInterval number of frames from the start of one sampling round to the next, 0 to
+	 *        sample only at the start of the stream
+	 */
+	public AutoTuningFrameWriter(OutputStream out, List<FrameCompressor> candidates, CodecTuner.Objective objective, int sampleFrames, int resampleInterval) {
+		if (sampleFrames < 1) {
+			throw new IllegalArgumentException("At least one frame must be sampled");
+		}
+		if (resampleInterval != 0 && resampleInterval < sampleFrames) {
+			throw new IllegalArgumentException("Resample interval " + resampleInterval + " is shorter than " + sampleFrames + " sample frames");
+		}
+		this.out = out;
+		this.tuner = new CodecTuner(candidates, objective);
+		this.sampleFrames = sampleFrames;
+		this.resampleInterval = resampleInterval;
+	}
+
+	/**
+	 * @return the settings used for the next frame
+	 */
+	public FrameCompressor getCurrent() {
+		return tuner.getCandidates().get(current);
+	}
+
+	@Override
+	public void write(ByteBuffer frame, int typeSize) throws IOException {
+		long round = resampleInterval == 0 ? frames : frames % resampleInterval;
+		if (round < sampleFrames) {
+			if (round == 0) {
+				tuner.reset();
+			}
+			tuner.sample(frame, typeSize);
+			current = tuner.best();
+			if (round == sampleFrames - 1 && LOG.isDebugEnabled()) {
+				LOG.debug("Using {} after sampling {} frames", tuner.getTrials().get(current), sampleFrames);
+			}
+		}
+		frames++;
+
+		int srcLength = frame.remaining();
+		int maxLength = HEADER_SIZE + FrameCompressor.maxCompressedSize(srcLength);
+		if (this.dst.capacity() < maxLength) {
+			this.dst = ByteBuffer.allocateDirect(maxLength);
+			this.copy = new byte[maxLength];
+		}
+		this.dst.clear();
+		this.dst.position(HEADER_SIZE);
+		int written = getCurrent().compress(tuner.context(current), frame, typeSize, this.dst);
+		this.dst.putInt(0, written);
+		this.dst.putInt(Integer.BYTES, srcLength);
+		this.dst.position(0);
+		this.dst.get(copy, 0, HEADER_SIZE + written);
+		out.write(copy, 0, HEADER_SIZE + written);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			out.close();
+		} finally {
+			tuner.close();
+		}
+	}
+
+}
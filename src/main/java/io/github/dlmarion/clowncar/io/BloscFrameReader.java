@@ -0,0 +1,102 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and decompresses each frame on the calling thread.
+ */
+public class BloscFrameReader implements FrameReader {
+
+	static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	private final InputStream in;
+	private final BloscContext context;
+	private final byte[] header = new byte[HEADER_SIZE];
+	private byte[] scratch = new byte[0];
+	private ByteBuffer src = ByteBuffer.allocateDirect(0);
+	private ByteBuffer buf = ByteBuffer.allocateDirect(0);
+
+	public BloscFrameReader(InputStream in, int numThreads) {
+		this.in = in;
+		this.context = BloscContext.create(numThreads);
+	}
+
+	@Override
+	public ByteBuffer next() throws IOException {
+		if (!readFully(in, header, header.length, true)) {
+			return null;
+		}
+		ByteBuffer sizes = ByteBuffer.wrap(header);
+		int compressedSize = sizes.getInt();
+		int unCompressedSize = sizes.getInt();
+		checkHeader(compressedSize, unCompressedSize);
+		//Read compressed data
+		if (scratch.length < compressedSize) {
+			scratch = new byte[compressedSize];
+			src = ByteBuffer.allocateDirect(compressedSize);
+		}
+		readFully(in, scratch, compressedSize, false);
+		src.clear();
+		src.put(scratch, 0, compressedSize);
+		src.flip();
+		if (buf.capacity() < unCompressedSize) {
+			buf = ByteBuffer.allocateDirect(unCompressedSize);
+		}
+		decompress(context, src, buf, unCompressedSize);
+		return buf;
+	}
+
+	static void checkHeader(int compressedSize, int unCompressedSize) throws IOException {
+		if (compressedSize <= 0 || unCompressedSize < 0) {
+			throw new IOException("Invalid frame header, compressed size: " + compressedSize + ", uncompressed size: " + unCompressedSize);
+		}
+	}
+
+	/**
+	 * Decompresses {@code src} into {@code dst}, leaving {@code dst} between 0 and {@code unCompressedSize}.
+	 * The chunk header is checked against the frame header first, so corrupt frames never reach c-blosc.
+	 */
+	static void decompress(BloscContext context, ByteBuffer src, ByteBuffer dst, int unCompressedSize) throws IOException {
+		BloscChunkHeader chunk = BloscChunkHeader.parse(src);
+		if (chunk.getCompressedSize() != src.remaining() || chunk.getUncompressedSize() != unCompressedSize) {
+			throw new IOException("Frame of " + src.remaining() + " bytes, " + unCompressedSize + " uncompressed, does not match its chunk: " + chunk);
+		}
+		dst.clear();
+		dst.limit(unCompressedSize);
+		int read = context.decompress(src, dst);
+		if (read != unCompressedSize) {
+			throw new IOException("Error decompressing frame, expected " + unCompressedSize + " bytes, got: " + read);
+		}
+	}
+
+	static boolean readFully(InputStream in, byte[] b, int len, boolean eofAllowed) throws IOException {
+		int n = 0;
+		while (n < len) {
+			int r = in.read(b, n, len - n);
+			if (r < 0) {
+				if (n == 0 && eofAllowed) {
+					return false;
+				}
+				throw new EOFException("Unexpected end of stream, read " + n + " of " + len + " bytes");
+			}
+			n += r;
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			in.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses and writes each frame on the calling thread.
+ */
+public class BloscFrameWriter implements FrameWriter {
+
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	private final OutputStream out;
+	private final FrameCompressor compressor;
+	private final BloscContext context;
+	private ByteBuffer dst = ByteBuffer.allocateDirect(0);
+	private byte[] copy = new byte[0];
+
+	public BloscFrameWriter(OutputStream out, FrameCompressor compressor) {
+		this.out = out;
+		this.compressor = compressor;
+		this.context = compressor.newContext();
+	}
+
+	@Override
+	public void write(ByteBuffer frame, int typeSize) throws IOException {
+		int srcLength = frame.remaining();
+		int maxLength = HEADER_SIZE + FrameCompressor.maxCompressedSize(srcLength);
+		if (this.dst.capacity() < maxLength) {
+			this.dst = ByteBuffer.allocateDirect(maxLength);
+			this.copy = new byte[maxLength];
+		}
+		//compress after the header, then fill in the compressed and uncompressed sizes
+		this.dst.clear();
+		this.dst.position(HEADER_SIZE);
+		int written = this.compressor.compress(this.context, frame, typeSize, this.dst);
+		this.dst.putInt(0, written);
+		this.dst.putInt(Integer.BYTES, srcLength);
+		this.dst.position(0);
+		this.dst.get(copy, 0, HEADER_SIZE + written);
+		out.write(copy, 0, HEADER_SIZE + written);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			out.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
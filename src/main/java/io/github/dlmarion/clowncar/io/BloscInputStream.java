@@ -1,48 +1,51 @@
 package io.github.dlmarion.clowncar.io;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import io.github.dlmarion.clowncar.jnr.BloscLibrary;
+import io.github.dlmarion.clowncar.BloscPrefilter;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 
-public class BloscInputStream<T> extends InputStream implements AutoCloseable {
+/**
+ * Reads boxed values of one type. Prefer the primitive streams, e.g. {@link LongBloscInputStream},
+ * which read the same format without boxing each element.
+ */
+public class BloscInputStream<T> extends AbstractBloscInputStream {
 
-	private final InputStream in;
-	private final int numThreads;
 	private final Class<T> type;
-	private ByteBuffer buf;
-	
+
 	public BloscInputStream(InputStream in, Class<T> type, int numThreads) {
-		this.in = in;
+		super(in, numThreads);
+		this.type = type;
+	}
+
+	public BloscInputStream(FrameReader reader, Class<T> type) {
+		super(reader);
+		this.type = type;
+	}
+
+	/**
+	 * @param prefilter the prefilter the stream was written with
+	 */
+	public BloscInputStream(InputStream in, Class<T> type, int numThreads, BloscPrefilter prefilter) {
+		super(in, numThreads, prefilter, BloscOutputStream.typeSize(type));
 		this.type = type;
-		this.numThreads = numThreads;
 	}
-	
-	private void fillBuffer() throws IOException {
-		//Read compressed size
-		ByteBuffer compressedSize = ByteBuffer.allocate(4);
-		in.read(compressedSize.array());
-		//Read uncompressed size
-		ByteBuffer unCompressedSize = ByteBuffer.allocate(4);
-		in.read(unCompressedSize.array());
-		//Read compressed data
-		ByteBuffer src = ByteBuffer.allocate(compressedSize.getInt());
-		in.read(src.array());
-		this.buf = ByteBuffer.allocate(unCompressedSize.getInt());
-		@SuppressWarnings("unused") //may do something with this later
-		int read = BloscLibrary.decompress(src, buf, buf.capacity(), this.numThreads); 
+
+	public BloscInputStream(FrameReader reader, Class<T> type, BloscPrefilter prefilter) {
+		super(reader, prefilter, BloscOutputStream.typeSize(type));
+		this.type = type;
 	}
-	
+
 	@SuppressWarnings("unchecked")
 	public T get() throws IOException {
-		if (this.buf == null || this.buf.remaining() < Integer.BYTES) {
-			fillBuffer();
+		if (!ensureAvailable(Integer.BYTES)) {
+			throw new EOFException();
 		}
-		
+
 		if (type.equals(Long.class)) {
-			return (T) ((Long) buf.getLong()); 
+			return (T) ((Long) buf.getLong());
 		} else if (type.equals(Integer.class)) {
 			return (T) ((Integer) buf.getInt());
 		} else if (type.equals(Double.class)) {
@@ -56,10 +59,5 @@ public class BloscInputStream<T> extends InputStream implements AutoCloseable {
 			return (T) new String(b, UTF_8);
 		}
 	}
-	
-	@Override
-	public int read() throws IOException {
-		throw new IOException("Unsupported operation.");
-	}
 
 }
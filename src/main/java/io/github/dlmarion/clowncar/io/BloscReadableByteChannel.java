@@ -0,0 +1,75 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads the decompressed bytes of the frames written by {@link AbstractBloscOutputStream} or
+ * {@link BloscWritableByteChannel}.
+ */
+public class BloscReadableByteChannel implements ReadableByteChannel {
+
+	private final FrameReader reader;
+	private ByteBuffer frame;
+	private boolean open = true;
+
+	/**
+	 * Reads from {@code in} until its end, see {@link ChannelBloscFrameReader}.
+	 */
+	public BloscReadableByteChannel(ReadableByteChannel in, int numThreads) {
+		this(new ChannelBloscFrameReader(in, numThreads));
+	}
+
+	/**
+	 * Reads {@code length} bytes of frames from {@code in} with scattering reads, see
+	 * {@link ChannelBloscFrameReader}.
+	 */
+	public BloscReadableByteChannel(ReadableByteChannel in, int numThreads, long length) {
+		this(new ChannelBloscFrameReader(in, numThreads, length));
+	}
+
+	public BloscReadableByteChannel(FrameReader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+		int total = 0;
+		while (dst.hasRemaining()) {
+			if (frame == null || !frame.hasRemaining()) {
+				frame = reader.next();
+				if (frame == null) {
+					return total == 0 ? -1 : total;
+				}
+			}
+			int n = Math.min(dst.remaining(), frame.remaining());
+			int limit = frame.limit();
+			frame.limit(frame.position() + n);
+			dst.put(frame);
+			frame.limit(limit);
+			total += n;
+		}
+		return total;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		frame = null;
+		reader.close();
+	}
+
+}
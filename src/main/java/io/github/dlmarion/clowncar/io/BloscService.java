@@ -0,0 +1,416 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses and decompresses independent payloads, submitted from any number of threads, on a
+ * fixed pool of platform threads. Each pool thread owns a {@link BloscContext} and direct buffers
+ * that grow to the largest payload it has seen, so callers neither set up native state nor make
+ * the native call themselves; a virtual thread waiting on the returned future does not pin its
+ * carrier. Pool threads take the jobs waiting in the queue in batches.
+ * <p>
+ * The returned futures are completed on a separate executor, the common pool by default, so that
+ * dependent stages, which may submit more jobs, neither run on nor block the pool threads.
+ * <p>
+ * The queue is bounded, the {@link OverflowPolicy} decides what a submission to a full queue does.
+ * Payloads are copied on submission, the caller may reuse its arrays and buffers as soon as the
+ * call returns. Closing the service runs the jobs already queued. A pool thread that stops on its
+ * own, because it was interrupted or could not create its context, closes the service and fails
+ * the queued jobs with a {@link RejectedExecutionException}.
+ */
+public class BloscService implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BloscService.class);
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+	public static final int DEFAULT_MAX_JOB_SIZE = 16 * 1024 * 1024;
+	private static final int BATCH_SIZE = 16;
+	/* how often idle pool threads check whether the service was closed */
+	private static final long POLL_MILLIS = 100;
+
+	public enum OverflowPolicy {
+		/** the submitting thread waits for room in the queue */
+		BLOCK,
+		/** the returned future fails with a {@link RejectedExecutionException} */
+		REJECT
+	}
+
+	private static final class Job {
+		private final byte[] data;
+		private final int typeSize;
+		private final boolean compress;
+		private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+		private final long queued = System.nanoTime();
+
+		private Job(byte[] data, int typeSize, boolean compress) {
+			this.data = data;
+			this.typeSize = typeSize;
+			this.compress = compress;
+		}
+	}
+
+	private final FrameCompressor compressor;
+	private final BlockingQueue<Job> queue;
+	private final OverflowPolicy policy;
+	private final Executor completions;
+	private final int maxJobSize;
+	private final List<Thread> workers = new ArrayList<>();
+	private volatile boolean closed = false;
+	/* why a pool thread stopped before the service was closed */
+	private volatile Throwable failure;
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong queueLatencyNanos = new AtomicLong();
+	private final AtomicLong maxQueueLatencyNanos = new AtomicLong();
+
+	public BloscService(FrameCompressor compressor, int threads, int queueSize) {
+		this(compressor, threads, queueSize, OverflowPolicy.BLOCK, DEFAULT_MAX_JOB_SIZE);
+	}
+
+	/**
+	 * @param threads number of pool threads, each with its own context
+	 * @param queueSize number of jobs that can wait for a pool thread
+	 * @param maxJobSize largest uncompressed payload, the pool buffers grow up to it
+	 */
+	public BloscService(FrameCompressor compressor, int threads, int queueSize, OverflowPolicy policy, int maxJobSize) {
+		this(compressor, threads, queueSize, policy, maxJobSize, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param completions executor the returned futures are completed on
+	 */
+	public BloscService(FrameCompressor compressor, int threads, int queueSize, OverflowPolicy policy, int maxJobSize, Executor completions) {
+		if (threads < 1 || queueSize < 1) {
+			throw new IllegalArgumentException("Invalid pool, threads: " + threads + ", queue size: " + queueSize);
+		}
+		this.compressor = compressor;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.policy = policy;
+		this.completions = completions;
+		this.maxJobSize = maxJobSize;
+		String name = "blosc-service-" + INSTANCES.incrementAndGet();
+		for (int i = 0; i < threads; i++) {
+			Thread t = new Thread(new Worker(), name + "-" + (i + 1));
+			t.setDaemon(true);
+			workers.add(t);
+		}
+		for (Thread t : workers) {
+			t.start();
+		}
+	}
+
+	/**
+	 * @return the compressed chunk
+	 */
+	public CompletableFuture<byte[]> compress(byte[] src, int typeSize) {
+		return compress(ByteBuffer.wrap(src), typeSize);
+	}
+
+	/**
+	 * Compresses the bytes between the position and the limit of {@code src}, whose position is
+	 * left unchanged.
+	 *
+	 * @return the compressed chunk
+	 */
+	public CompletableFuture<byte[]> compress(ByteBuffer src, int typeSize) {
+		checkSize(src.remaining(), maxJobSize);
+		return submit(new Job(copy(src), typeSize, true));
+	}
+
+	/**
+	 * @return the decompressed bytes
+	 */
+	public CompletableFuture<byte[]> decompress(byte[] chunk) {
+		return decompress(ByteBuffer.wrap(chunk));
+	}
+
+	/**
+	 * Decompresses the chunk between the position and the limit of {@code chunk}, whose position
+	 * is left unchanged.
+	 *
+	 * @return the decompressed bytes
+	 */
+	public CompletableFuture<byte[]> decompress(ByteBuffer chunk) {
+		checkSize(chunk.remaining(), FrameCompressor.maxCompressedSize(maxJobSize));
+		return submit(new Job(copy(chunk), 1, false));
+	}
+
+	private static void checkSize(int size, int max) {
+		if (size > max) {
+			throw new IllegalArgumentException("Payload of " + size + " bytes is larger than " + max);
+		}
+	}
+
+	private static byte[] copy(ByteBuffer buf) {
+		byte[] copy = new byte[buf.remaining()];
+		buf.duplicate().get(copy);
+		return copy;
+	}
+
+	private CompletableFuture<byte[]> submit(Job job) {
+		if (closed) {
+			throw new IllegalStateException("Service is closed", failure);
+		}
+		submitted.incrementAndGet();
+		if (policy == OverflowPolicy.BLOCK) {
+			try {
+				queue.put(job);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				rejected.incrementAndGet();
+				job.result.completeExceptionally(new RejectedExecutionException("Interrupted waiting for room in the queue", e));
+			}
+		} else if (!queue.offer(job)) {
+			rejected.incrementAndGet();
+			job.result.completeExceptionally(new RejectedExecutionException("Queue is full, " + queue.size() + " jobs waiting"));
+		}
+		//closed while queuing, the pool threads may be gone
+		if (closed && queue.remove(job)) {
+			rejected.incrementAndGet();
+			job.result.completeExceptionally(new RejectedExecutionException("Service is closed", failure));
+		}
+		return job.result;
+	}
+
+	private class Worker implements Runnable {
+		private final BloscChunkHeader header = new BloscChunkHeader();
+		private final List<Job> batch = new ArrayList<>(BATCH_SIZE);
+		private ByteBuffer input = ByteBuffer.allocateDirect(0);
+		private ByteBuffer output = ByteBuffer.allocateDirect(0);
+
+		@Override
+		public void run() {
+			try (BloscContext context = compressor.newContext()) {
+				while (true) {
+					Job job = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+					if (job == null) {
+						if (closed) {
+							return;
+						}
+						continue;
+					}
+					batch.add(job);
+					queue.drainTo(batch, BATCH_SIZE - 1);
+					batches.incrementAndGet();
+					for (Job next : batch) {
+						run(context, next);
+					}
+					batch.clear();
+				}
+			} catch (Throwable t) {
+				stop(t);
+			}
+		}
+
+		private void run(BloscContext context, Job job) {
+			long latency = System.nanoTime() - job.queued;
+			queueLatencyNanos.addAndGet(latency);
+			updateMax(latency);
+			byte[] result;
+			try {
+				result = job.compress ? compress(context, job) : decompress(context, job);
+				completed.incrementAndGet();
+			} catch (Throwable t) {
+				failed.incrementAndGet();
+				complete(job, null, t);
+				return;
+			}
+			complete(job, result, null);
+		}
+
+		private void complete(final Job job, final byte[] result, final Throwable error) {
+			Runnable completion = () -> {
+				if (error == null) {
+					job.result.complete(result);
+				} else {
+					job.result.completeExceptionally(error);
+				}
+			};
+			try {
+				completions.execute(completion);
+			} catch (RejectedExecutionException e) {
+				completion.run();
+			}
+		}
+
+		private byte[] compress(BloscContext context, Job job) {
+			input = fill(input, job.data);
+			output = clear(output, FrameCompressor.maxCompressedSize(job.data.length));
+			int w = compressor.compress(context, input, job.typeSize, output);
+			byte[] result = new byte[w];
+			output.get(result);
+			return result;
+		}
+
+		private byte[] decompress(BloscContext context, Job job) throws IOException {
+			input = fill(input, job.data);
+			header.read(input);
+			int size = header.getUncompressedSize();
+			if (header.getCompressedSize() > job.data.length) {
+				throw new IOException("Blosc chunk of " + header.getCompressedSize() + " bytes is truncated to " + job.data.length);
+			}
+			if (size > maxJobSize) {
+				throw new IOException("Blosc chunk decompresses to " + size + " bytes, more than " + maxJobSize);
+			}
+			output = clear(output, size);
+			int r = context.decompress(input, output);
+			if (r != size) {
+				throw new IOException("Error decompressing Blosc chunk: " + r + ", expected " + size + " bytes");
+			}
+			byte[] result = new byte[size];
+			output.get(result);
+			return result;
+		}
+
+		private ByteBuffer fill(ByteBuffer buf, byte[] data) {
+			buf = clear(buf, data.length);
+			buf.put(data);
+			buf.flip();
+			return buf;
+		}
+
+		/**
+		 * @return {@code buf}, or a larger one, with a limit of {@code size}
+		 */
+		private ByteBuffer clear(ByteBuffer buf, int size) {
+			if (buf.capacity() < size) {
+				buf = ByteBuffer.allocateDirect(Math.min(FrameCompressor.maxCompressedSize(maxJobSize), Math.max(size, buf.capacity() * 2)));
+			}
+			buf.clear();
+			buf.limit(size);
+			return buf;
+		}
+	}
+
+	/**
+	 * Closes the service when a pool thread stops before it was closed, nothing would run the queued
+	 * jobs once the other pool threads stop too.
+	 */
+	private void stop(Throwable cause) {
+		LOG.error("Blosc service thread stopped, closing the service", cause);
+		if (failure == null) {
+			failure = cause;
+		}
+		closed = true;
+		Job job;
+		while ((job = queue.poll()) != null) {
+			rejected.incrementAndGet();
+			job.result.completeExceptionally(new RejectedExecutionException("Blosc service thread stopped", cause));
+		}
+	}
+
+	private void updateMax(long latency) {
+		long current;
+		while (latency > (current = maxQueueLatencyNanos.get())) {
+			if (maxQueueLatencyNanos.compareAndSet(current, latency)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting jobs, waits for the queued ones to run, then stops the pool threads.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean interrupted = false;
+		for (Thread t : workers) {
+			while (t.isAlive()) {
+				try {
+					t.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		//jobs that raced with close after the pool threads found the queue empty
+		Job job;
+		while ((job = queue.poll()) != null) {
+			rejected.incrementAndGet();
+			job.result.completeExceptionally(new RejectedExecutionException("Service is closed", failure));
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return number of jobs waiting for a pool thread
+	 */
+	public int getQueuedJobs() {
+		return queue.size();
+	}
+
+	public long getSubmittedJobs() {
+		return submitted.get();
+	}
+
+	public long getCompletedJobs() {
+		return completed.get();
+	}
+
+	public long getFailedJobs() {
+		return failed.get();
+	}
+
+	/**
+	 * @return number of jobs refused because the queue was full or the service closed
+	 */
+	public long getRejectedJobs() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return number of times a pool thread took jobs from the queue, each time up to 16
+	 */
+	public long getBatches() {
+		return batches.get();
+	}
+
+	/**
+	 * @return total time jobs waited in the queue before a pool thread took them
+	 */
+	public long getQueueLatencyNanos() {
+		return queueLatencyNanos.get();
+	}
+
+	public long getMaxQueueLatencyNanos() {
+		return maxQueueLatencyNanos.get();
+	}
+
+	/**
+	 * @return average time jobs waited in the queue
+	 */
+	public long getMeanQueueLatencyNanos() {
+		long n = completed.get() + failed.get();
+		return n == 0 ? 0 : queueLatencyNanos.get() / n;
+	}
+
+}
@@ -0,0 +1,101 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes bytes as Blosc frames in the same format as {@link AbstractBloscOutputStream}. Bytes are
+ * gathered in a direct buffer of {@code frameSize} bytes, which is written as a frame whenever it
+ * fills up, on {@link #flush()} and on {@link #close()}. Callers are expected to write whole
+ * elements of {@code typeSize} bytes, and {@code frameSize} should be a multiple of it. The frame
+ * size is independent of the Blosc block size of the compressor, which may be 0.
+ */
+public class BloscWritableByteChannel implements WritableByteChannel {
+
+	private final FrameWriter writer;
+	private final ByteBuffer buf;
+	private final int typeSize;
+	private boolean open = true;
+
+	/**
+	 * Writes to {@code out} with gathering writes, see {@link ChannelBloscFrameWriter}.
+	 */
+	public BloscWritableByteChannel(WritableByteChannel out, FrameCompressor compressor, int frameSize, int typeSize) {
+		this(new ChannelBloscFrameWriter(out, compressor), frameSize, typeSize);
+	}
+
+	/**
+	 * @param frameSize uncompressed size of a full frame, must be positive
+	 */
+	public BloscWritableByteChannel(FrameWriter writer, int frameSize, int typeSize) {
+		if (frameSize <= 0) {
+			throw new IllegalArgumentException("frameSize must be positive: " + frameSize);
+		}
+		this.writer = writer;
+		this.buf = ByteBuffer.allocateDirect(frameSize);
+		this.typeSize = typeSize;
+	}
+
+	private void writeBuffer() throws IOException {
+		if (this.buf.position() == 0) {
+			return;
+		}
+		this.buf.flip();
+		this.writer.write(this.buf, this.typeSize);
+		this.buf.clear();
+	}
+
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+		int total = src.remaining();
+		while (src.hasRemaining()) {
+			if (!this.buf.hasRemaining()) {
+				writeBuffer();
+			}
+			int n = Math.min(src.remaining(), this.buf.remaining());
+			int limit = src.limit();
+			src.limit(src.position() + n);
+			this.buf.put(src);
+			src.limit(limit);
+		}
+		if (!this.buf.hasRemaining()) {
+			writeBuffer();
+		}
+		return total;
+	}
+
+	/**
+	 * Writes out the current, possibly short, frame.
+	 */
+	public void flush() throws IOException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+		writeBuffer();
+		writer.flush();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!open) {
+			return;
+		}
+		open = false;
+		try {
+			writeBuffer();
+		} finally {
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Reads frames from a channel into direct buffers and decompresses them on the calling thread,
+ * without copying the compressed data to the heap. By default the header and the compressed data
+ * of a frame are read with separate exact-length reads, so nothing after a frame is consumed and
+ * the channel can hold other data after the stream. When the caller declares the length of the
+ * stream and the channel supports scattering reads, the header of the next frame is read together
+ * with the compressed data of the current one, but never past the declared length. The channel
+ * must be in blocking mode.
+ */
+public class ChannelBloscFrameReader implements FrameReader {
+
+	private final ReadableByteChannel in;
+	private final BloscContext context;
+	private final ByteBuffer header = ByteBuffer.allocateDirect(BloscFrameReader.HEADER_SIZE);
+	private final ByteBuffer[] buffers = new ByteBuffer[2];
+	private ByteBuffer src = ByteBuffer.allocateDirect(0);
+	private ByteBuffer buf = ByteBuffer.allocateDirect(0);
+	/* bytes of the stream not read yet, -1 when the length was not declared */
+	private long remaining;
+
+	public ChannelBloscFrameReader(ReadableByteChannel in, int numThreads) {
+		this(in, numThreads, -1L);
+	}
+
+	/**
+	 * @param length number of bytes the frames take from the current position of the channel, or -1
+	 *        when unknown, in which case the frames are read until the end of the channel and no
+	 *        header is read ahead
+	 */
+	public ChannelBloscFrameReader(ReadableByteChannel in, int numThreads, long length) {
+		if (length < -1L) {
+			throw new IllegalArgumentException("length must be -1 or positive: " + length);
+		}
+		this.in = in;
+		this.context = BloscContext.create(numThreads);
+		this.remaining = length;
+		this.buffers[1] = header;
+	}
+
+	private void checkRemaining(int needed, String what) throws EOFException {
+		if (remaining >= 0 && remaining < needed) {
+			throw new EOFException("Declared length ends inside the " + what + ", " + remaining + " of " + needed + " bytes left");
+		}
+	}
+
+	@Override
+	public ByteBuffer next() throws IOException {
+		if (remaining == 0 && header.position() == 0) {
+			return null;
+		}
+		//the header may already be partly or fully read with the previous frame
+		checkRemaining(header.remaining(), "frame header");
+		while (header.hasRemaining()) {
+			int r = in.read(header);
+			if (r < 0) {
+				if (header.position() == 0) {
+					return null;
+				}
+				throw new EOFException("Unexpected end of channel, read " + header.position() + " of " + header.capacity() + " header bytes");
+			}
+			if (remaining >= 0) {
+				remaining -= r;
+			}
+		}
+		int compressedSize = header.getInt(0);
+		int unCompressedSize = header.getInt(Integer.BYTES);
+		BloscFrameReader.checkHeader(compressedSize, unCompressedSize);
+		checkRemaining(compressedSize, "frame");
+		if (src.capacity() < compressedSize) {
+			src = ByteBuffer.allocateDirect(compressedSize);
+		}
+		src.clear();
+		src.limit(compressedSize);
+		header.clear();
+		if (in instanceof ScatteringByteChannel && remaining - compressedSize >= BloscFrameReader.HEADER_SIZE) {
+			buffers[0] = src;
+			ScatteringByteChannel scattering = (ScatteringByteChannel) in;
+			while (src.hasRemaining()) {
+				if (scattering.read(buffers) < 0) {
+					throw new EOFException("Unexpected end of channel, read " + src.position() + " of " + compressedSize + " bytes");
+				}
+			}
+			remaining -= compressedSize + header.position();
+		} else {
+			while (src.hasRemaining()) {
+				if (in.read(src) < 0) {
+					throw new EOFException("Unexpected end of channel, read " + src.position() + " of " + compressedSize + " bytes");
+				}
+			}
+			if (remaining >= 0) {
+				remaining -= compressedSize;
+			}
+		}
+		src.flip();
+		if (buf.capacity() < unCompressedSize) {
+			buf = ByteBuffer.allocateDirect(unCompressedSize);
+		}
+		BloscFrameReader.decompress(context, src, buf, unCompressedSize);
+		return buf;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			in.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Compresses each frame on the calling thread and writes it to a channel without copying it to
+ * the heap. The header and the compressed data are written with a single gathering write when the
+ * channel supports it, e.g. a {@code FileChannel} or a {@code SocketChannel}. The channel must be
+ * in blocking mode.
+ */
+public class ChannelBloscFrameWriter implements FrameWriter {
+
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	private final WritableByteChannel out;
+	private final FrameCompressor compressor;
+	private final BloscContext context;
+	private final ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE);
+	private final ByteBuffer[] buffers = new ByteBuffer[2];
+	private ByteBuffer dst = ByteBuffer.allocateDirect(0);
+
+	public ChannelBloscFrameWriter(WritableByteChannel out, FrameCompressor compressor) {
+		this.out = out;
+		this.compressor = compressor;
+		this.context = compressor.newContext();
+		this.buffers[0] = header;
+	}
+
+	@Override
+	public void write(ByteBuffer frame, int typeSize) throws IOException {
+		int srcLength = frame.remaining();
+		if (this.dst.capacity() < FrameCompressor.maxCompressedSize(srcLength)) {
+			this.dst = ByteBuffer.allocateDirect(FrameCompressor.maxCompressedSize(srcLength));
+		}
+		this.dst.clear();
+		int written = this.compressor.compress(this.context, frame, typeSize, this.dst);
+		this.dst.limit(written);
+		this.header.clear();
+		this.header.putInt(written);
+		this.header.putInt(srcLength);
+		this.header.flip();
+		if (out instanceof GatheringByteChannel) {
+			this.buffers[1] = this.dst;
+			GatheringByteChannel gathering = (GatheringByteChannel) out;
+			while (this.dst.hasRemaining()) {
+				gathering.write(buffers);
+			}
+		} else {
+			while (this.header.hasRemaining()) {
+				out.write(this.header);
+			}
+			while (this.dst.hasRemaining()) {
+				out.write(this.dst);
+			}
+		}
+	}
+
+	/**
+	 * Channels have no buffer of their own to flush.
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			out.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
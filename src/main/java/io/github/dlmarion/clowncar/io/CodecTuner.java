@@ -0,0 +1,210 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compresses sample frames with every candidate setting and keeps the compression ratio and speed
+ * of each, so that the best candidate for an {@link Objective} can be picked. Holds one context
+ * per candidate until closed, instances are not thread safe.
+ */
+public class CodecTuner implements Closeable {
+
+	/**
+	 * Ranks the results of a candidate, the candidate with the highest score wins.
+	 */
+	public interface Objective {
+		double score(Trial trial);
+	}
+
+	/**
+	 * Compression ratio and speed of one candidate over the frames sampled so far.
+	 */
+	public static class Trial {
+		private final FrameCompressor compressor;
+		private long rawBytes = 0L;
+		private long compressedBytes = 0L;
+		private long nanos = 0L;
+
+		private Trial(FrameCompressor compressor) {
+			this.compressor = compressor;
+		}
+
+		public FrameCompressor getCompressor() {
+			return compressor;
+		}
+
+		/**
+		 * @return uncompressed size divided by compressed size
+		 */
+		public double getRatio() {
+			return compressedBytes == 0 ? 0.0D : (double) rawBytes / compressedBytes;
+		}
+
+		/**
+		 * @return uncompressed megabytes compressed per second
+		 */
+		public double getMBPerSecond() {
+			return nanos == 0 ? Double.MAX_VALUE : (rawBytes * 1000.0D) / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return compressor.getCompressor().getCompressorName() + "/" + compressor.getCompressionLevel() + "/"
+					+ compressor.getShuffleType() + "/" + compressor.getBlockSize() + ": ratio " + String.format("%.2f", getRatio())
+					+ ", " + String.format("%.1f", getMBPerSecond()) + " MB/s";
+		}
+	}
+
+	/**
+	 * @return the best compression ratio among the candidates that compress at least
+	 *         {@code minMBPerSecond}, or the fastest candidate if none is that fast
+	 */
+	public static Objective maxRatio(final double minMBPerSecond) {
+		return new Objective() {
+			@Override
+			public double score(Trial trial) {
+				double speed = trial.getMBPerSecond();
+				//scores of candidates that are too slow stay below 0, the fastest first
+				return speed >= minMBPerSecond ? trial.getRatio() : (speed / minMBPerSecond) - 1;
+			}
+		};
+	}
+
+	/**
+	 * @return the fastest candidate
+	 */
+	public static Objective minLatency() {
+		return new Objective() {
+			@Override
+			public double score(Trial trial) {
+				return trial.getMBPerSecond();
+			}
+		};
+	}
+
+	/**
+	 * @return every compressor c-blosc and c-blosc2 share at levels 1, 5 and 9 with each shuffle,
+	 *         letting Blosc choose the block size or using 256 KB blocks, which fit in most L2 caches
+	 */
+	public static List<FrameCompressor> defaultCandidates(int numThreads) {
+		List<FrameCompressor> candidates = new ArrayList<>();
+		for (BloscCompressorType compressor : new BloscCompressorType[] {BloscCompressorType.BLOSCLZ, BloscCompressorType.LZ4,
+				BloscCompressorType.LZ4HC, BloscCompressorType.ZLIB, BloscCompressorType.ZSTD}) {
+			for (int level : new int[] {1, 5, 9}) {
+				for (BloscShuffleType shuffle : BloscShuffleType.values()) {
+					for (int blockSize : new int[] {0, 256 * 1024}) {
+						candidates.add(new FrameCompressor(compressor, level, shuffle, blockSize, numThreads));
+					}
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private final List<FrameCompressor> candidates;
+	private final Objective objective;
+	private final BloscContext[] contexts;
+	private final Trial[] trials;
+	private ByteBuffer dst = ByteBuffer.allocateDirect(0);
+
+	public CodecTuner(List<FrameCompressor> candidates, Objective objective) {
+		if (candidates.isEmpty()) {
+			throw new IllegalArgumentException("No candidates");
+		}
+		this.candidates = Collections.unmodifiableList(new ArrayList<>(candidates));
+		this.objective = objective;
+		this.contexts = new BloscContext[candidates.size()];
+		this.trials = new Trial[candidates.size()];
+		reset();
+	}
+
+	public List<FrameCompressor> getCandidates() {
+		return candidates;
+	}
+
+	/**
+	 * @return the context used to compress with candidate {@code index}, owned by this tuner
+	 */
+	BloscContext context(int index) {
+		if (contexts[index] == null) {
+			contexts[index] = candidates.get(index).newContext();
+		}
+		return contexts[index];
+	}
+
+	/**
+	 * Compresses the bytes between the position and the limit of {@code frame} with every candidate.
+	 * The position of {@code frame} is left unchanged.
+	 */
+	public void sample(ByteBuffer frame, int typeSize) {
+		int maxLength = FrameCompressor.maxCompressedSize(frame.remaining());
+		if (dst.capacity() < maxLength) {
+			dst = ByteBuffer.allocateDirect(maxLength);
+		}
+		for (int i = 0; i < trials.length; i++) {
+			dst.clear();
+			long start = System.nanoTime();
+			int written = context(i).compress(frame, typeSize, dst);
+			trials[i].nanos += System.nanoTime() - start;
+			trials[i].rawBytes += frame.remaining();
+			trials[i].compressedBytes += written;
+		}
+	}
+
+	/**
+	 * @return index of the candidate with the highest score, the first candidate when nothing was sampled
+	 */
+	public int best() {
+		int best = 0;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < trials.length; i++) {
+			if (trials[i].rawBytes == 0) {
+				continue;
+			}
+			double score = objective.score(trials[i]);
+			if (score > bestScore) {
+				best = i;
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	public FrameCompressor getBest() {
+		return candidates.get(best());
+	}
+
+	public List<Trial> getTrials() {
+		List<Trial> result = new ArrayList<>(trials.length);
+		Collections.addAll(result, trials);
+		return result;
+	}
+
+	/**
+	 * Forgets the results of the frames sampled so far.
+	 */
+	public void reset() {
+		for (int i = 0; i < trials.length; i++) {
+			trials[i] = new Trial(candidates.get(i));
+		}
+	}
+
+	@Override
+	public void close() {
+		for (int i = 0; i < contexts.length; i++) {
+			if (contexts[i] != null) {
+				contexts[i].close();
+				contexts[i] = null;
+			}
+		}
+	}
+
+}
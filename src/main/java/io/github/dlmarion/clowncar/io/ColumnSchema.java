@@ -0,0 +1,161 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns of the records written by a {@link ColumnarWriter}, in order.
+ */
+public class ColumnSchema {
+
+	/**
+	 * A named column of Long, Integer, Double, Float or String values. Numeric columns are
+	 * compressed with their own type size, shuffle and prefilter. String columns are stored as
+	 * offsets and UTF-8 data, see {@link ColumnarWriter}.
+	 */
+	public static class Column {
+		private final String name;
+		private final Class<?> type;
+		private final byte elementType;
+		private final BloscShuffleType shuffleType;
+		private final BloscPrefilter prefilter;
+
+		public Column(String name, Class<?> type) {
+			this(name, type, type.equals(String.class) ? BloscShuffleType.NO_SHUFFLE : BloscShuffleType.BYTE_SHUFFLE, BloscPrefilter.NONE);
+		}
+
+		/**
+		 * @param shuffleType ignored for String columns
+		 * @param prefilter must be NONE for String columns
+		 */
+		public Column(String name, Class<?> type, BloscShuffleType shuffleType, BloscPrefilter prefilter) {
+			this.name = name;
+			this.type = type;
+			this.elementType = type.equals(String.class) ? STRING : IndexedBloscFrameWriter.elementType(type);
+			this.shuffleType = shuffleType;
+			this.prefilter = prefilter;
+			if (elementType == STRING && prefilter != BloscPrefilter.NONE) {
+				throw new IllegalArgumentException("String column " + name + " cannot have a prefilter");
+			}
+			if (elementType != STRING) {
+				prefilter.checkTypeSize(getTypeSize());
+			}
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Class<?> getType() {
+			return type;
+		}
+
+		public BloscShuffleType getShuffleType() {
+			return shuffleType;
+		}
+
+		public BloscPrefilter getPrefilter() {
+			return prefilter;
+		}
+
+		/**
+		 * @return size of the values in bytes, 0 for String columns
+		 */
+		public int getTypeSize() {
+			return elementType == STRING ? 0 : IndexedBloscFrameWriter.typeSize(elementType);
+		}
+
+		boolean isString() {
+			return elementType == STRING;
+		}
+
+		byte getElementType() {
+			return elementType;
+		}
+	}
+
+	static final byte STRING = 'S';
+
+	private final List<Column> columns;
+
+	public ColumnSchema(Column... columns) {
+		this(Arrays.asList(columns));
+	}
+
+	public ColumnSchema(List<Column> columns) {
+		if (columns.isEmpty()) {
+			throw new IllegalArgumentException("No columns");
+		}
+		for (int i = 0; i < columns.size(); i++) {
+			for (int j = 0; j < i; j++) {
+				if (columns.get(i).getName().equals(columns.get(j).getName())) {
+					throw new IllegalArgumentException("Duplicate column: " + columns.get(i).getName());
+				}
+			}
+		}
+		this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+	}
+
+	public List<Column> getColumns() {
+		return columns;
+	}
+
+	public int size() {
+		return columns.size();
+	}
+
+	public Column getColumn(int index) {
+		return columns.get(index);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if there is no column named {@code name}
+	 */
+	public int indexOf(String name) {
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).getName().equals(name)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown column: " + name);
+	}
+
+	void write(DataOutput out) throws IOException {
+		out.writeInt(columns.size());
+		for (Column column : columns) {
+			out.writeUTF(column.name);
+			out.writeByte(column.elementType);
+			out.writeByte(column.shuffleType.getShuffleType());
+			out.writeByte(column.prefilter.ordinal());
+		}
+	}
+
+	static ColumnSchema read(DataInput in) throws IOException {
+		int count = in.readInt();
+		if (count <= 0) {
+			throw new IOException("Invalid column count: " + count);
+		}
+		List<Column> columns = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			String name = in.readUTF();
+			byte elementType = in.readByte();
+			Class<?> type = elementType == STRING ? String.class : IndexedBloscFrameWriter.elementClass(elementType);
+			BloscShuffleType shuffleType = BloscShuffleType.getShuffleType(in.readByte());
+			int prefilter = in.readByte();
+			if (prefilter < 0 || prefilter >= BloscPrefilter.values().length) {
+				throw new IOException("Unknown prefilter: " + prefilter);
+			}
+			columns.add(new Column(name, type, shuffleType, BloscPrefilter.values()[prefilter]));
+		}
+		return new ColumnSchema(columns);
+	}
+
+}
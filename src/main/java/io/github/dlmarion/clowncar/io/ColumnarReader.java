@@ -0,0 +1,239 @@
+package io.github.dlmarion.clowncar.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads the row groups written by a {@link ColumnarWriter}, one at a time. Only the projected
+ * columns are decompressed, the others are skipped. The buffers returned for a row group share
+ * memory with the reader and are only valid until the next call to {@link #next()}.
+ */
+public class ColumnarReader implements Closeable {
+
+	private static class ColumnData {
+		private final ColumnSchema.Column column;
+		private final boolean projected;
+		private ByteBuffer values = ByteBuffer.allocateDirect(0);
+		/* String columns only */
+		private ByteBuffer offsets = ByteBuffer.allocateDirect(0);
+
+		private ColumnData(ColumnSchema.Column column, boolean projected) {
+			this.column = column;
+			this.projected = projected;
+		}
+	}
+
+	private final DataInputStream in;
+	private final BloscContext context;
+	private final ColumnSchema schema;
+	private final ColumnData[] columns;
+	private final byte[] header = new byte[Integer.BYTES];
+	private byte[] scratch = new byte[0];
+	private ByteBuffer src = ByteBuffer.allocateDirect(0);
+	private int rows = 0;
+
+	/**
+	 * Reads all columns.
+	 */
+	public ColumnarReader(InputStream in, int numThreads) throws IOException {
+		this(in, numThreads, (String[]) null);
+	}
+
+	/**
+	 * @param columns names of the columns to read, null for all
+	 */
+	public ColumnarReader(InputStream in, int numThreads, String... columns) throws IOException {
+		this.in = new DataInputStream(in);
+		int magic = this.in.readInt();
+		if (magic != ColumnarWriter.MAGIC) {
+			throw new IOException("Not a columnar Blosc stream, magic: " + Integer.toHexString(magic));
+		}
+		byte version = this.in.readByte();
+		if (version != ColumnarWriter.VERSION) {
+			throw new IOException("Unsupported version: " + version);
+		}
+		this.schema = ColumnSchema.read(this.in);
+		boolean[] projected = new boolean[schema.size()];
+		if (columns == null) {
+			Arrays.fill(projected, true);
+		} else {
+			for (String name : columns) {
+				projected[schema.indexOf(name)] = true;
+			}
+		}
+		this.columns = new ColumnData[schema.size()];
+		for (int i = 0; i < this.columns.length; i++) {
+			this.columns[i] = new ColumnData(schema.getColumn(i), projected[i]);
+		}
+		this.context = BloscContext.create(numThreads);
+	}
+
+	public ColumnSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * Moves to the next row group.
+	 *
+	 * @return false at the end of the stream
+	 */
+	public boolean next() throws IOException {
+		if (!BloscFrameReader.readFully(in, header, header.length, true)) {
+			rows = 0;
+			return false;
+		}
+		rows = ByteBuffer.wrap(header).getInt();
+		if (rows <= 0) {
+			throw new IOException("Invalid row count: " + rows);
+		}
+		int[] lengths = new int[columns.length];
+		for (int i = 0; i < lengths.length; i++) {
+			lengths[i] = in.readInt();
+			if (lengths[i] < 0) {
+				throw new IOException("Invalid length of column " + columns[i].column.getName() + ": " + lengths[i]);
+			}
+		}
+		for (int i = 0; i < columns.length; i++) {
+			ColumnData c = columns[i];
+			if (!c.projected) {
+				skipFully(lengths[i]);
+			} else if (c.column.isString()) {
+				c.offsets = readFrame(c.offsets, (rows + 1) * Integer.BYTES);
+				BloscPrefilter.DELTA.decode(c.offsets, Integer.BYTES);
+				c.values = readFrame(c.values, -1);
+				if (c.offsets.getInt(rows * Integer.BYTES) != c.values.limit()) {
+					throw new IOException("Offsets of column " + c.column.getName() + " do not match its data");
+				}
+			} else {
+				c.values = readFrame(c.values, rows * c.column.getTypeSize());
+				c.column.getPrefilter().decode(c.values, c.column.getTypeSize());
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads one frame into {@code buf}, or a larger buffer if it does not fit.
+	 *
+	 * @param expectedSize uncompressed size of the frame, or -1 if unknown
+	 */
+	private ByteBuffer readFrame(ByteBuffer buf, int expectedSize) throws IOException {
+		int compressedSize = in.readInt();
+		int unCompressedSize = in.readInt();
+		BloscFrameReader.checkHeader(compressedSize, unCompressedSize);
+		if (expectedSize >= 0 && unCompressedSize != expectedSize) {
+			throw new IOException("Expected a frame of " + expectedSize + " bytes, not " + unCompressedSize);
+		}
+		if (scratch.length < compressedSize) {
+			scratch = new byte[compressedSize];
+			src = ByteBuffer.allocateDirect(compressedSize);
+		}
+		in.readFully(scratch, 0, compressedSize);
+		src.clear();
+		src.put(scratch, 0, compressedSize);
+		src.flip();
+		if (buf.capacity() < unCompressedSize) {
+			buf = ByteBuffer.allocateDirect(unCompressedSize);
+		}
+		BloscFrameReader.decompress(context, src, buf, unCompressedSize);
+		return buf;
+	}
+
+	private void skipFully(long n) throws IOException {
+		while (n > 0) {
+			long skipped = in.skip(n);
+			if (skipped <= 0) {
+				if (in.read() < 0) {
+					throw new EOFException("Unexpected end of stream skipping a column");
+				}
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+	}
+
+	/**
+	 * @return number of records in the current row group
+	 */
+	public int getRowCount() {
+		return rows;
+	}
+
+	private ColumnData column(String name, Class<?> type) {
+		if (rows == 0) {
+			throw new IllegalStateException("No current row group");
+		}
+		ColumnData c = columns[schema.indexOf(name)];
+		if (!c.column.getType().equals(type)) {
+			throw new IllegalArgumentException("Column " + name + " holds " + c.column.getType().getSimpleName() + " values, not " + type.getSimpleName());
+		}
+		if (!c.projected) {
+			throw new IllegalArgumentException("Column " + name + " was not read");
+		}
+		return c;
+	}
+
+	public LongBuffer getLongs(String column) {
+		return column(column, Long.class).values.asLongBuffer();
+	}
+
+	public IntBuffer getInts(String column) {
+		return column(column, Integer.class).values.asIntBuffer();
+	}
+
+	public DoubleBuffer getDoubles(String column) {
+		return column(column, Double.class).values.asDoubleBuffer();
+	}
+
+	public FloatBuffer getFloats(String column) {
+		return column(column, Float.class).values.asFloatBuffer();
+	}
+
+	public String getString(String column, int row) {
+		ColumnData c = column(column, String.class);
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+		}
+		int start = c.offsets.getInt(row * Integer.BYTES);
+		int end = c.offsets.getInt((row + 1) * Integer.BYTES);
+		if (start < 0 || start > end || end > c.values.limit()) {
+			throw new IllegalStateException("Invalid offsets for row " + row + " of column " + column);
+		}
+		byte[] b = new byte[end - start];
+		ByteBuffer data = c.values.duplicate();
+		data.position(start);
+		data.get(b);
+		return new String(b, UTF_8);
+	}
+
+	public String[] getStrings(String column) {
+		String[] values = new String[rows];
+		for (int i = 0; i < rows; i++) {
+			values[i] = getString(column, i);
+		}
+		return values;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			in.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+package io.github.dlmarion.clowncar.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes records as columns. The values of each column are buffered separately and every
+ * {@code rowsPerGroup} records the columns are compressed, each with its own type size, shuffle
+ * and prefilter, and written as a row group:
+ *
+ * <pre>
+ * header:    [magic][version][schema]
+ * row group: [row count][column length] ... [column data] ...
+ * </pre>
+ *
+ * The data of a numeric column is one frame, as written by {@link BloscFrameWriter}. The data of a
+ * String column is a frame of {@code rows + 1} int offsets, delta encoded and shuffled, followed by
+ * a frame of the UTF-8 bytes of all the values. The column lengths let a {@link ColumnarReader}
+ * skip the columns it does not need.
+ * <p>
+ * Set the values of a record with the setters, then call {@link #endRow()}. Values that are not set
+ * are written as 0 or the empty string.
+ */
+public class ColumnarWriter implements Closeable, Flushable {
+
+	static final int MAGIC = 0x424C5343; //BLSC
+	static final byte VERSION = 1;
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	private static class ColumnBuffer {
+		private final ColumnSchema.Column column;
+		private final BloscContext context;
+		private final ByteBuffer values;
+		/* String columns only */
+		private final BloscContext offsetsContext;
+		private final ByteBuffer offsets;
+		private ByteBuffer data;
+		private boolean set = false;
+
+		private ColumnBuffer(ColumnSchema.Column column, BloscCompressorType compressor, int compressionLevel, int blockSize, int rowsPerGroup, int numThreads) {
+			this.column = column;
+			if (column.isString()) {
+				this.context = BloscContext.create(compressor, compressionLevel, column.getShuffleType(), blockSize, numThreads);
+				this.values = null;
+				this.offsetsContext = BloscContext.create(compressor, compressionLevel, BloscShuffleType.BYTE_SHUFFLE, blockSize, numThreads);
+				this.offsets = ByteBuffer.allocateDirect((rowsPerGroup + 1) * Integer.BYTES);
+				this.data = ByteBuffer.allocateDirect(rowsPerGroup * 16);
+			} else {
+				this.context = new FrameCompressor(compressor, compressionLevel, column.getShuffleType(), blockSize, numThreads,
+						column.getPrefilter() == BloscPrefilter.NATIVE_DELTA).newContext();
+				this.values = ByteBuffer.allocateDirect(rowsPerGroup * column.getTypeSize());
+				this.offsetsContext = null;
+				this.offsets = null;
+			}
+		}
+
+		private void close() {
+			context.close();
+			if (offsetsContext != null) {
+				offsetsContext.close();
+			}
+		}
+	}
+
+	private final DataOutputStream out;
+	private final ColumnSchema schema;
+	private final int rowsPerGroup;
+	private final ColumnBuffer[] columns;
+	private final ByteArrayOutputStream group = new ByteArrayOutputStream();
+	private final int[] lengths;
+	private ByteBuffer dst = ByteBuffer.allocateDirect(0);
+	private byte[] copy = new byte[0];
+	private int rows = 0;
+	private boolean headerWritten = false;
+	private boolean closed = false;
+
+	public ColumnarWriter(OutputStream out, ColumnSchema schema, BloscCompressorType compressor, int compressionLevel, int rowsPerGroup, int numThreads) {
+		this(out, schema, compressor, compressionLevel, 0, rowsPerGroup, numThreads);
+	}
+
+	/**
+	 * @param blockSize Blosc block size, 0 lets Blosc choose
+	 * @param rowsPerGroup number of records in each row group
+	 */
+	public ColumnarWriter(OutputStream out, ColumnSchema schema, BloscCompressorType compressor, int compressionLevel, int blockSize, int rowsPerGroup, int numThreads) {
+		if (rowsPerGroup <= 0) {
+			throw new IllegalArgumentException("Invalid number of rows per group: " + rowsPerGroup);
+		}
+		this.out = new DataOutputStream(out);
+		this.schema = schema;
+		this.rowsPerGroup = rowsPerGroup;
+		this.columns = new ColumnBuffer[schema.size()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = new ColumnBuffer(schema.getColumn(i), compressor, compressionLevel, blockSize, rowsPerGroup, numThreads);
+			if (columns[i].offsets != null) {
+				columns[i].offsets.putInt(0, 0);
+			}
+		}
+		this.lengths = new int[columns.length];
+	}
+
+	public ColumnSchema getSchema() {
+		return schema;
+	}
+
+	/**
+	 * @return index of the column named {@code name}, for the setters
+	 */
+	public int column(String name) {
+		return schema.indexOf(name);
+	}
+
+	private ColumnBuffer column(int index, Class<?> type) throws IOException {
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		ColumnBuffer c = columns[index];
+		if (!c.column.getType().equals(type)) {
+			throw new IllegalArgumentException("Column " + c.column.getName() + " holds " + c.column.getType().getSimpleName() + " values, not " + type.getSimpleName());
+		}
+		c.set = true;
+		return c;
+	}
+
+	public void setLong(int column, long value) throws IOException {
+		column(column, Long.class).values.putLong(rows * Long.BYTES, value);
+	}
+
+	public void setInt(int column, int value) throws IOException {
+		column(column, Integer.class).values.putInt(rows * Integer.BYTES, value);
+	}
+
+	public void setDouble(int column, double value) throws IOException {
+		column(column, Double.class).values.putDouble(rows * Double.BYTES, value);
+	}
+
+	public void setFloat(int column, float value) throws IOException {
+		column(column, Float.class).values.putFloat(rows * Float.BYTES, value);
+	}
+
+	public void setString(int column, String value) throws IOException {
+		boolean replace = columns[column].set;
+		ColumnBuffer c = column(column, String.class);
+		if (replace) {
+			c.data.position(c.offsets.getInt(rows * Integer.BYTES));
+		}
+		byte[] b = value.getBytes(UTF_8);
+		if (c.data.remaining() < b.length) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(c.data.capacity() * 2, c.data.position() + b.length));
+			c.data.flip();
+			larger.put(c.data);
+			c.data = larger;
+		}
+		c.data.put(b);
+		c.offsets.putInt((rows + 1) * Integer.BYTES, c.data.position());
+	}
+
+	/**
+	 * Ends the current record, writing out the row group when it is full.
+	 */
+	public void endRow() throws IOException {
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		for (ColumnBuffer c : columns) {
+			if (!c.set) {
+				if (c.column.isString()) {
+					c.offsets.putInt((rows + 1) * Integer.BYTES, c.data.position());
+				} else {
+					for (int i = 0; i < c.column.getTypeSize(); i++) {
+						c.values.put(rows * c.column.getTypeSize() + i, (byte) 0);
+					}
+				}
+			}
+			c.set = false;
+		}
+		rows++;
+		if (rows == rowsPerGroup) {
+			writeGroup();
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		if (headerWritten) {
+			return;
+		}
+		headerWritten = true;
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		schema.write(out);
+	}
+
+	private void writeFrame(BloscContext context, ByteBuffer src, int typeSize) {
+		int srcLength = src.remaining();
+		int maxLength = HEADER_SIZE + FrameCompressor.maxCompressedSize(srcLength);
+		if (dst.capacity() < maxLength) {
+			dst = ByteBuffer.allocateDirect(maxLength);
+			copy = new byte[maxLength];
+		}
+		dst.clear();
+		dst.position(HEADER_SIZE);
+		int written = context.compress(src, typeSize, dst);
+		dst.putInt(0, written);
+		dst.putInt(Integer.BYTES, srcLength);
+		dst.position(0);
+		dst.get(copy, 0, HEADER_SIZE + written);
+		group.write(copy, 0, HEADER_SIZE + written);
+	}
+
+	private void writeGroup() throws IOException {
+		writeHeader();
+		if (rows == 0) {
+			return;
+		}
+		group.reset();
+		for (int i = 0; i < columns.length; i++) {
+			ColumnBuffer c = columns[i];
+			int start = group.size();
+			if (c.column.isString()) {
+				ByteBuffer offsets = c.offsets.duplicate();
+				offsets.position(0);
+				offsets.limit((rows + 1) * Integer.BYTES);
+				BloscPrefilter.DELTA.encode(offsets, Integer.BYTES);
+				writeFrame(c.offsetsContext, offsets, Integer.BYTES);
+				ByteBuffer data = c.data.duplicate();
+				data.flip();
+				writeFrame(c.context, data, 1);
+				c.data.clear();
+				c.offsets.putInt(0, 0);
+			} else {
+				ByteBuffer values = c.values.duplicate();
+				values.position(0);
+				values.limit(rows * c.column.getTypeSize());
+				c.column.getPrefilter().encode(values, c.column.getTypeSize());
+				writeFrame(c.context, values, c.column.getTypeSize());
+			}
+			lengths[i] = group.size() - start;
+		}
+		out.writeInt(rows);
+		for (int length : lengths) {
+			out.writeInt(length);
+		}
+		group.writeTo(out);
+		rows = 0;
+	}
+
+	/**
+	 * Writes out the records so far as a row group, which may be smaller than {@code rowsPerGroup}.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		writeGroup();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			writeGroup();
+			out.flush();
+		} finally {
+			closed = true;
+			try {
+				out.close();
+			} finally {
+				for (ColumnBuffer c : columns) {
+					c.close();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.DoubleBuffer;
+
+/**
+ * Reads doubles written by {@link DoubleBloscOutputStream} or {@code BloscOutputStream<Double>} without boxing.
+ */
+public class DoubleBloscInputStream extends AbstractBloscInputStream {
+
+	public DoubleBloscInputStream(InputStream in, int numThreads) {
+		super(in, numThreads);
+	}
+
+	public DoubleBloscInputStream(FrameReader reader) {
+		super(reader);
+	}
+
+	/**
+	 * @param prefilter the prefilter the stream was written with
+	 */
+	public DoubleBloscInputStream(InputStream in, int numThreads, BloscPrefilter prefilter) {
+		super(in, numThreads, prefilter, Double.BYTES);
+	}
+
+	public DoubleBloscInputStream(FrameReader reader, BloscPrefilter prefilter) {
+		super(reader, prefilter, Double.BYTES);
+	}
+
+	public double readDouble() throws IOException {
+		if (!ensureAvailable(Double.BYTES)) {
+			throw new EOFException();
+		}
+		return this.buf.getDouble();
+	}
+
+	public int read(double[] dst) throws IOException {
+		return read(dst, 0, dst.length);
+	}
+
+	/**
+	 * @return number of doubles read, which is less than {@code len} only at the end of the stream,
+	 *         or -1 if the stream was already at the end
+	 */
+	public int read(double[] dst, int off, int len) throws IOException {
+		checkBounds(dst.length, off, len);
+		int total = 0;
+		while (total < len && ensureAvailable(Double.BYTES)) {
+			int n = Math.min(len - total, this.buf.remaining() / Double.BYTES);
+			this.buf.asDoubleBuffer().get(dst, off + total, n);
+			this.buf.position(this.buf.position() + n * Double.BYTES);
+			total += n;
+		}
+		return (total == 0 && len > 0) ? -1 : total;
+	}
+
+	/**
+	 * Returns the unread remainder of the current frame, or of the next one if the current frame is
+	 * exhausted, and marks it as read. The view shares memory with the stream and is only valid
+	 * until the next read from this stream.
+	 *
+	 * @return view of the frame, or null at the end of the stream
+	 */
+	public DoubleBuffer frame() throws IOException {
+		if (!ensureAvailable(Double.BYTES)) {
+			return null;
+		}
+		DoubleBuffer view = this.buf.asDoubleBuffer();
+		this.buf.position(this.buf.limit());
+		return view;
+	}
+
+}
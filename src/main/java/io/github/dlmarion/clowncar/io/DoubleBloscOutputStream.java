@@ -0,0 +1,59 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.DoubleBuffer;
+
+/**
+ * Writes doubles without boxing, in the same frame format as {@code BloscOutputStream<Double>}.
+ */
+public class DoubleBloscOutputStream extends AbstractBloscOutputStream {
+
+	private final DoubleBuffer view;
+
+	public DoubleBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads) {
+		super(out, blocksize, Double.BYTES, compressor, compressionLevel, shuffleType, numThreads);
+		this.view = this.buf.asDoubleBuffer();
+	}
+
+	public DoubleBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads, BloscPrefilter prefilter) {
+		super(out, blocksize, Double.BYTES, compressor, compressionLevel, shuffleType, numThreads, prefilter);
+		this.view = this.buf.asDoubleBuffer();
+	}
+
+	public DoubleBloscOutputStream(FrameWriter writer, int blocksize) {
+		super(writer, blocksize, Double.BYTES);
+		this.view = this.buf.asDoubleBuffer();
+	}
+
+	public DoubleBloscOutputStream(FrameWriter writer, int blocksize, BloscPrefilter prefilter) {
+		super(writer, blocksize, Double.BYTES, prefilter);
+		this.view = this.buf.asDoubleBuffer();
+	}
+
+	public void writeDouble(double value) throws IOException {
+		ensureRemaining(Double.BYTES);
+		this.buf.putDouble(value);
+	}
+
+	public void write(double[] values) throws IOException {
+		write(values, 0, values.length);
+	}
+
+	public void write(double[] values, int off, int len) throws IOException {
+		checkBounds(values.length, off, len);
+		while (len > 0) {
+			int n = Math.min(len, elementsRemaining(Double.BYTES));
+			this.view.position(this.buf.position() / Double.BYTES);
+			this.view.put(values, off, n);
+			this.buf.position(this.buf.position() + n * Double.BYTES);
+			off += n;
+			len -= n;
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.FloatBuffer;
+
+/**
+ * Reads floats written by {@link FloatBloscOutputStream} or {@code BloscOutputStream<Float>} without boxing.
+ */
+public class FloatBloscInputStream extends AbstractBloscInputStream {
+
+	public FloatBloscInputStream(InputStream in, int numThreads) {
+		super(in, numThreads);
+	}
+
+	public FloatBloscInputStream(FrameReader reader) {
+		super(reader);
+	}
+
+	/**
+	 * @param prefilter the prefilter the stream was written with
+	 */
+	public FloatBloscInputStream(InputStream in, int numThreads, BloscPrefilter prefilter) {
+		super(in, numThreads, prefilter, Float.BYTES);
+	}
+
+	public FloatBloscInputStream(FrameReader reader, BloscPrefilter prefilter) {
+		super(reader, prefilter, Float.BYTES);
+	}
+
+	public float readFloat() throws IOException {
+		if (!ensureAvailable(Float.BYTES)) {
+			throw new EOFException();
+		}
+		return this.buf.getFloat();
+	}
+
+	public int read(float[] dst) throws IOException {
+		return read(dst, 0, dst.length);
+	}
+
+	/**
+	 * @return number of floats read, which is less than {@code len} only at the end of the stream,
+	 *         or -1 if the stream was already at the end
+	 */
+	public int read(float[] dst, int off, int len) throws IOException {
+		checkBounds(dst.length, off, len);
+		int total = 0;
+		while (total < len && ensureAvailable(Float.BYTES)) {
+			int n = Math.min(len - total, this.buf.remaining() / Float.BYTES);
+			this.buf.asFloatBuffer().get(dst, off + total, n);
+			this.buf.position(this.buf.position() + n * Float.BYTES);
+			total += n;
+		}
+		return (total == 0 && len > 0) ? -1 : total;
+	}
+
+	/**
+	 * Returns the unread remainder of the current frame, or of the next one if the current frame is
+	 * exhausted, and marks it as read. The view shares memory with the stream and is only valid
+	 * until the next read from this stream.
+	 *
+	 * @return view of the frame, or null at the end of the stream
+	 */
+	public FloatBuffer frame() throws IOException {
+		if (!ensureAvailable(Float.BYTES)) {
+			return null;
+		}
+		FloatBuffer view = this.buf.asFloatBuffer();
+		this.buf.position(this.buf.limit());
+		return view;
+	}
+
+}
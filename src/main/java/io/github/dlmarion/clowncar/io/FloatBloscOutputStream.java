@@ -0,0 +1,59 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.FloatBuffer;
+
+/**
+ * Writes floats without boxing, in the same frame format as {@code BloscOutputStream<Float>}.
+ */
+public class FloatBloscOutputStream extends AbstractBloscOutputStream {
+
+	private final FloatBuffer view;
+
+	public FloatBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads) {
+		super(out, blocksize, Float.BYTES, compressor, compressionLevel, shuffleType, numThreads);
+		this.view = this.buf.asFloatBuffer();
+	}
+
+	public FloatBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads, BloscPrefilter prefilter) {
+		super(out, blocksize, Float.BYTES, compressor, compressionLevel, shuffleType, numThreads, prefilter);
+		this.view = this.buf.asFloatBuffer();
+	}
+
+	public FloatBloscOutputStream(FrameWriter writer, int blocksize) {
+		super(writer, blocksize, Float.BYTES);
+		this.view = this.buf.asFloatBuffer();
+	}
+
+	public FloatBloscOutputStream(FrameWriter writer, int blocksize, BloscPrefilter prefilter) {
+		super(writer, blocksize, Float.BYTES, prefilter);
+		this.view = this.buf.asFloatBuffer();
+	}
+
+	public void writeFloat(float value) throws IOException {
+		ensureRemaining(Float.BYTES);
+		this.buf.putFloat(value);
+	}
+
+	public void write(float[] values) throws IOException {
+		write(values, 0, values.length);
+	}
+
+	public void write(float[] values, int off, int len) throws IOException {
+		checkBounds(values.length, off, len);
+		while (len > 0) {
+			int n = Math.min(len, elementsRemaining(Float.BYTES));
+			this.view.position(this.buf.position() / Float.BYTES);
+			this.view.put(values, off, n);
+			this.buf.position(this.buf.position() + n * Float.BYTES);
+			off += n;
+			len -= n;
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscBackends;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+import io.github.dlmarion.clowncar.BloscThreadGovernor;
+
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Blosc settings used to compress frames.
+ */
+public class FrameCompressor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FrameCompressor.class);
+
+	private final BloscCompressorType compressor;
+	private final int compressionLevel;
+	private final BloscShuffleType shuffleType;
+	private final int blockSize;
+	private final int numThreads;
+	private final boolean nativeDelta;
+
+	public FrameCompressor(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads) {
+		this(compressor, compressionLevel, shuffleType, blockSize, numThreads, false);
+	}
+
+	/**
+	 * @param nativeDelta apply the c-blosc2 delta filter, see {@link BloscPrefilter#NATIVE_DELTA}
+	 */
+	public FrameCompressor(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads, boolean nativeDelta) {
+		this.compressor = compressor;
+		this.compressionLevel = compressionLevel;
+		this.shuffleType = shuffleType;
+		this.blockSize = blockSize;
+		this.numThreads = numThreads;
+		this.nativeDelta = nativeDelta;
+	}
+
+	public BloscCompressorType getCompressor() {
+		return compressor;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public BloscShuffleType getShuffleType() {
+		return shuffleType;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public boolean isNativeDelta() {
+		return nativeDelta;
+	}
+
+	/**
+	 * @return a copy of these settings that uses {@code numThreads} Blosc threads per frame
+	 */
+	public FrameCompressor withNumThreads(int numThreads) {
+		return new FrameCompressor(compressor, compressionLevel, shuffleType, blockSize, numThreads, nativeDelta);
+	}
+
+	/**
+	 * @return the size of the buffer needed to hold a compressed frame of {@code frameSize} bytes
+	 */
+	public static int maxCompressedSize(int frameSize) {
+		return frameSize + Blosc.MAX_OVERHEAD;
+	}
+
+	/**
+	 * @return a new context with these settings, owned and closed by the caller
+	 */
+	public BloscContext newContext() {
+		return BloscContext.create(this.compressor, this.compressionLevel, this.shuffleType, this.blockSize, this.numThreads, this.nativeDelta);
+	}
+
+	/**
+	 * Compresses the bytes between the position and the limit of {@code src} into {@code dst},
+	 * starting at the position of {@code dst}. The positions of both buffers are left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}
+	 */
+	public int compress(ByteBuffer src, int typeSize, ByteBuffer dst) {
+		if (this.nativeDelta) {
+			throw new IllegalStateException("The native delta filter needs a context, see newContext()");
+		}
+		int srcLength = src.remaining();
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(this.numThreads, srcLength);
+		int written;
+		try {
+			written = BloscBackends.getDefault().compress(this.compressionLevel, this.shuffleType.getShuffleType(), typeSize,
+					src, dst, this.compressor, this.blockSize, threads);
+		} finally {
+			governor.release(threads);
+		}
+		LOG.trace("buf size: {}, wrote: {}, level: {}, compression: {}", srcLength, written, this.compressionLevel, (written*1.0D/srcLength));
+		return written;
+	}
+
+	/**
+	 * Same as {@link #compress(ByteBuffer, int, ByteBuffer)} through a context from {@link #newContext()}.
+	 */
+	public int compress(BloscContext context, ByteBuffer src, int typeSize, ByteBuffer dst) {
+		int srcLength = src.remaining();
+		int written = context.compress(src, typeSize, dst);
+		LOG.trace("buf size: {}, wrote: {}, level: {}, compression: {}", srcLength, written, this.compressionLevel, (written*1.0D/srcLength));
+		return written;
+	}
+
+}
@@ -0,0 +1,21 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and decompresses the frames written by a {@link FrameWriter} for an
+ * {@link AbstractBloscInputStream}.
+ */
+public interface FrameReader extends Closeable {
+
+	/**
+	 * Returns the next decompressed frame between position 0 and the limit of the returned buffer.
+	 * The buffer belongs to the reader and is only valid until the next call.
+	 *
+	 * @return the frame, or null at the end of the stream
+	 */
+	ByteBuffer next() throws IOException;
+
+}
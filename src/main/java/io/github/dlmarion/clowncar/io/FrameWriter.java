@@ -0,0 +1,22 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses frames filled by an {@link AbstractBloscOutputStream} and writes them out as
+ * [compressed size][uncompressed size][compressed data].
+ */
+public interface FrameWriter extends Closeable, Flushable {
+
+	/**
+	 * Writes the bytes between the position and the limit of {@code frame} as one frame. The caller
+	 * may reuse {@code frame} as soon as this method returns.
+	 *
+	 * @param typeSize size of the elements in the frame, used for shuffling
+	 */
+	void write(ByteBuffer frame, int typeSize) throws IOException;
+
+}
@@ -0,0 +1,184 @@
+package io.github.dlmarion.clowncar.io;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes frames into an indexed container that can be read at random with a
+ * {@link SeekableBloscReader}. The container is laid out as
+ *
+ * <pre>
+ * header:  [magic][version][element type][compressor code][shuffle][type size][level][block size]
+ * frames:  [compressed size][uncompressed size][compressed data] ...
+ * footer:  [frame offset][element count at the end of the frame] ...
+ * trailer: [frame count][footer offset][magic]
+ * </pre>
+ *
+ * The frames are the same as the ones written by {@link BloscFrameWriter}. The footer is written
+ * by {@link #close()}, a container that is not closed cannot be read. The frames are read by item
+ * without any prefilter, so the streams reject the ones done in Java.
+ */
+public class IndexedBloscFrameWriter implements FrameWriter {
+
+	static final int MAGIC = 0x424C5349; //BLSI
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 20;
+	static final int INDEX_ENTRY_SIZE = 2 * Long.BYTES;
+	static final int TRAILER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	private final CountingOutputStream counter;
+	private final DataOutputStream out;
+	private final BloscFrameWriter frames;
+	private final FrameCompressor compressor;
+	private final byte elementType;
+	private final int typeSize;
+	private long[] offsets = new long[64];
+	private long[] ends = new long[64];
+	private int frameCount = 0;
+	private long elements = 0;
+	private boolean headerWritten = false;
+	private boolean closed = false;
+
+	/**
+	 * @param type one of Long, Integer, Double or Float
+	 */
+	public IndexedBloscFrameWriter(OutputStream out, FrameCompressor compressor, Class<?> type) {
+		this.counter = new CountingOutputStream(out);
+		this.out = new DataOutputStream(counter);
+		this.frames = new BloscFrameWriter(counter, compressor);
+		this.compressor = compressor;
+		this.elementType = elementType(type);
+		this.typeSize = typeSize(elementType);
+	}
+
+	static byte elementType(Class<?> type) {
+		if (type.equals(Long.class)) {
+			return 'L';
+		} else if (type.equals(Integer.class)) {
+			return 'I';
+		} else if (type.equals(Double.class)) {
+			return 'D';
+		} else if (type.equals(Float.class)) {
+			return 'F';
+		} else {
+			throw new IllegalArgumentException("Only Long, Integer, Double and Float elements can be indexed, not " + type.getName());
+		}
+	}
+
+	static Class<?> elementClass(byte elementType) {
+		switch (elementType) {
+			case 'L': return Long.class;
+			case 'I': return Integer.class;
+			case 'D': return Double.class;
+			case 'F': return Float.class;
+			default: throw new IllegalArgumentException("Unknown element type: " + elementType);
+		}
+	}
+
+	static int typeSize(byte elementType) {
+		switch (elementType) {
+			case 'L': return Long.BYTES;
+			case 'I': return Integer.BYTES;
+			case 'D': return Double.BYTES;
+			case 'F': return Float.BYTES;
+			default: throw new IllegalArgumentException("Unknown element type: " + elementType);
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		if (headerWritten) {
+			return;
+		}
+		headerWritten = true;
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(elementType);
+		out.writeByte(compressor.getCompressor().getCompressorCode());
+		out.writeByte(compressor.getShuffleType().getShuffleType());
+		out.writeInt(typeSize);
+		out.writeInt(compressor.getCompressionLevel());
+		out.writeInt(compressor.getBlockSize());
+	}
+
+	@Override
+	public void write(ByteBuffer frame, int typeSize) throws IOException {
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		if (typeSize != this.typeSize) {
+			throw new IllegalArgumentException("Type size " + typeSize + " does not match the container type size " + this.typeSize);
+		}
+		int length = frame.remaining();
+		if (length % typeSize != 0) {
+			throw new IllegalArgumentException("Frame of " + length + " bytes does not hold whole elements of " + typeSize + " bytes");
+		}
+		if (length == 0) {
+			return;
+		}
+		writeHeader();
+		if (frameCount == offsets.length) {
+			offsets = Arrays.copyOf(offsets, frameCount * 2);
+			ends = Arrays.copyOf(ends, frameCount * 2);
+		}
+		offsets[frameCount] = counter.count;
+		frames.write(frame, typeSize);
+		elements += length / typeSize;
+		ends[frameCount] = elements;
+		frameCount++;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		frames.flush();
+	}
+
+	/**
+	 * Writes the footer and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			writeHeader();
+			long footerOffset = counter.count;
+			for (int i = 0; i < frameCount; i++) {
+				out.writeLong(offsets[i]);
+				out.writeLong(ends[i]);
+			}
+			out.writeInt(frameCount);
+			out.writeLong(footerOffset);
+			out.writeInt(MAGIC);
+			out.flush();
+		} finally {
+			frames.close();
+		}
+	}
+
+}
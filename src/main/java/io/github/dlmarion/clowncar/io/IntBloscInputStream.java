@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.IntBuffer;
+
+/**
+ * Reads ints written by {@link IntBloscOutputStream} or {@code BloscOutputStream<Integer>} without boxing.
+ */
+public class IntBloscInputStream extends AbstractBloscInputStream {
+
+	public IntBloscInputStream(InputStream in, int numThreads) {
+		super(in, numThreads);
+	}
+
+	public IntBloscInputStream(FrameReader reader) {
+		super(reader);
+	}
+
+	/**
+	 * @param prefilter the prefilter the stream was written with
+	 */
+	public IntBloscInputStream(InputStream in, int numThreads, BloscPrefilter prefilter) {
+		super(in, numThreads, prefilter, Integer.BYTES);
+	}
+
+	public IntBloscInputStream(FrameReader reader, BloscPrefilter prefilter) {
+		super(reader, prefilter, Integer.BYTES);
+	}
+
+	public int readInt() throws IOException {
+		if (!ensureAvailable(Integer.BYTES)) {
+			throw new EOFException();
+		}
+		return this.buf.getInt();
+	}
+
+	public int read(int[] dst) throws IOException {
+		return read(dst, 0, dst.length);
+	}
+
+	/**
+	 * @return number of ints read, which is less than {@code len} only at the end of the stream,
+	 *         or -1 if the stream was already at the end
+	 */
+	public int read(int[] dst, int off, int len) throws IOException {
+		checkBounds(dst.length, off, len);
+		int total = 0;
+		while (total < len && ensureAvailable(Integer.BYTES)) {
+			int n = Math.min(len - total, this.buf.remaining() / Integer.BYTES);
+			this.buf.asIntBuffer().get(dst, off + total, n);
+			this.buf.position(this.buf.position() + n * Integer.BYTES);
+			total += n;
+		}
+		return (total == 0 && len > 0) ? -1 : total;
+	}
+
+	/**
+	 * Returns the unread remainder of the current frame, or of the next one if the current frame is
+	 * exhausted, and marks it as read. The view shares memory with the stream and is only valid
+	 * until the next read from this stream.
+	 *
+	 * @return view of the frame, or null at the end of the stream
+	 */
+	public IntBuffer frame() throws IOException {
+		if (!ensureAvailable(Integer.BYTES)) {
+			return null;
+		}
+		IntBuffer view = this.buf.asIntBuffer();
+		this.buf.position(this.buf.limit());
+		return view;
+	}
+
+}
@@ -0,0 +1,59 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+
+/**
+ * Writes ints without boxing, in the same frame format as {@code BloscOutputStream<Integer>}.
+ */
+public class IntBloscOutputStream extends AbstractBloscOutputStream {
+
+	private final IntBuffer view;
+
+	public IntBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads) {
+		super(out, blocksize, Integer.BYTES, compressor, compressionLevel, shuffleType, numThreads);
+		this.view = this.buf.asIntBuffer();
+	}
+
+	public IntBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads, BloscPrefilter prefilter) {
+		super(out, blocksize, Integer.BYTES, compressor, compressionLevel, shuffleType, numThreads, prefilter);
+		this.view = this.buf.asIntBuffer();
+	}
+
+	public IntBloscOutputStream(FrameWriter writer, int blocksize) {
+		super(writer, blocksize, Integer.BYTES);
+		this.view = this.buf.asIntBuffer();
+	}
+
+	public IntBloscOutputStream(FrameWriter writer, int blocksize, BloscPrefilter prefilter) {
+		super(writer, blocksize, Integer.BYTES, prefilter);
+		this.view = this.buf.asIntBuffer();
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensureRemaining(Integer.BYTES);
+		this.buf.putInt(value);
+	}
+
+	public void write(int[] values) throws IOException {
+		write(values, 0, values.length);
+	}
+
+	public void write(int[] values, int off, int len) throws IOException {
+		checkBounds(values.length, off, len);
+		while (len > 0) {
+			int n = Math.min(len, elementsRemaining(Integer.BYTES));
+			this.view.position(this.buf.position() / Integer.BYTES);
+			this.view.put(values, off, n);
+			this.buf.position(this.buf.position() + n * Integer.BYTES);
+			off += n;
+			len -= n;
+		}
+	}
+
+}
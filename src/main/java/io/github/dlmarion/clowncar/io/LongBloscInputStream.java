@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.LongBuffer;
+
+/**
+ * Reads longs written by {@link LongBloscOutputStream} or {@code BloscOutputStream<Long>} without boxing.
+ */
+public class LongBloscInputStream extends AbstractBloscInputStream {
+
+	public LongBloscInputStream(InputStream in, int numThreads) {
+		super(in, numThreads);
+	}
+
+	public LongBloscInputStream(FrameReader reader) {
+		super(reader);
+	}
+
+	/**
+	 * @param prefilter the prefilter the stream was written with
+	 */
+	public LongBloscInputStream(InputStream in, int numThreads, BloscPrefilter prefilter) {
+		super(in, numThreads, prefilter, Long.BYTES);
+	}
+
+	public LongBloscInputStream(FrameReader reader, BloscPrefilter prefilter) {
+		super(reader, prefilter, Long.BYTES);
+	}
+
+	public long readLong() throws IOException {
+		if (!ensureAvailable(Long.BYTES)) {
+			throw new EOFException();
+		}
+		return this.buf.getLong();
+	}
+
+	public int read(long[] dst) throws IOException {
+		return read(dst, 0, dst.length);
+	}
+
+	/**
+	 * @return number of longs read, which is less than {@code len} only at the end of the stream,
+	 *         or -1 if the stream was already at the end
+	 */
+	public int read(long[] dst, int off, int len) throws IOException {
+		checkBounds(dst.length, off, len);
+		int total = 0;
+		while (total < len && ensureAvailable(Long.BYTES)) {
+			int n = Math.min(len - total, this.buf.remaining() / Long.BYTES);
+			this.buf.asLongBuffer().get(dst, off + total, n);
+			this.buf.position(this.buf.position() + n * Long.BYTES);
+			total += n;
+		}
+		return (total == 0 && len > 0) ? -1 : total;
+	}
+
+	/**
+	 * Returns the unread remainder of the current frame, or of the next one if the current frame is
+	 * exhausted, and marks it as read. The view shares memory with the stream and is only valid
+	 * until the next read from this stream.
+	 *
+	 * @return view of the frame, or null at the end of the stream
+	 */
+	public LongBuffer frame() throws IOException {
+		if (!ensureAvailable(Long.BYTES)) {
+			return null;
+		}
+		LongBuffer view = this.buf.asLongBuffer();
+		this.buf.position(this.buf.limit());
+		return view;
+	}
+
+}
@@ -0,0 +1,59 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.LongBuffer;
+
+/**
+ * Writes longs without boxing, in the same frame format as {@code BloscOutputStream<Long>}.
+ */
+public class LongBloscOutputStream extends AbstractBloscOutputStream {
+
+	private final LongBuffer view;
+
+	public LongBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads) {
+		super(out, blocksize, Long.BYTES, compressor, compressionLevel, shuffleType, numThreads);
+		this.view = this.buf.asLongBuffer();
+	}
+
+	public LongBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int numThreads, BloscPrefilter prefilter) {
+		super(out, blocksize, Long.BYTES, compressor, compressionLevel, shuffleType, numThreads, prefilter);
+		this.view = this.buf.asLongBuffer();
+	}
+
+	public LongBloscOutputStream(FrameWriter writer, int blocksize) {
+		super(writer, blocksize, Long.BYTES);
+		this.view = this.buf.asLongBuffer();
+	}
+
+	public LongBloscOutputStream(FrameWriter writer, int blocksize, BloscPrefilter prefilter) {
+		super(writer, blocksize, Long.BYTES, prefilter);
+		this.view = this.buf.asLongBuffer();
+	}
+
+	public void writeLong(long value) throws IOException {
+		ensureRemaining(Long.BYTES);
+		this.buf.putLong(value);
+	}
+
+	public void write(long[] values) throws IOException {
+		write(values, 0, values.length);
+	}
+
+	public void write(long[] values, int off, int len) throws IOException {
+		checkBounds(values.length, off, len);
+		while (len > 0) {
+			int n = Math.min(len, elementsRemaining(Long.BYTES));
+			this.view.position(this.buf.position() / Long.BYTES);
+			this.view.put(values, off, n);
+			this.buf.position(this.buf.position() + n * Long.BYTES);
+			off += n;
+			len -= n;
+		}
+	}
+
+}
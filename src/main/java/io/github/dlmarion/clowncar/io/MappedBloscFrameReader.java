@@ -0,0 +1,107 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads frames from a memory mapped file. Each frame is decompressed straight from the mapped
+ * region into a reusable direct buffer, the compressed data is never copied. A frame is selected by
+ * moving the position and limit of one view of the window, the jnr and jna backends still take a
+ * slice of it because their bindings ignore the position of direct buffers. Files larger than a
+ * single mapping are mapped in windows that start at a frame boundary, a new window is mapped when
+ * the next frame does not fit in the current one.
+ */
+public class MappedBloscFrameReader implements FrameReader {
+
+	/** Largest window mapped at once. */
+	public static final int DEFAULT_MAPPING_SIZE = 1 << 30;
+
+	private final FileChannel channel;
+	private final BloscContext context;
+	private final int mappingSize;
+	private final long size;
+	private MappedByteBuffer window;
+	/* view of the window whose position and limit select the current frame */
+	private ByteBuffer frame;
+	private long windowStart = 0;
+	private long offset = 0;
+	private ByteBuffer buf = ByteBuffer.allocateDirect(0);
+
+	public MappedBloscFrameReader(Path path, int numThreads) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ), numThreads, DEFAULT_MAPPING_SIZE);
+	}
+
+	/**
+	 * @param mappingSize largest window mapped at once, frames larger than this are still mapped whole
+	 */
+	public MappedBloscFrameReader(FileChannel channel, int numThreads, int mappingSize) throws IOException {
+		if (mappingSize < BloscFrameReader.HEADER_SIZE) {
+			throw new IllegalArgumentException("mappingSize is too small: " + mappingSize);
+		}
+		this.channel = channel;
+		this.context = BloscContext.create(numThreads);
+		this.mappingSize = mappingSize;
+		this.size = channel.size();
+	}
+
+	/**
+	 * Makes sure the window covers {@code length} bytes from the current offset.
+	 */
+	private void map(long length) throws IOException {
+		if (offset + length > size) {
+			throw new EOFException("Unexpected end of file, frame at " + offset + " needs " + length + " bytes, file has " + size);
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new IOException("Frame at " + offset + " of " + length + " bytes is larger than a mapping");
+		}
+		if (window != null && offset >= windowStart && offset + length <= windowStart + window.capacity()) {
+			return;
+		}
+		long mapped = Math.min(size - offset, Math.max(mappingSize, length));
+		window = channel.map(MapMode.READ_ONLY, offset, mapped);
+		frame = window.duplicate();
+		windowStart = offset;
+	}
+
+	@Override
+	public ByteBuffer next() throws IOException {
+		if (offset == size) {
+			return null;
+		}
+		map(BloscFrameReader.HEADER_SIZE);
+		int start = (int) (offset - windowStart);
+		int compressedSize = window.getInt(start);
+		int unCompressedSize = window.getInt(start + Integer.BYTES);
+		BloscFrameReader.checkHeader(compressedSize, unCompressedSize);
+		map((long) BloscFrameReader.HEADER_SIZE + compressedSize);
+		start = (int) (offset - windowStart) + BloscFrameReader.HEADER_SIZE;
+		frame.limit(start + compressedSize);
+		frame.position(start);
+		if (buf.capacity() < unCompressedSize) {
+			buf = ByteBuffer.allocateDirect(unCompressedSize);
+		}
+		BloscFrameReader.decompress(context, frame, buf, unCompressedSize);
+		offset += BloscFrameReader.HEADER_SIZE + compressedSize;
+		return buf;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		frame = null;
+		try {
+			channel.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
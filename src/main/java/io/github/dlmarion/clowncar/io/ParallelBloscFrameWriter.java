@@ -0,0 +1,190 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Compresses up to {@code parallelism} consecutive frames at the same time on an executor, one
+ * single threaded Blosc call per frame, and writes them to the underlying stream in order. Blosc's
+ * own threads only split a single frame, which does not pay off for small frames; this spreads
+ * whole frames over the available cores instead. The first failure is rethrown from every later
+ * {@link #write}, {@link #flush} or {@link #close} call and no frames are written after it.
+ */
+public class ParallelBloscFrameWriter implements FrameWriter {
+
+	private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	private static class Slot {
+		private final ByteBuffer raw;
+		private final ByteBuffer compressed;
+		/* used by one compression task at a time */
+		private final BloscContext context;
+		private Future<Integer> length;
+
+		private Slot(int frameSize, FrameCompressor compressor) {
+			this.raw = ByteBuffer.allocateDirect(frameSize);
+			this.compressed = ByteBuffer.allocateDirect(HEADER_SIZE + FrameCompressor.maxCompressedSize(frameSize));
+			this.context = compressor.newContext();
+		}
+	}
+
+	private final OutputStream out;
+	private final FrameCompressor compressor;
+	private final int frameSize;
+	private final ExecutorService executor;
+	private final Slot[] slots;
+	private final byte[] copy;
+	private int head = 0;
+	private int inFlight = 0;
+	private IOException error;
+	private boolean closed = false;
+
+	/**
+	 * Compresses on the common ForkJoinPool.
+	 */
+	public ParallelBloscFrameWriter(OutputStream out, FrameCompressor compressor, int frameSize, int parallelism) {
+		this(out, compressor, frameSize, ForkJoinPool.commonPool(), parallelism);
+	}
+
+	/**
+	 * @param frameSize largest frame that will be written, normally the block size of the stream
+	 * @param executor runs the compression tasks, it is not shut down by {@link #close()}
+	 * @param parallelism number of frames that can be compressed at the same time
+	 */
+	public ParallelBloscFrameWriter(OutputStream out, FrameCompressor compressor, int frameSize, ExecutorService executor, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		this.out = out;
+		this.compressor = compressor.withNumThreads(1);
+		this.frameSize = frameSize;
+		this.executor = executor;
+		this.slots = new Slot[parallelism];
+		for (int i = 0; i < parallelism; i++) {
+			this.slots[i] = new Slot(frameSize, this.compressor);
+		}
+		this.copy = new byte[HEADER_SIZE + FrameCompressor.maxCompressedSize(frameSize)];
+	}
+
+	@Override
+	public void write(ByteBuffer frame, final int typeSize) throws IOException {
+		checkError();
+		if (closed) {
+			throw new IOException("Writer is closed");
+		}
+		int length = frame.remaining();
+		if (length > frameSize) {
+			throw new IllegalArgumentException("Frame of " + length + " bytes is larger than " + frameSize);
+		}
+		if (inFlight == slots.length) {
+			writeOldest();
+		}
+		final Slot slot = slots[(head + inFlight) % slots.length];
+		int position = frame.position();
+		slot.raw.clear();
+		slot.raw.put(frame);
+		slot.raw.flip();
+		frame.position(position);
+		slot.length = executor.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				int srcLength = slot.raw.remaining();
+				slot.compressed.clear();
+				slot.compressed.position(HEADER_SIZE);
+				int w = compressor.compress(slot.context, slot.raw, typeSize, slot.compressed);
+				slot.compressed.putInt(0, w);
+				slot.compressed.putInt(Integer.BYTES, srcLength);
+				return HEADER_SIZE + w;
+			}
+		});
+		inFlight++;
+	}
+
+	private void writeOldest() throws IOException {
+		Slot slot = slots[head];
+		head = (head + 1) % slots.length;
+		inFlight--;
+		int length;
+		try {
+			length = slot.length.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for frame to be compressed");
+		} catch (ExecutionException e) {
+			throw fail(new IOException("Error compressing frame", e.getCause()));
+		} finally {
+			slot.length = null;
+		}
+		slot.compressed.clear();
+		slot.compressed.get(copy, 0, length);
+		try {
+			out.write(copy, 0, length);
+		} catch (IOException e) {
+			throw fail(e);
+		}
+	}
+
+	private IOException fail(IOException e) {
+		if (error == null) {
+			error = e;
+		}
+		return error;
+	}
+
+	private void checkError() throws IOException {
+		if (error != null) {
+			throw new IOException("Error in parallel frame writer", error);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		checkError();
+		while (inFlight > 0) {
+			writeOldest();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			checkError();
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			//pending tasks must finish before their contexts are closed
+			for (Slot slot : slots) {
+				if (slot.length != null) {
+					try {
+						slot.length.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} catch (ExecutionException e) {
+						//the frame is dropped, the first failure is rethrown
+					}
+				}
+			}
+			try {
+				out.close();
+			} finally {
+				for (Slot slot : slots) {
+					slot.context.close();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reads up to {@code readAhead} frames ahead of the consumer. Frames are read from the underlying
+ * stream, in order, by a dedicated thread and decompressed on an executor, one single threaded
+ * Blosc call per frame, while the consumer drains the current frame. Frames are returned strictly
+ * in order and only {@code readAhead + 1} frame buffers are ever allocated.
+ */
+public class ReadAheadBloscFrameReader implements FrameReader {
+
+	private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+	private static class Slot {
+		/* used by one decompression task at a time */
+		private final BloscContext context = BloscContext.create(1);
+		private byte[] compressed = new byte[0];
+		private ByteBuffer src = ByteBuffer.allocateDirect(0);
+		private ByteBuffer raw = ByteBuffer.allocateDirect(0);
+		private int compressedSize;
+		private int unCompressedSize;
+		private CompletableFuture<Boolean> ready;
+	}
+
+	private final InputStream in;
+	private final ExecutorService io;
+	private final ExecutorService executor;
+	private final Slot[] slots;
+	private final byte[] header = new byte[BloscFrameReader.HEADER_SIZE];
+	private int head = 0;
+	private boolean started = false;
+	private Slot current;
+	private IOException error;
+	//only used by the I/O thread
+	private boolean done = false;
+	private volatile boolean closed = false;
+
+	/**
+	 * Decompresses on the common ForkJoinPool.
+	 */
+	public ReadAheadBloscFrameReader(InputStream in, int readAhead) {
+		this(in, ForkJoinPool.commonPool(), readAhead);
+	}
+
+	/**
+	 * @param executor runs the decompression tasks, it is not shut down by {@link #close()}
+	 * @param readAhead number of frames that can be read and decompressed ahead of the consumer
+	 */
+	public ReadAheadBloscFrameReader(InputStream in, ExecutorService executor, int readAhead) {
+		if (readAhead < 1) {
+			throw new IllegalArgumentException("readAhead must be positive: " + readAhead);
+		}
+		this.in = in;
+		this.executor = executor;
+		this.slots = new Slot[readAhead + 1];
+		for (int i = 0; i < slots.length; i++) {
+			this.slots[i] = new Slot();
+		}
+		final String name = "blosc-read-ahead-" + INSTANCES.incrementAndGet();
+		this.io = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Queues the read of the next frame into {@code slot}. The I/O executor has a single thread, so
+	 * frames are read in the order their slots are scheduled.
+	 */
+	private void schedule(final Slot slot) {
+		slot.ready = CompletableFuture.supplyAsync(new Supplier<Boolean>() {
+			@Override
+			public Boolean get() {
+				try {
+					return read(slot);
+				} catch (IOException e) {
+					done = true;
+					throw new CompletionException(e);
+				}
+			}
+		}, io).thenApplyAsync(new Function<Boolean, Boolean>() {
+			@Override
+			public Boolean apply(Boolean found) {
+				if (found) {
+					try {
+						slot.src.clear();
+						slot.src.put(slot.compressed, 0, slot.compressedSize);
+						slot.src.flip();
+						BloscFrameReader.decompress(slot.context, slot.src, slot.raw, slot.unCompressedSize);
+					} catch (IOException e) {
+						throw new CompletionException(e);
+					}
+				}
+				return found;
+			}
+		}, executor);
+	}
+
+	private boolean read(Slot slot) throws IOException {
+		if (done || closed || !BloscFrameReader.readFully(in, header, header.length, true)) {
+			done = true;
+			return false;
+		}
+		ByteBuffer sizes = ByteBuffer.wrap(header);
+		int compressedSize = sizes.getInt();
+		int unCompressedSize = sizes.getInt();
+		BloscFrameReader.checkHeader(compressedSize, unCompressedSize);
+		if (slot.compressed.length < compressedSize) {
+			slot.compressed = new byte[compressedSize];
+			slot.src = ByteBuffer.allocateDirect(compressedSize);
+		}
+		if (slot.raw.capacity() < unCompressedSize) {
+			slot.raw = ByteBuffer.allocateDirect(unCompressedSize);
+		}
+		BloscFrameReader.readFully(in, slot.compressed, compressedSize, false);
+		slot.compressedSize = compressedSize;
+		slot.unCompressedSize = unCompressedSize;
+		return true;
+	}
+
+	@Override
+	public ByteBuffer next() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		if (closed) {
+			throw new IOException("Reader is closed");
+		}
+		if (!started) {
+			started = true;
+			for (Slot slot : slots) {
+				schedule(slot);
+			}
+		} else if (current != null) {
+			//the consumer is done with the previous frame, reuse its slot
+			schedule(current);
+			current = null;
+		}
+		Slot slot = slots[head];
+		boolean found;
+		try {
+			found = slot.ready.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			error = cause instanceof IOException ? (IOException) cause : new IOException("Error reading frame", cause);
+			throw error;
+		}
+		if (!found) {
+			return null;
+		}
+		head = (head + 1) % slots.length;
+		current = slot;
+		return slot.raw;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		//runs after any read that is in progress, reads that are still queued return immediately
+		CompletableFuture<Void> closeIn = CompletableFuture.runAsync(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					in.close();
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			}
+		}, io);
+		io.shutdown();
+		try {
+			closeIn.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException("Error closing stream", cause);
+		} finally {
+			//pending decompressions must finish before their contexts are closed
+			for (Slot slot : slots) {
+				if (slot.ready != null) {
+					try {
+						slot.ready.join();
+					} catch (CompletionException e) {
+						//already reported, or never read
+					}
+				}
+				slot.context.close();
+			}
+		}
+	}
+
+}
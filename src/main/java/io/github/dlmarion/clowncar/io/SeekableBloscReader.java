@@ -0,0 +1,312 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Random access to the elements of a container written by {@link IndexedBloscFrameWriter}. Only
+ * the frames holding the requested elements are read. Bulk reads decompress whole frames and keep
+ * the most recently used one, so reads close to each other cost a single decompression. Point
+ * lookups and {@link #get(int, int, int)} only decompress the Blosc blocks holding the elements,
+ * unless their frame is already decompressed.
+ */
+public class SeekableBloscReader implements Closeable {
+
+	private final SeekableByteChannel channel;
+	private final Class<?> elementType;
+	private final BloscCompressorType compressor;
+	private final BloscShuffleType shuffleType;
+	private final int typeSize;
+	private final int compressionLevel;
+	private final int blockSize;
+	private final long[] offsets;
+	private final long[] ends;
+	private final BloscContext context = BloscContext.create(1);
+	private final ByteBuffer header = ByteBuffer.allocateDirect(BloscFrameReader.HEADER_SIZE);
+	private ByteBuffer src = ByteBuffer.allocateDirect(0);
+	private ByteBuffer buf = ByteBuffer.allocateDirect(0);
+	private ByteBuffer items = ByteBuffer.allocateDirect(Long.BYTES);
+	private int compressedFrame = -1;
+	private int currentFrame = -1;
+	private long position = 0;
+
+	public SeekableBloscReader(Path path) throws IOException {
+		this(Files.newByteChannel(path, StandardOpenOption.READ));
+	}
+
+	public SeekableBloscReader(SeekableByteChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer fileHeader = ByteBuffer.allocate(IndexedBloscFrameWriter.HEADER_SIZE);
+		readFully(0, fileHeader);
+		if (fileHeader.getInt() != IndexedBloscFrameWriter.MAGIC) {
+			throw new IOException("Not an indexed Blosc container");
+		}
+		byte version = fileHeader.get();
+		if (version != IndexedBloscFrameWriter.VERSION) {
+			throw new IOException("Unsupported container version: " + version);
+		}
+		this.elementType = IndexedBloscFrameWriter.elementClass(fileHeader.get());
+		try {
+			this.compressor = BloscCompressorType.getCompressorType(fileHeader.get());
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Unsupported container compressor", e);
+		}
+		this.shuffleType = BloscShuffleType.getShuffleType(fileHeader.get());
+		this.typeSize = fileHeader.getInt();
+		this.compressionLevel = fileHeader.getInt();
+		this.blockSize = fileHeader.getInt();
+
+		ByteBuffer trailer = ByteBuffer.allocate(IndexedBloscFrameWriter.TRAILER_SIZE);
+		readFully(channel.size() - IndexedBloscFrameWriter.TRAILER_SIZE, trailer);
+		int frameCount = trailer.getInt();
+		long footerOffset = trailer.getLong();
+		if (trailer.getInt() != IndexedBloscFrameWriter.MAGIC) {
+			throw new IOException("Missing container footer, the writer may not have been closed");
+		}
+		ByteBuffer footer = ByteBuffer.allocate(frameCount * IndexedBloscFrameWriter.INDEX_ENTRY_SIZE);
+		readFully(footerOffset, footer);
+		this.offsets = new long[frameCount];
+		this.ends = new long[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			this.offsets[i] = footer.getLong();
+			this.ends[i] = footer.getLong();
+		}
+	}
+
+	private void readFully(long offset, ByteBuffer dst) throws IOException {
+		channel.position(offset);
+		while (dst.hasRemaining()) {
+			if (channel.read(dst) < 0) {
+				throw new EOFException("Unexpected end of container at offset " + channel.position());
+			}
+		}
+		dst.flip();
+	}
+
+	public Class<?> getElementType() {
+		return elementType;
+	}
+
+	public BloscCompressorType getCompressor() {
+		return compressor;
+	}
+
+	public BloscShuffleType getShuffleType() {
+		return shuffleType;
+	}
+
+	public int getTypeSize() {
+		return typeSize;
+	}
+
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public int getFrameCount() {
+		return offsets.length;
+	}
+
+	/**
+	 * @return number of elements in the container
+	 */
+	public long size() {
+		return offsets.length == 0 ? 0 : ends[offsets.length - 1];
+	}
+
+	/**
+	 * @return index of the element that the next {@link #read(ByteBuffer)} starts at
+	 */
+	public long position() {
+		return position;
+	}
+
+	public void seek(long elementIndex) {
+		if (elementIndex < 0 || elementIndex > size()) {
+			throw new IndexOutOfBoundsException("Element " + elementIndex + " is outside of [0, " + size() + "]");
+		}
+		this.position = elementIndex;
+	}
+
+	/**
+	 * @return index of the frame holding element {@code elementIndex}
+	 */
+	public int frameOf(long elementIndex) {
+		checkIndex(elementIndex);
+		int i = Arrays.binarySearch(ends, elementIndex);
+		//ends are exclusive, an element equal to the end of a frame is the first of the next one
+		return i >= 0 ? i + 1 : -(i + 1);
+	}
+
+	private long frameStart(int frame) {
+		return frame == 0 ? 0 : ends[frame - 1];
+	}
+
+	private void checkIndex(long elementIndex) {
+		if (elementIndex < 0 || elementIndex >= size()) {
+			throw new IndexOutOfBoundsException("Element " + elementIndex + " is outside of [0, " + size() + ")");
+		}
+	}
+
+	/**
+	 * Returns frame {@code frame} decompressed, between position 0 and its limit. The buffer belongs
+	 * to the reader and is only valid until the next call to this reader.
+	 */
+	public ByteBuffer frame(int frame) throws IOException {
+		if (frame < 0 || frame >= offsets.length) {
+			throw new IndexOutOfBoundsException("Frame " + frame + " is outside of [0, " + offsets.length + ")");
+		}
+		if (frame != currentFrame) {
+			currentFrame = -1;
+			int unCompressedSize = readCompressed(frame);
+			if (buf.capacity() < unCompressedSize) {
+				buf = ByteBuffer.allocateDirect(unCompressedSize);
+			}
+			BloscFrameReader.decompress(context, src, buf, unCompressedSize);
+			currentFrame = frame;
+		}
+		buf.clear();
+		buf.limit((int) ((ends[frame] - frameStart(frame)) * typeSize));
+		return buf;
+	}
+
+	/**
+	 * Reads the compressed data of {@code frame} into {@link #src}, unless it is already there.
+	 *
+	 * @return uncompressed size of the frame
+	 */
+	private int readCompressed(int frame) throws IOException {
+		int unCompressedSize = (int) ((ends[frame] - frameStart(frame)) * typeSize);
+		if (frame == compressedFrame) {
+			return unCompressedSize;
+		}
+		compressedFrame = -1;
+		header.clear();
+		readFully(offsets[frame], header);
+		int compressedSize = header.getInt();
+		BloscFrameReader.checkHeader(compressedSize, header.getInt(Integer.BYTES));
+		if (header.getInt(Integer.BYTES) != unCompressedSize) {
+			throw new IOException("Frame " + frame + " holds " + header.getInt(Integer.BYTES) + " bytes, the index says " + unCompressedSize);
+		}
+		if (src.capacity() < compressedSize) {
+			src = ByteBuffer.allocateDirect(compressedSize);
+		}
+		src.clear();
+		src.limit(compressedSize);
+		readFully(offsets[frame] + BloscFrameReader.HEADER_SIZE, src);
+		//getitem trusts the chunk, check it before it reaches c-blosc
+		BloscChunkHeader chunk = BloscChunkHeader.parse(src);
+		if (chunk.getCompressedSize() != compressedSize || chunk.getUncompressedSize() != unCompressedSize || chunk.getTypeSize() != (typeSize > 255 ? 1 : typeSize)) {
+			throw new IOException("Frame " + frame + " does not match its chunk: " + chunk);
+		}
+		compressedFrame = frame;
+		return unCompressedSize;
+	}
+
+	/**
+	 * Returns {@code count} elements of frame {@code frame}, starting at element {@code startItem}
+	 * of the frame, between position 0 and the limit. Only the Blosc blocks holding the elements are
+	 * decompressed. The buffer belongs to the reader and is only valid until the next call to this
+	 * reader.
+	 */
+	public ByteBuffer get(int frame, int startItem, int count) throws IOException {
+		if (frame < 0 || frame >= offsets.length) {
+			throw new IndexOutOfBoundsException("Frame " + frame + " is outside of [0, " + offsets.length + ")");
+		}
+		long frameSize = ends[frame] - frameStart(frame);
+		if (startItem < 0 || count < 0 || startItem > frameSize - count) {
+			throw new IndexOutOfBoundsException("Elements [" + startItem + ", " + ((long) startItem + count) + ") are outside of frame " + frame + " of " + frameSize + " elements");
+		}
+		if (frame == currentFrame) {
+			ByteBuffer b = buf.duplicate();
+			b.limit((startItem + count) * typeSize);
+			b.position(startItem * typeSize);
+			return b.slice();
+		}
+		readCompressed(frame);
+		if (items.capacity() < count * typeSize) {
+			items = ByteBuffer.allocateDirect(count * typeSize);
+		}
+		items.clear();
+		int read = context.getItems(src, startItem, count, items);
+		if (read != count * typeSize) {
+			throw new IOException("Error decompressing elements of frame " + frame + ", expected " + (count * typeSize) + " bytes, got: " + read);
+		}
+		items.limit(read);
+		return items;
+	}
+
+	/**
+	 * Copies whole elements, starting at {@link #position()}, into {@code dst} and moves the position
+	 * past them. Only the frames holding the copied elements are decompressed.
+	 *
+	 * @return number of elements copied, or -1 if the position is at the end of the container
+	 */
+	public int read(ByteBuffer dst) throws IOException {
+		if (position == size()) {
+			return -1;
+		}
+		int total = 0;
+		while (position < size() && dst.remaining() >= typeSize) {
+			int frame = frameOf(position);
+			ByteBuffer b = frame(frame);
+			b.position((int) ((position - frameStart(frame)) * typeSize));
+			int n = Math.min(b.remaining(), dst.remaining()) / typeSize;
+			b.limit(b.position() + n * typeSize);
+			dst.put(b);
+			position += n;
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * @return buffer positioned at element {@code elementIndex}
+	 */
+	private ByteBuffer locate(long elementIndex) throws IOException {
+		int frame = frameOf(elementIndex);
+		return get(frame, (int) (elementIndex - frameStart(frame)), 1);
+	}
+
+	public long getLong(long elementIndex) throws IOException {
+		return locate(elementIndex).getLong();
+	}
+
+	public int getInt(long elementIndex) throws IOException {
+		return locate(elementIndex).getInt();
+	}
+
+	public double getDouble(long elementIndex) throws IOException {
+		return locate(elementIndex).getDouble();
+	}
+
+	public float getFloat(long elementIndex) throws IOException {
+		return locate(elementIndex).getFloat();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			channel.close();
+		} finally {
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+package io.github.dlmarion.clowncar.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads strings written by {@link StringBloscOutputStream}.
+ */
+public class StringBloscInputStream extends InputStream implements AutoCloseable {
+
+	private final FrameReader reader;
+	private int[] codes = new int[0];
+	private int[] offsets = new int[0];
+	private byte[] data = new byte[0];
+	private boolean dictionary;
+	private int count = 0;
+	private int next = 0;
+
+	public StringBloscInputStream(InputStream in, int numThreads) {
+		this(new BloscFrameReader(in, numThreads));
+	}
+
+	public StringBloscInputStream(FrameReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the int frame and the data frames of the next group.
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean readGroup() throws IOException {
+		ByteBuffer ints = reader.next();
+		if (ints == null) {
+			return false;
+		}
+		if (ints.remaining() < StringBloscOutputStream.GROUP_HEADER_SIZE) {
+			throw new IOException("Invalid string group, int frame of " + ints.remaining() + " bytes");
+		}
+		int encoding = ints.getInt();
+		int count = ints.getInt();
+		int length = ints.getInt();
+		int dictionarySize = ints.getInt();
+		if ((encoding != StringBloscOutputStream.PLAIN && encoding != StringBloscOutputStream.DICTIONARY) || count <= 0 || length < 0 || dictionarySize < 0) {
+			throw new IOException("Invalid string group header, encoding: " + encoding + ", count: " + count + ", length: " + length + ", dictionary size: " + dictionarySize);
+		}
+		this.dictionary = encoding == StringBloscOutputStream.DICTIONARY;
+		int entries = dictionary ? dictionarySize : count;
+		int expected = (dictionary ? count : 0) + entries + 1;
+		if (ints.remaining() != expected * Integer.BYTES) {
+			throw new IOException("Invalid string group, expected " + expected + " ints, not " + ints.remaining() / Integer.BYTES);
+		}
+		if (dictionary) {
+			if (codes.length < count) {
+				codes = new int[count];
+			}
+			ints.asIntBuffer().get(codes, 0, count);
+			ints.position(ints.position() + count * Integer.BYTES);
+			for (int i = 0; i < count; i++) {
+				if (codes[i] < 0 || codes[i] >= entries) {
+					throw new IOException("Invalid dictionary code: " + codes[i]);
+				}
+			}
+		}
+		BloscPrefilter.DELTA.decode(ints, Integer.BYTES);
+		if (offsets.length < entries + 1) {
+			offsets = new int[entries + 1];
+		}
+		ints.asIntBuffer().get(offsets, 0, entries + 1);
+		if (offsets[0] != 0 || offsets[entries] != length) {
+			throw new IOException("Offsets do not match the data length of " + length + " bytes");
+		}
+		for (int i = 0; i < entries; i++) {
+			if (offsets[i] > offsets[i + 1]) {
+				throw new IOException("Invalid offsets at value " + i);
+			}
+		}
+
+		if (data.length < length) {
+			data = new byte[length];
+		}
+		int read = 0;
+		while (read < length) {
+			ByteBuffer frame = reader.next();
+			if (frame == null) {
+				throw new EOFException("Unexpected end of stream, read " + read + " of " + length + " bytes of strings");
+			}
+			if (frame.remaining() > length - read) {
+				throw new IOException("Data frame of " + frame.remaining() + " bytes is longer than the " + (length - read) + " bytes left");
+			}
+			int n = frame.remaining();
+			frame.get(data, read, n);
+			read += n;
+		}
+		this.count = count;
+		this.next = 0;
+		return true;
+	}
+
+	/**
+	 * @throws EOFException at the end of the stream
+	 */
+	public String readString() throws IOException {
+		if (next == count && !readGroup()) {
+			throw new EOFException();
+		}
+		int entry = dictionary ? codes[next] : next;
+		next++;
+		return new String(data, offsets[entry], offsets[entry + 1] - offsets[entry], UTF_8);
+	}
+
+	public int read(String[] dst) throws IOException {
+		return read(dst, 0, dst.length);
+	}
+
+	/**
+	 * @return number of strings read, which is less than {@code len} only at the end of the stream,
+	 *         or -1 if the stream was already at the end
+	 */
+	public int read(String[] dst, int off, int len) throws IOException {
+		AbstractBloscInputStream.checkBounds(dst.length, off, len);
+		int total = 0;
+		while (total < len) {
+			if (next == count && !readGroup()) {
+				break;
+			}
+			dst[off + total++] = readString();
+		}
+		return (total == 0 && len > 0) ? -1 : total;
+	}
+
+	@Override
+	public int read() throws IOException {
+		throw new IOException("Unsupported operation.");
+	}
+
+	@Override
+	public void close() throws IOException {
+		super.close();
+		reader.close();
+	}
+
+}
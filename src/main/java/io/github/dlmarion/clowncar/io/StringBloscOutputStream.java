@@ -0,0 +1,172 @@
+package io.github.dlmarion.clowncar.io;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes strings as groups of two kinds of frames, so that the lengths can be shuffled as ints and
+ * the text is compressed as one contiguous run of UTF-8 bytes:
+ *
+ * <pre>
+ * int frame:   [encoding][count][data length][dictionary size]
+ *              plain:      [offset] ... count + 1 offsets
+ *              dictionary: [code] ... count codes, [offset] ... dictionary size + 1 offsets
+ * data frames: UTF-8 bytes of the values, or of the dictionary entries, in frames of at most blocksize bytes
+ * </pre>
+ *
+ * The offsets are delta encoded, i.e. they are the lengths of the values. With dictionary encoding
+ * enabled a group whose values are at least half repeats is written as a dictionary and one int
+ * code per value. Values of any size can be written, a group ends once it holds
+ * {@code blocksize} bytes of text.
+ */
+public class StringBloscOutputStream extends OutputStream implements AutoCloseable {
+
+	static final int PLAIN = 0;
+	static final int DICTIONARY = 1;
+	/* encoding, count, data length and dictionary size */
+	static final int GROUP_HEADER_SIZE = 4 * Integer.BYTES;
+
+	private final FrameWriter writer;
+	private final int blocksize;
+	private final boolean dictionary;
+	private final int maxCount;
+	private final List<String> values = new ArrayList<>();
+	private final List<byte[]> encoded = new ArrayList<>();
+	private int dataLength = 0;
+	private ByteBuffer ints;
+	private ByteBuffer data;
+
+	public StringBloscOutputStream(OutputStream out, int blocksize, BloscCompressorType compressor, int compressionLevel, int numThreads, boolean dictionary) {
+		this(new BloscFrameWriter(out, new FrameCompressor(compressor, compressionLevel, BloscShuffleType.BYTE_SHUFFLE, blocksize, numThreads)), blocksize, dictionary);
+	}
+
+	/**
+	 * @param dictionary use dictionary encoding for groups of mostly repeated values
+	 */
+	public StringBloscOutputStream(FrameWriter writer, int blocksize, boolean dictionary) {
+		//the int frame of a dictionary encoded group holds up to 1.5 ints per value
+		this.maxCount = (blocksize - GROUP_HEADER_SIZE - Integer.BYTES) / 6;
+		if (this.maxCount < 1) {
+			throw new IllegalArgumentException("Block size " + blocksize + " is too small");
+		}
+		this.writer = writer;
+		this.blocksize = blocksize;
+		this.dictionary = dictionary;
+		this.ints = ByteBuffer.allocateDirect(blocksize);
+		this.data = ByteBuffer.allocateDirect(blocksize);
+	}
+
+	public void writeString(String value) throws IOException {
+		byte[] b = value.getBytes(UTF_8);
+		values.add(value);
+		encoded.add(b);
+		dataLength += b.length;
+		if (dataLength >= blocksize || values.size() == maxCount) {
+			writeGroup();
+		}
+	}
+
+	public void write(String[] values) throws IOException {
+		write(values, 0, values.length);
+	}
+
+	public void write(String[] values, int off, int len) throws IOException {
+		AbstractBloscOutputStream.checkBounds(values.length, off, len);
+		for (int i = off; i < off + len; i++) {
+			writeString(values[i]);
+		}
+	}
+
+	private void writeGroup() throws IOException {
+		if (values.isEmpty()) {
+			return;
+		}
+		int count = values.size();
+		Map<String, Integer> codes = new LinkedHashMap<>();
+		List<byte[]> entries = encoded;
+		if (dictionary) {
+			List<byte[]> distinct = new ArrayList<>();
+			for (int i = 0; i < count && distinct.size() * 2 <= count; i++) {
+				if (!codes.containsKey(values.get(i))) {
+					codes.put(values.get(i), codes.size());
+					distinct.add(encoded.get(i));
+				}
+			}
+			if (distinct.size() * 2 <= count) {
+				entries = distinct;
+			}
+		}
+		int length = 0;
+		for (byte[] b : entries) {
+			length += b.length;
+		}
+		boolean useDictionary = entries != encoded;
+		ints.clear();
+		ints.putInt(useDictionary ? DICTIONARY : PLAIN);
+		ints.putInt(count);
+		ints.putInt(length);
+		ints.putInt(useDictionary ? entries.size() : 0);
+		if (useDictionary) {
+			for (String value : values) {
+				ints.putInt(codes.get(value));
+			}
+		}
+		int offsetsStart = ints.position();
+		if (data.capacity() < length) {
+			data = ByteBuffer.allocateDirect(length);
+		}
+		data.clear();
+		ints.putInt(0);
+		for (byte[] b : entries) {
+			data.put(b);
+			ints.putInt(data.position());
+		}
+		ints.flip();
+		ints.position(offsetsStart);
+		BloscPrefilter.DELTA.encode(ints, Integer.BYTES);
+		ints.position(0);
+		writer.write(ints, Integer.BYTES);
+
+		data.flip();
+		while (data.hasRemaining()) {
+			ByteBuffer frame = data.slice();
+			frame.limit(Math.min(frame.remaining(), blocksize));
+			writer.write(frame, 1);
+			data.position(data.position() + frame.limit());
+		}
+		values.clear();
+		encoded.clear();
+		dataLength = 0;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		throw new IOException("Unsupported operation.");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writeGroup();
+		writer.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			writeGroup();
+		} finally {
+			writer.close();
+		}
+	}
+
+}
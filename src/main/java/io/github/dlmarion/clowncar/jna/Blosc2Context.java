@@ -0,0 +1,197 @@
+package io.github.dlmarion.clowncar.jna;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+import io.github.dlmarion.clowncar.BloscThreadGovernor;
+import io.github.dlmarion.clowncar.pure.BloscDecoder;
+
+import java.nio.ByteBuffer;
+
+import com.sun.jna.Pointer;
+
+/**
+ * Holds c-blosc2 compression and decompression contexts, created on first use and reused, with
+ * their worker threads, until the context is closed. Each call gets its threads from the
+ * {@link BloscThreadGovernor}, like {@link io.github.dlmarion.clowncar.PerCallBloscContext}, and
+ * returns them when it ends, so an idle context holds none of the budget. Native contexts are kept
+ * by thread count, a call uses the one created for the threads it was granted, so varying grants
+ * do not create and destroy thread pools; the compression contexts are created again when the type
+ * size changes.
+ */
+public class Blosc2Context extends BloscContext {
+
+	/* indexed by thread count */
+	private final Pointer[] cctxs;
+	private int cctxTypeSize = -1;
+	private final Pointer[] dctxs;
+	private int created = 0;
+	private boolean closed = false;
+
+	public Blosc2Context(BloscCompressorType compressor, int compressionLevel, BloscShuffleType shuffleType, int blockSize, int numThreads, boolean nativeDelta) {
+		super(compressor, compressionLevel, shuffleType, blockSize, numThreads, nativeDelta);
+		if (!isAvailable()) {
+			throw new IllegalStateException("c-blosc2 is not available");
+		}
+		if (compressor != null && !supports(compressor)) {
+			throw new IllegalArgumentException("c-blosc2 does not support " + compressor.getCompressorName());
+		}
+		this.cctxs = new Pointer[Math.max(1, numThreads) + 1];
+		this.dctxs = new Pointer[Math.max(1, numThreads) + 1];
+	}
+
+	public static boolean isAvailable() {
+		return Blosc2Library.isAvailable();
+	}
+
+	/**
+	 * @return false for the compressors that c-blosc2 dropped, i.e. snappy
+	 */
+	public static boolean supports(BloscCompressorType compressor) {
+		return compressor == null || compressor != BloscCompressorType.SNAPPY;
+	}
+
+	private static byte compcode(BloscCompressorType compressor) {
+		switch (compressor) {
+			case BLOSCLZ: return 0;
+			case LZ4: return 1;
+			case LZ4HC: return 2;
+			case ZLIB: return 4;
+			case ZSTD: return 5;
+			default: throw new IllegalArgumentException("c-blosc2 does not support " + compressor.getCompressorName());
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Context is closed");
+		}
+	}
+
+	private Pointer compressionContext(int typeSize, int threads) {
+		if (cctxTypeSize != typeSize) {
+			freeContexts(cctxs);
+			cctxTypeSize = typeSize;
+		}
+		Pointer cctx = cctxs[threads];
+		if (cctx != null) {
+			return cctx;
+		}
+		Blosc2Library.CParams.ByValue cparams = new Blosc2Library.CParams.ByValue();
+		cparams.compcode = compcode(compressor);
+		cparams.clevel = (byte) compressionLevel;
+		cparams.typesize = typeSize;
+		cparams.nthreads = (short) threads;
+		cparams.blocksize = blockSize;
+		cparams.splitmode = Blosc2Library.BLOSC_FORWARD_COMPAT_SPLIT;
+		if (nativeDelta) {
+			//delta runs before the shuffle
+			cparams.filters[Blosc2Library.BLOSC2_MAX_FILTERS - 2] = Blosc2Library.BLOSC_DELTA;
+		}
+		cparams.filters[Blosc2Library.BLOSC2_MAX_FILTERS - 1] = (byte) shuffleType.getShuffleType();
+		cctx = Blosc2Library.blosc2_create_cctx(cparams);
+		if (cctx == null) {
+			throw new RuntimeException("Error creating c-blosc2 compression context");
+		}
+		created++;
+		cctxs[threads] = cctx;
+		return cctx;
+	}
+
+	private Pointer decompressionContext(int threads) {
+		Pointer dctx = dctxs[threads];
+		if (dctx != null) {
+			return dctx;
+		}
+		Blosc2Library.DParams.ByValue dparams = new Blosc2Library.DParams.ByValue();
+		dparams.nthreads = (short) threads;
+		dctx = Blosc2Library.blosc2_create_dctx(dparams);
+		if (dctx == null) {
+			throw new RuntimeException("Error creating c-blosc2 decompression context");
+		}
+		created++;
+		dctxs[threads] = dctx;
+		return dctx;
+	}
+
+	/**
+	 * @return number of native contexts created so far
+	 */
+	int getContextsCreated() {
+		return created;
+	}
+
+	@Override
+	public int compress(ByteBuffer src, int typeSize, ByteBuffer dst) {
+		checkOpen();
+		checkCompressor();
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(numThreads, src.remaining());
+		int w;
+		try {
+			w = Blosc2Library.blosc2_compress_ctx(compressionContext(typeSize, threads), atPosition(src), src.remaining(), atPosition(dst), dst.remaining());
+		} finally {
+			governor.release(threads);
+		}
+		if (w == 0) {
+			throw new RuntimeException("Compressed size larger then dest length");
+		}
+		if (w < 0) {
+			throw new RuntimeException("Error compressing data: " + w + ", src: " + src + ", dst: " + dst);
+		}
+		return w;
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst) {
+		checkOpen();
+		BloscDecoder small = smallChunkDecoder(src);
+		if (small != null) {
+			return small.decompress(src, dst);
+		}
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(numThreads, chunkUncompressedSize(src));
+		try {
+			return Blosc2Library.blosc2_decompress_ctx(decompressionContext(threads), atPosition(src), src.remaining(), atPosition(dst), dst.remaining());
+		} finally {
+			governor.release(threads);
+		}
+	}
+
+	@Override
+	public int getItems(ByteBuffer src, int startItem, int count, ByteBuffer dst) {
+		checkOpen();
+		checkItems(src, startItem, count, dst);
+		BloscDecoder small = smallChunkDecoder(src);
+		if (small != null) {
+			return small.getItems(src, startItem, count, dst);
+		}
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int threads = governor.acquire(numThreads, chunkUncompressedSize(src));
+		try {
+			return Blosc2Library.blosc2_getitem_ctx(decompressionContext(threads), atPosition(src), src.remaining(), startItem, count, atPosition(dst), dst.remaining());
+		} finally {
+			governor.release(threads);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		freeContexts(cctxs);
+		freeContexts(dctxs);
+	}
+
+	private static void freeContexts(Pointer[] contexts) {
+		for (int i = 0; i < contexts.length; i++) {
+			if (contexts[i] != null) {
+				Blosc2Library.blosc2_free_ctx(contexts[i]);
+				contexts[i] = null;
+			}
+		}
+	}
+
+}
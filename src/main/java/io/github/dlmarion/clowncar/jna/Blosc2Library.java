@@ -0,0 +1,106 @@
+package io.github.dlmarion.clowncar.jna;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+
+/**
+ * The context functions of c-blosc2. The structures follow the c-blosc2 2.x headers. The functions
+ * are bound with JNA direct mapping, like {@link BloscLibrary}, so that calls do not allocate.
+ */
+public class Blosc2Library {
+
+	private static final Logger LOG = LoggerFactory.getLogger(Blosc2Library.class);
+
+	public static final int BLOSC2_MAX_FILTERS = 6;
+	public static final int BLOSC2_MAX_OVERHEAD = 32;
+	public static final int BLOSC_FORWARD_COMPAT_SPLIT = 4;
+	public static final byte BLOSC_DELTA = 3;
+
+	private static final boolean AVAILABLE = register();
+
+	private static boolean register() {
+		try {
+			Native.register("blosc2");
+			blosc2_init();
+			return true;
+		} catch (LinkageError e) {
+			LOG.debug("c-blosc2 is not available, falling back to c-blosc", e);
+			return false;
+		}
+	}
+
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	/** blosc2_cparams */
+	public static class CParams extends Structure {
+		public byte compcode;
+		public byte compcode_meta;
+		public byte clevel;
+		public int use_dict;
+		public int typesize;
+		public short nthreads;
+		public int blocksize;
+		public int splitmode;
+		public Pointer schunk;
+		public byte[] filters = new byte[BLOSC2_MAX_FILTERS];
+		public byte[] filters_meta = new byte[BLOSC2_MAX_FILTERS];
+		public Pointer prefilter;
+		public Pointer preparams;
+		public Pointer tuner_params;
+		public int tuner_id;
+		public byte instr_codec;
+		public Pointer codec_params;
+		public Pointer[] filter_params = new Pointer[BLOSC2_MAX_FILTERS];
+
+		@Override
+		protected List<String> getFieldOrder() {
+			return Arrays.asList("compcode", "compcode_meta", "clevel", "use_dict", "typesize", "nthreads", "blocksize",
+					"splitmode", "schunk", "filters", "filters_meta", "prefilter", "preparams", "tuner_params", "tuner_id",
+					"instr_codec", "codec_params", "filter_params");
+		}
+
+		public static class ByValue extends CParams implements Structure.ByValue {
+		}
+	}
+
+	/** blosc2_dparams */
+	public static class DParams extends Structure {
+		public short nthreads;
+		public Pointer schunk;
+		public Pointer postfilter;
+		public Pointer postparams;
+
+		@Override
+		protected List<String> getFieldOrder() {
+			return Arrays.asList("nthreads", "schunk", "postfilter", "postparams");
+		}
+
+		public static class ByValue extends DParams implements Structure.ByValue {
+		}
+	}
+
+	private static native void blosc2_init();
+
+	public static native Pointer blosc2_create_cctx(CParams.ByValue cparams);
+
+	public static native Pointer blosc2_create_dctx(DParams.ByValue dparams);
+
+	public static native void blosc2_free_ctx(Pointer context);
+
+	public static native int blosc2_compress_ctx(Pointer context, Buffer src, int srcsize, Buffer dest, int destsize);
+
+	public static native int blosc2_decompress_ctx(Pointer context, Buffer src, int srcsize, Buffer dest, int destsize);
+
+	public static native int blosc2_getitem_ctx(Pointer context, Buffer src, int srcsize, int start, int nitems, Buffer dest, int destsize);
+
+}
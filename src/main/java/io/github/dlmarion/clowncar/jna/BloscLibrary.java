@@ -37,6 +37,14 @@ public class BloscLibrary {
 		return blosc_decompress_ctx(src, dest, new SizeT(destSize), numThreads);
 	}
 
+	/**
+	 * Decompresses {@code nitems} items starting at item {@code start}, only the blocks holding
+	 * them are decompressed. {@code dest} must hold {@code nitems} times the type size of the chunk.
+	 */
+	public static int getItem(Buffer src, int start, int nitems, Buffer dest) {
+		return blosc_getitem(src, start, nitems, dest);
+	}
+
 
 	static native int blosc_compress_ctx(int compressionLevel,
 			               int shuffleType,
@@ -51,4 +59,6 @@ public class BloscLibrary {
 
 	public static native int blosc_decompress_ctx(Buffer src, Buffer dest, SizeT destsize, int numinternalthreads);
 
+	public static native int blosc_getitem(Buffer src, int start, int nitems, Buffer dest);
+
 }
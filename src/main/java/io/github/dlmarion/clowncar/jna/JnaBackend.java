@@ -0,0 +1,67 @@
+package io.github.dlmarion.clowncar.jna;
+
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BloscBackend} over {@link BloscLibrary}.
+ */
+public class JnaBackend implements BloscBackend {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JnaBackend.class);
+
+	private final boolean available;
+
+	public JnaBackend() {
+		this.available = load();
+	}
+
+	private static boolean load() {
+		try {
+			Class.forName(BloscLibrary.class.getName(), true, JnaBackend.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+			LOG.debug("jna binding is not available", e);
+			return false;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "jna";
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * Slices buffers so that c-blosc always sees the position as the start.
+	 */
+	private static ByteBuffer atPosition(ByteBuffer buf) {
+		return buf.position() == 0 ? buf : buf.slice();
+	}
+
+	@Override
+	public int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		return BloscLibrary.compress(compressionLevel, shuffleType, typeSize, atPosition(src), src.remaining(),
+				atPosition(dst), dst.remaining(), compressor.getCompressorName(), blockSize, numThreads);
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		return BloscLibrary.decompress(atPosition(src), atPosition(dst), dst.remaining(), numThreads);
+	}
+
+	@Override
+	public int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		return BloscLibrary.getItem(atPosition(src), start, nitems, atPosition(dst));
+	}
+
+}
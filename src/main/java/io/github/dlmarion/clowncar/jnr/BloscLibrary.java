@@ -1,8 +1,13 @@
 package io.github.dlmarion.clowncar.jnr;
 
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscCompressorType;
 
 import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
 
 import jnr.ffi.LibraryLoader;
 import jnr.ffi.types.size_t;
@@ -10,6 +15,18 @@ import jnr.ffi.types.size_t;
 public class BloscLibrary {
 		
 	private static final libBlosc INSTANCE = LibraryLoader.create(libBlosc.class).load("blosc");
+	
+	/* Null terminated compressor names in native memory, so that hot paths avoid marshalling a String per call */
+	private static final Map<BloscCompressorType, ByteBuffer> COMPRESSOR_NAMES = new EnumMap<>(BloscCompressorType.class);
+	
+	static {
+		for (BloscCompressorType type : BloscCompressorType.values()) {
+			byte[] name = type.getCompressorName().getBytes(US_ASCII);
+			ByteBuffer buf = ByteBuffer.allocateDirect(name.length + 1);
+			buf.put(name).put((byte) 0).clear();
+			COMPRESSOR_NAMES.put(type, buf);
+		}
+	}
 
 	public interface libBlosc {
 		
@@ -24,10 +41,26 @@ public class BloscLibrary {
 				@size_t long blockSize,
 				int numThreads);
 		
+		public int blosc_compress_ctx(int compressionLevel,
+				int shuffleType,
+				@size_t long typesize,
+				@size_t long nbytes,
+				Buffer src,
+				Buffer dest,
+				@size_t long destsize,
+				Buffer compressorName,
+				@size_t long blockSize,
+				int numThreads);
+		
 		public int blosc_decompress_ctx(Buffer src,
 				Buffer dest,
 				@size_t long destsize,
 				int numinternalthreads);
+
+		public int blosc_getitem(Buffer src,
+				int start,
+				int nitems,
+				Buffer dest);
 	}
 
 	public static int compress(int compressionLevel, int shuffleType,
@@ -42,6 +75,25 @@ public class BloscLibrary {
 		}
 		int w = INSTANCE.blosc_compress_ctx(compressionLevel, shuffleType, typeSize, srcLength, 
 				src, dest, destLength, compressorName, blockSize, numThreads);
+		return checkCompressed(w, src, dest);
+	}
+	
+	public static int compress(int compressionLevel, int shuffleType,
+			int typeSize, Buffer src, long srcLength, Buffer dest, 
+			long destLength, BloscCompressorType compressor, int blockSize, int numThreads) {
+		if (srcLength > (Integer.MAX_VALUE - Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException("Source array is too large");
+		}
+		if (destLength < (srcLength + Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException(
+					"Dest array is not large enough.");
+		}
+		int w = INSTANCE.blosc_compress_ctx(compressionLevel, shuffleType, typeSize, srcLength, 
+				src, dest, destLength, COMPRESSOR_NAMES.get(compressor), blockSize, numThreads);
+		return checkCompressed(w, src, dest);
+	}
+	
+	private static int checkCompressed(int w, Buffer src, Buffer dest) {
 		if (w == 0) {
 			throw new RuntimeException("Compressed size larger then dest length");
 		}
@@ -55,4 +107,12 @@ public class BloscLibrary {
 		return INSTANCE.blosc_decompress_ctx(src, dest, destSize, numThreads);
 	}
 
+	/**
+	 * Decompresses {@code nitems} items starting at item {@code start}, only the blocks holding
+	 * them are decompressed. {@code dest} must hold {@code nitems} times the type size of the chunk.
+	 */
+	public static int getItem(Buffer src, int start, int nitems, Buffer dest) {
+		return INSTANCE.blosc_getitem(src, start, nitems, dest);
+	}
+
 }
@@ -0,0 +1,80 @@
+package io.github.dlmarion.clowncar.jnr;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BloscBackend} over {@link BloscLibrary}.
+ */
+public class JnrBackend implements BloscBackend {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JnrBackend.class);
+
+	private final boolean available;
+
+	public JnrBackend() {
+		this.available = load();
+	}
+
+	/**
+	 * jnr binds c-blosc on the first call, not when the library is loaded, so a round trip of one
+	 * byte checks that it is there.
+	 */
+	private static boolean load() {
+		try {
+			Class.forName(BloscLibrary.class.getName(), true, JnrBackend.class.getClassLoader());
+			ByteBuffer src = ByteBuffer.allocateDirect(1);
+			ByteBuffer compressed = ByteBuffer.allocateDirect(1 + Blosc.OVERHEAD);
+			int w = BloscLibrary.compress(0, 0, 1, src, 1, compressed, compressed.capacity(), BloscCompressorType.BLOSCLZ, 0, 1);
+			compressed.limit(w);
+			if (BloscLibrary.decompress(compressed, src, 1, 1) != 1) {
+				LOG.debug("jnr binding failed to decompress a byte");
+				return false;
+			}
+			return true;
+		} catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+			LOG.debug("jnr binding is not available", e);
+			return false;
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "jnr";
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * jnr does not honor the position of direct buffers.
+	 */
+	private static ByteBuffer atPosition(ByteBuffer buf) {
+		return buf.position() == 0 ? buf : buf.slice();
+	}
+
+	@Override
+	public int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		return BloscLibrary.compress(compressionLevel, shuffleType, typeSize, atPosition(src), src.remaining(),
+				atPosition(dst), dst.remaining(), compressor, blockSize, numThreads);
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		return BloscLibrary.decompress(atPosition(src), atPosition(dst), dst.remaining(), numThreads);
+	}
+
+	@Override
+	public int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		return BloscLibrary.getItem(atPosition(src), start, nitems, atPosition(dst));
+	}
+
+}
@@ -0,0 +1,279 @@
+package io.github.dlmarion.clowncar.pure;
+
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes c-blosc 1.x chunks in Java, without the native library. Chunks stored as is and chunks
+ * compressed with blosclz, lz4 or lz4hc are supported, with no shuffle, byte shuffle or bit
+ * shuffle; c-blosc2 chunks and the other codecs are not, see {@link #supports(ByteBuffer)}.
+ * <p>
+ * A call into c-blosc costs about as much as decompressing a small chunk, so {@link
+ * io.github.dlmarion.clowncar.BloscContext} decodes small chunks with this class. Decoders keep
+ * their scratch arrays between calls and are not thread safe.
+ */
+public class BloscDecoder {
+
+	private static final int BLOSCLZ_FORMAT = 0;
+	private static final int LZ4_FORMAT = 1;
+
+	private final BloscChunkHeader header = new BloscChunkHeader();
+	private byte[] chunk = new byte[0];
+	private byte[] block = new byte[0];
+	private byte[] shuffled = new byte[0];
+	private byte[] output = new byte[0];
+
+	/**
+	 * @return true if the chunk starting at the position of {@code src} has a valid header and can
+	 *         be decoded by this class
+	 */
+	public boolean supports(ByteBuffer src) {
+		return supports(src, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return true if the chunk starting at the position of {@code src} can be decoded by this class
+	 *         and decompresses to at most {@code maxUncompressedSize} bytes
+	 */
+	public boolean supports(ByteBuffer src, int maxUncompressedSize) {
+		try {
+			header.read(src);
+		} catch (IOException e) {
+			return false;
+		}
+		return header.getUncompressedSize() <= maxUncompressedSize && supported();
+	}
+
+	private boolean supported() {
+		//c-blosc 1.x writes version 2, c-blosc2 writes later versions with an extended header
+		if (header.getVersion() > 2 || header.isExtended()) {
+			return false;
+		}
+		int format = header.getCompressorFormat();
+		return header.isMemcpyed() || format == BLOSCLZ_FORMAT || format == LZ4_FORMAT;
+	}
+
+	/**
+	 * Reads the header of the chunk starting at the position of {@code src}.
+	 *
+	 * @return false if the header is not valid
+	 * @throws UnsupportedOperationException if the chunk cannot be decoded by this class
+	 */
+	private boolean readHeader(ByteBuffer src) {
+		try {
+			header.read(src);
+		} catch (IOException e) {
+			return false;
+		}
+		if (!supported()) {
+			throw new UnsupportedOperationException("Java decoder cannot read " + header);
+		}
+		return header.getCompressedSize() <= src.remaining();
+	}
+
+	/**
+	 * Decompresses the chunk starting at the position of {@code src} into {@code dst}, like
+	 * {@code blosc_decompress}. The positions of both buffers are left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 * @throws UnsupportedOperationException if the chunk cannot be decoded by this class
+	 */
+	public int decompress(ByteBuffer src, ByteBuffer dst) {
+		if (!readHeader(src)) {
+			return -1;
+		}
+		int nbytes = header.getUncompressedSize();
+		if (nbytes > dst.remaining()) {
+			return -1;
+		}
+		byte[] c = chunk(src);
+		int cOffset = src.hasArray() ? src.arrayOffset() + src.position() : 0;
+		byte[] out;
+		int outOffset;
+		if (dst.hasArray()) {
+			out = dst.array();
+			outOffset = dst.arrayOffset() + dst.position();
+		} else {
+			out = output = grow(output, nbytes);
+			outOffset = 0;
+		}
+		int result;
+		if (header.isMemcpyed()) {
+			System.arraycopy(c, cOffset + BloscChunkHeader.LENGTH, out, outOffset, nbytes);
+			result = nbytes;
+		} else if (nbytes == 0) {
+			result = 0;
+		} else {
+			result = decodeBlocks(c, cOffset, 0, nbytes, out, outOffset);
+		}
+		if (result > 0 && !dst.hasArray()) {
+			int p = dst.position();
+			dst.put(out, 0, result);
+			dst.position(p);
+		}
+		return result;
+	}
+
+	/**
+	 * Decompresses {@code count} items starting at item {@code startItem} of the chunk starting at
+	 * the position of {@code src} into {@code dst}, like {@code blosc_getitem}. Only the blocks
+	 * holding the items are decoded. The positions of both buffers are left unchanged.
+	 *
+	 * @return number of bytes written to {@code dst}, or a negative Blosc error code
+	 * @throws UnsupportedOperationException if the chunk cannot be decoded by this class
+	 */
+	public int getItems(ByteBuffer src, int startItem, int count, ByteBuffer dst) {
+		if (!readHeader(src)) {
+			return -1;
+		}
+		int typeSize = header.getTypeSize();
+		long start = (long) startItem * typeSize;
+		long stop = start + (long) count * typeSize;
+		if (startItem < 0 || count < 0 || stop > header.getUncompressedSize() || stop - start > dst.remaining()) {
+			return -1;
+		}
+		int length = (int) (stop - start);
+		byte[] c = chunk(src);
+		int cOffset = src.hasArray() ? src.arrayOffset() + src.position() : 0;
+		byte[] out;
+		int outOffset;
+		if (dst.hasArray()) {
+			out = dst.array();
+			outOffset = dst.arrayOffset() + dst.position();
+		} else {
+			out = output = grow(output, length);
+			outOffset = 0;
+		}
+		if (header.isMemcpyed()) {
+			System.arraycopy(c, cOffset + BloscChunkHeader.LENGTH + (int) start, out, outOffset, length);
+		} else if (length > 0) {
+			int r = decodeBlocks(c, cOffset, (int) start, length, out, outOffset);
+			if (r < 0) {
+				return r;
+			}
+		}
+		if (!dst.hasArray()) {
+			int p = dst.position();
+			dst.put(out, 0, length);
+			dst.position(p);
+		}
+		return length;
+	}
+
+	/**
+	 * @return the chunk bytes, the backing array of a heap buffer or a copy of a direct one
+	 */
+	private byte[] chunk(ByteBuffer src) {
+		if (src.hasArray()) {
+			return src.array();
+		}
+		int length = header.getCompressedSize();
+		chunk = grow(chunk, length);
+		int p = src.position();
+		src.get(chunk, 0, length);
+		src.position(p);
+		return chunk;
+	}
+
+	/**
+	 * Decodes the {@code length} bytes starting at byte {@code from} of the uncompressed chunk. Whole
+	 * blocks are decoded straight into {@code out}, the others through a scratch block.
+	 *
+	 * @return {@code length}, or a negative Blosc error code
+	 */
+	private int decodeBlocks(byte[] c, int cOffset, int from, int length, byte[] out, int outOffset) {
+		int nbytes = header.getUncompressedSize();
+		int blockSize = header.getBlockSize();
+		int nblocks = nbytes / blockSize;
+		int leftover = nbytes % blockSize;
+		if (leftover > 0) {
+			nblocks++;
+		}
+		if (BloscChunkHeader.LENGTH + 4L * nblocks > header.getCompressedSize()) {
+			return -1;
+		}
+		int to = from + length;
+		for (int j = from / blockSize; j < nblocks && (long) j * blockSize < to; j++) {
+			int blockStart = j * blockSize;
+			boolean leftoverBlock = leftover > 0 && j == nblocks - 1;
+			int size = leftoverBlock ? leftover : blockSize;
+			int copyFrom = Math.max(from, blockStart);
+			int copyTo = Math.min(to, blockStart + size);
+			int r;
+			if (copyFrom == blockStart && copyTo == blockStart + size) {
+				r = decodeBlock(c, cOffset, nblocks, j, size, leftoverBlock, out, outOffset + blockStart - from);
+			} else {
+				block = grow(block, size);
+				r = decodeBlock(c, cOffset, nblocks, j, size, leftoverBlock, block, 0);
+				System.arraycopy(block, copyFrom - blockStart, out, outOffset + copyFrom - from, copyTo - copyFrom);
+			}
+			if (r < 0) {
+				return r;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Decodes one block, which is split into one stream per byte of the type unless the chunk
+	 * has the {@link BloscChunkHeader#NO_SPLIT_FLAG} or this is the last, partial, block. Each
+	 * stream is its compressed length followed by the compressed bytes, or by the bytes as is when
+	 * compressing did not make the stream smaller.
+	 */
+	private int decodeBlock(byte[] c, int cOffset, int nblocks, int j, int size, boolean leftoverBlock, byte[] out, int outOffset) {
+		int flags = header.getFlags();
+		int typeSize = header.getTypeSize();
+		int cbytes = header.getCompressedSize();
+		int start = Lz.readIntLE(c, cOffset + BloscChunkHeader.LENGTH + 4 * j);
+		if (start < BloscChunkHeader.LENGTH + 4 * nblocks || start > cbytes) {
+			return -1;
+		}
+		boolean byteShuffle = (flags & BloscChunkHeader.BYTE_SHUFFLE_FLAG) != 0 && typeSize > 1;
+		boolean bitShuffle = (flags & BloscChunkHeader.BIT_SHUFFLE_FLAG) != 0 && size >= typeSize;
+		byte[] dest = out;
+		int destOffset = outOffset;
+		if (byteShuffle || bitShuffle) {
+			dest = shuffled = grow(shuffled, size);
+			destOffset = 0;
+		}
+		int splits = (flags & BloscChunkHeader.NO_SPLIT_FLAG) != 0 || leftoverBlock ? 1 : typeSize;
+		int streamSize = size / splits;
+		int ip = cOffset + start;
+		int end = cOffset + cbytes;
+		for (int s = 0; s < splits; s++) {
+			if (ip + 4 > end) {
+				return -1;
+			}
+			int length = Lz.readIntLE(c, ip);
+			ip += 4;
+			if (length < 0 || length > end - ip) {
+				return -1;
+			}
+			if (length == streamSize) {
+				System.arraycopy(c, ip, dest, destOffset, streamSize);
+			} else {
+				int n = header.getCompressorFormat() == BLOSCLZ_FORMAT
+						? BloscLz.decompress(c, ip, length, dest, destOffset, streamSize)
+						: Lz4.decompress(c, ip, length, dest, destOffset, streamSize);
+				if (n != streamSize) {
+					return -2;
+				}
+			}
+			ip += length;
+			destOffset += streamSize;
+		}
+		if (byteShuffle) {
+			Unshuffle.byteUnshuffle(typeSize, size, shuffled, 0, out, outOffset);
+		} else if (bitShuffle) {
+			Unshuffle.bitUnshuffle(typeSize, size, shuffled, 0, out, outOffset);
+		}
+		return size;
+	}
+
+	private static byte[] grow(byte[] buf, int size) {
+		return buf.length >= size ? buf : new byte[Math.max(size, buf.length * 2)];
+	}
+
+}
@@ -0,0 +1,78 @@
+package io.github.dlmarion.clowncar.pure;
+
+/**
+ * Decoder for the blosclz format of c-blosc 1.x. A control byte below 32 starts a run of
+ * {@code ctrl + 1} literals; otherwise its top three bits hold the match length minus 2, with 7
+ * meaning more length bytes follow, and its low five bits the high bits of the distance. Distances
+ * of 8192 and more use two extra bytes.
+ */
+final class BloscLz {
+
+	private static final int MAX_DISTANCE = 8191;
+
+	private BloscLz() {
+	}
+
+	/**
+	 * @return number of bytes written to {@code dst}, or -1 if the input is malformed or does not
+	 *         fit in {@code dstLength} bytes
+	 */
+	static int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+		if (srcLength == 0) {
+			return 0;
+		}
+		int ip = srcOffset;
+		int ipEnd = srcOffset + srcLength;
+		int op = dstOffset;
+		int opEnd = dstOffset + dstLength;
+		//the top bits of the first byte mark the format, it is always a literal run
+		int ctrl = src[ip++] & 31;
+		while (true) {
+			if (ctrl >= 32) {
+				int length = (ctrl >>> 5) - 1;
+				int offset = (ctrl & 31) << 8;
+				if (length == 7 - 1) {
+					int code;
+					do {
+						if (ip + 1 >= ipEnd) {
+							return -1;
+						}
+						code = src[ip++] & 0xFF;
+						length += code;
+					} while (code == 255);
+				} else if (ip + 1 >= ipEnd) {
+					return -1;
+				}
+				int code = src[ip++] & 0xFF;
+				length += 3;
+				int distance = offset + code + 1;
+				if (code == 255 && offset == (31 << 8)) {
+					if (ip + 1 >= ipEnd) {
+						return -1;
+					}
+					distance = ((src[ip] & 0xFF) << 8 | (src[ip + 1] & 0xFF)) + MAX_DISTANCE + 1;
+					ip += 2;
+				}
+				if (length > opEnd - op || distance > op - dstOffset) {
+					return -1;
+				}
+				Lz.copyMatch(dst, op, distance, length);
+				op += length;
+			} else {
+				int literals = ctrl + 1;
+				if (literals > opEnd - op || literals > ipEnd - ip) {
+					return -1;
+				}
+				System.arraycopy(src, ip, dst, op, literals);
+				ip += literals;
+				op += literals;
+			}
+			if (ip >= ipEnd) {
+				break;
+			}
+			ctrl = src[ip++] & 0xFF;
+		}
+		return op - dstOffset;
+	}
+
+}
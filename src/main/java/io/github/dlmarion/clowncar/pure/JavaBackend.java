@@ -0,0 +1,96 @@
+package io.github.dlmarion.clowncar.pure;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscBackend;
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link BloscBackend} that needs no native library, the last one {@link
+ * io.github.dlmarion.clowncar.BloscBackends} falls back to. It decompresses with {@link
+ * BloscDecoder}, so it reads the chunks c-blosc 1.x writes with blosclz, lz4 and lz4hc, and it
+ * compresses by storing the data as is, in chunks any c-blosc can read. The first compression
+ * logs a warning, writers that fall back to it do not compress.
+ */
+public class JavaBackend implements BloscBackend {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JavaBackend.class);
+	private static final AtomicBoolean WARNED = new AtomicBoolean();
+
+	private static final ThreadLocal<BloscDecoder> DECODERS = new ThreadLocal<BloscDecoder>() {
+		@Override
+		protected BloscDecoder initialValue() {
+			return new BloscDecoder();
+		}
+	};
+
+	private static final int VERSION_FORMAT = 2;
+	private static final int BLOSCLZ_VERSION_FORMAT = 1;
+	private static final int MAX_TYPE_SIZE = 255;
+
+	@Override
+	public String getName() {
+		return "java";
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return true;
+	}
+
+	@Override
+	public boolean isNative() {
+		return false;
+	}
+
+	/**
+	 * Writes the bytes of {@code src} as is, after a header flagging them as such, which is what
+	 * c-blosc writes for data it cannot compress.
+	 */
+	@Override
+	public int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		if (!WARNED.get() && WARNED.compareAndSet(false, true)) {
+			LOG.warn("Blosc frames are stored uncompressed by the {} backend, is c-blosc on the library path?", getName());
+		}
+		int nbytes = src.remaining();
+		if (nbytes > (Integer.MAX_VALUE - Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException("Source array is too large");
+		}
+		if (dst.remaining() < (nbytes + Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException("Dest array is not large enough.");
+		}
+		int p = dst.position();
+		ByteOrder order = dst.order();
+		dst.order(ByteOrder.LITTLE_ENDIAN);
+		dst.put(p, (byte) VERSION_FORMAT);
+		dst.put(p + 1, (byte) BLOSCLZ_VERSION_FORMAT);
+		dst.put(p + 2, (byte) BloscChunkHeader.MEMCPYED_FLAG);
+		dst.put(p + 3, (byte) (typeSize > MAX_TYPE_SIZE || typeSize < 1 ? 1 : typeSize));
+		dst.putInt(p + 4, nbytes);
+		dst.putInt(p + 8, nbytes);
+		dst.putInt(p + 12, nbytes + Blosc.OVERHEAD);
+		dst.order(order);
+		dst.position(p + Blosc.OVERHEAD);
+		dst.put(src.duplicate());
+		dst.position(p);
+		return nbytes + Blosc.OVERHEAD;
+	}
+
+	@Override
+	public int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		return DECODERS.get().decompress(src, dst);
+	}
+
+	@Override
+	public int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		return DECODERS.get().getItems(src, start, nitems, dst);
+	}
+
+}
@@ -0,0 +1,37 @@
+package io.github.dlmarion.clowncar.pure;
+
+/**
+ * Helpers shared by the LZ77 style decoders.
+ */
+final class Lz {
+
+	private Lz() {
+	}
+
+	static int readIntLE(byte[] buf, int index) {
+		return (buf[index] & 0xFF)
+				| (buf[index + 1] & 0xFF) << 8
+				| (buf[index + 2] & 0xFF) << 16
+				| (buf[index + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * Copies {@code length} bytes from {@code distance} bytes back, the ranges may overlap, in which
+	 * case the copied bytes repeat. The copied range doubles on each pass so that short distances do
+	 * not fall back to copying byte by byte.
+	 */
+	static void copyMatch(byte[] buf, int op, int distance, int length) {
+		int from = op - distance;
+		if (distance >= length) {
+			System.arraycopy(buf, from, buf, op, length);
+			return;
+		}
+		int end = op + length;
+		while (op < end) {
+			int n = Math.min(op - from, end - op);
+			System.arraycopy(buf, from, buf, op, n);
+			op += n;
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package io.github.dlmarion.clowncar.pure;
+
+/**
+ * Decoder for the LZ4 block format, which c-blosc writes for both lz4 and lz4hc.
+ */
+final class Lz4 {
+
+	private static final int MIN_MATCH = 4;
+
+	private Lz4() {
+	}
+
+	/**
+	 * @return number of bytes written to {@code dst}, or -1 if the input is malformed or does not
+	 *         fit in {@code dstLength} bytes
+	 */
+	static int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength) {
+		int ip = srcOffset;
+		int ipEnd = srcOffset + srcLength;
+		int op = dstOffset;
+		int opEnd = dstOffset + dstLength;
+		while (ip < ipEnd) {
+			int token = src[ip++] & 0xFF;
+			int literals = token >>> 4;
+			if (literals == 15) {
+				int b;
+				do {
+					if (ip >= ipEnd) {
+						return -1;
+					}
+					b = src[ip++] & 0xFF;
+					literals += b;
+				} while (b == 255);
+			}
+			if (literals > ipEnd - ip || literals > opEnd - op) {
+				return -1;
+			}
+			System.arraycopy(src, ip, dst, op, literals);
+			ip += literals;
+			op += literals;
+			if (ip == ipEnd) {
+				//the last sequence has no match
+				break;
+			}
+			if (ip + 2 > ipEnd) {
+				return -1;
+			}
+			int distance = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+			ip += 2;
+			if (distance == 0 || distance > op - dstOffset) {
+				return -1;
+			}
+			int length = token & 0x0F;
+			if (length == 15) {
+				int b;
+				do {
+					if (ip >= ipEnd) {
+						return -1;
+					}
+					b = src[ip++] & 0xFF;
+					length += b;
+				} while (b == 255);
+			}
+			length += MIN_MATCH;
+			if (length > opEnd - op) {
+				return -1;
+			}
+			Lz.copyMatch(dst, op, distance, length);
+			op += length;
+		}
+		return op - dstOffset;
+	}
+
+}
@@ -0,0 +1,71 @@
+package io.github.dlmarion.clowncar.pure;
+
+/**
+ * The inverse of the c-blosc byte and bit shuffle filters, for one block.
+ */
+final class Unshuffle {
+
+	private Unshuffle() {
+	}
+
+	/**
+	 * Byte shuffle stores byte {@code j} of every element together, the bytes past the last whole
+	 * element are stored as is.
+	 */
+	static void byteUnshuffle(int typeSize, int blockSize, byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+		int elements = blockSize / typeSize;
+		int d = dstOffset;
+		for (int i = 0; i < elements; i++) {
+			for (int j = 0, s = srcOffset + i; j < typeSize; j++, s += elements) {
+				dst[d++] = src[s];
+			}
+		}
+		int tail = elements * typeSize;
+		System.arraycopy(src, srcOffset + tail, dst, dstOffset + tail, blockSize - tail);
+	}
+
+	/**
+	 * Bit shuffle, as in the bitshuffle library, stores bit {@code k} of byte {@code j} of every
+	 * element together, in rows of {@code elements / 8} bytes ordered by {@code j} then {@code k}.
+	 * Blocks whose number of elements is not a multiple of 8 are stored as is. Eight bytes, one from
+	 * each of the rows of a byte, are gathered into a long and transposed as an 8x8 bit matrix,
+	 * which gives byte {@code j} of eight consecutive elements.
+	 */
+	static void bitUnshuffle(int typeSize, int blockSize, byte[] src, int srcOffset, byte[] dst, int dstOffset) {
+		int elements = blockSize / typeSize;
+		if (elements % 8 != 0) {
+			System.arraycopy(src, srcOffset, dst, dstOffset, blockSize);
+			return;
+		}
+		int row = elements / 8;
+		for (int j = 0; j < typeSize; j++) {
+			int rows = srcOffset + j * 8 * row;
+			for (int m = 0; m < row; m++) {
+				long x = 0;
+				for (int k = 0, s = rows + m; k < 8; k++, s += row) {
+					x |= (src[s] & 0xFFL) << (8 * k);
+				}
+				x = transpose(x);
+				for (int b = 0, d = dstOffset + 8 * m * typeSize + j; b < 8; b++, d += typeSize) {
+					dst[d] = (byte) (x >>> (8 * b));
+				}
+			}
+		}
+		int tail = elements * typeSize;
+		System.arraycopy(src, srcOffset + tail, dst, dstOffset + tail, blockSize - tail);
+	}
+
+	/**
+	 * Transposes the 8x8 bit matrix whose rows are the bytes of {@code x}, lowest first, so bit
+	 * {@code b} of byte {@code k} becomes bit {@code k} of byte {@code b}.
+	 */
+	static long transpose(long x) {
+		long t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+		x = x ^ t ^ (t << 7);
+		t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+		x = x ^ t ^ (t << 14);
+		t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+		return x ^ t ^ (t << 28);
+	}
+
+}
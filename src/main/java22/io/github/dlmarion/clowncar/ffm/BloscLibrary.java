@@ -0,0 +1,137 @@
+package io.github.dlmarion.clowncar.ffm;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * c-blosc 1.x through {@code java.lang.foreign} downcall handles. The calls are critical, so heap
+ * segments, including those of heap {@code ByteBuffer}s, are passed to c-blosc without a copy, and
+ * no Java object is allocated per call. Garbage collection waits for a critical call to return,
+ * which is short for the frame sizes this library writes.
+ * <p>
+ * Only in the Java 22 classes of the multi-release jar, see {@link FfmSupport}. Needs a 64 bit JVM.
+ */
+public class BloscLibrary {
+
+	private static final MethodHandle COMPRESS;
+	private static final MethodHandle DECOMPRESS;
+	private static final MethodHandle GETITEM;
+
+	/* Null terminated compressor names in native memory, so that calls do not marshal a String */
+	private static final Map<BloscCompressorType, MemorySegment> COMPRESSOR_NAMES = new EnumMap<>(BloscCompressorType.class);
+
+	static {
+		if (ADDRESS.byteSize() != Long.BYTES) {
+			throw new UnsupportedOperationException("size_t is not 64 bits wide");
+		}
+		Linker linker = Linker.nativeLinker();
+		SymbolLookup blosc = SymbolLookup.libraryLookup(System.mapLibraryName("blosc"), Arena.global());
+		Linker.Option critical = Linker.Option.critical(true);
+		COMPRESS = linker.downcallHandle(blosc.find("blosc_compress_ctx").orElseThrow(),
+				FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT, JAVA_LONG, JAVA_LONG, ADDRESS, ADDRESS, JAVA_LONG, ADDRESS, JAVA_LONG, JAVA_INT),
+				critical);
+		DECOMPRESS = linker.downcallHandle(blosc.find("blosc_decompress_ctx").orElseThrow(),
+				FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_LONG, JAVA_INT),
+				critical);
+		GETITEM = linker.downcallHandle(blosc.find("blosc_getitem").orElseThrow(),
+				FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, JAVA_INT, ADDRESS),
+				critical);
+		for (BloscCompressorType type : BloscCompressorType.values()) {
+			COMPRESSOR_NAMES.put(type, Arena.global().allocateFrom(type.getCompressorName()));
+		}
+	}
+
+	/**
+	 * Compresses all of {@code src} into {@code dest}.
+	 *
+	 * @return number of bytes written to {@code dest}
+	 */
+	public static int compress(int compressionLevel, int shuffleType, int typeSize, MemorySegment src, MemorySegment dest,
+			BloscCompressorType compressor, int blockSize, int numThreads) {
+		if (src.byteSize() > (Integer.MAX_VALUE - Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException("Source array is too large");
+		}
+		if (dest.byteSize() < (src.byteSize() + Blosc.OVERHEAD)) {
+			throw new IllegalArgumentException("Dest array is not large enough.");
+		}
+		int w;
+		try {
+			w = (int) COMPRESS.invokeExact(compressionLevel, shuffleType, (long) typeSize, src.byteSize(), src, dest, dest.byteSize(),
+					COMPRESSOR_NAMES.get(compressor), (long) blockSize, numThreads);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+		if (w == 0) {
+			throw new RuntimeException("Compressed size larger then dest length");
+		}
+		if (w == -1) {
+			throw new RuntimeException("Error compressing data: src: " + src + ", dst: " + dest);
+		}
+		return w;
+	}
+
+	/**
+	 * Compresses {@code srcLength} bytes at native address {@code src}.
+	 */
+	public static int compress(int compressionLevel, int shuffleType, int typeSize, long src, long srcLength, long dest, long destLength,
+			BloscCompressorType compressor, int blockSize, int numThreads) {
+		return compress(compressionLevel, shuffleType, typeSize, MemorySegment.ofAddress(src).reinterpret(srcLength),
+				MemorySegment.ofAddress(dest).reinterpret(destLength), compressor, blockSize, numThreads);
+	}
+
+	/**
+	 * Decompresses the chunk at the start of {@code src}, writing at most {@code dest.byteSize()} bytes.
+	 *
+	 * @return number of bytes written to {@code dest}, or a negative Blosc error code
+	 */
+	public static int decompress(MemorySegment src, MemorySegment dest, int numThreads) {
+		try {
+			return (int) DECOMPRESS.invokeExact(src, dest, dest.byteSize(), numThreads);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * Decompresses the chunk at native address {@code src}, which c-blosc reads up to the size in
+	 * its header.
+	 */
+	public static int decompress(long src, long dest, long destLength, int numThreads) {
+		return decompress(MemorySegment.ofAddress(src), MemorySegment.ofAddress(dest).reinterpret(destLength), numThreads);
+	}
+
+	/**
+	 * Decompresses {@code nitems} items starting at item {@code start}, only the blocks holding
+	 * them are decompressed. {@code dest} must hold {@code nitems} times the type size of the chunk.
+	 */
+	public static int getItem(MemorySegment src, int start, int nitems, MemorySegment dest) {
+		try {
+			return (int) GETITEM.invokeExact(src, start, nitems, dest);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		}
+		if (t instanceof Error) {
+			throw (Error) t;
+		}
+		return new RuntimeException(t);
+	}
+
+}
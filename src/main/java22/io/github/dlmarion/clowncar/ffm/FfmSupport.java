@@ -0,0 +1,61 @@
+package io.github.dlmarion.clowncar.ffm;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Entry point to the {@code java.lang.foreign} binding, the Java 22 version of the class. The
+ * binding is available when c-blosc can be loaded on a 64 bit JVM. Run with
+ * {@code --enable-native-access=ALL-UNNAMED} to avoid the warning the JVM prints on first use.
+ * <p>
+ * Heap and direct buffers are both passed without a copy and without slicing, the segments start
+ * at the buffer positions.
+ */
+public class FfmSupport {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FfmSupport.class);
+	private static final boolean AVAILABLE = load();
+
+	private static boolean load() {
+		try {
+			//runs the static initializer, which looks up every symbol
+			Class.forName(BloscLibrary.class.getName(), true, FfmSupport.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError | RuntimeException e) {
+			LOG.debug("java.lang.foreign binding is not available", e);
+			return false;
+		}
+	}
+
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	public static int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+		checkAvailable();
+		return BloscLibrary.compress(compressionLevel, shuffleType, typeSize, MemorySegment.ofBuffer(src), MemorySegment.ofBuffer(dst),
+				compressor, blockSize, numThreads);
+	}
+
+	public static int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+		checkAvailable();
+		return BloscLibrary.decompress(MemorySegment.ofBuffer(src), MemorySegment.ofBuffer(dst), numThreads);
+	}
+
+	public static int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+		checkAvailable();
+		return BloscLibrary.getItem(MemorySegment.ofBuffer(src), start, nitems, MemorySegment.ofBuffer(dst));
+	}
+
+	private static void checkAvailable() {
+		if (!AVAILABLE) {
+			throw new IllegalStateException("The java.lang.foreign binding is not available");
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscBackendsTest {
+
+	private static ByteBuffer data(int size) {
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		for (int i = 0; i < size / Long.BYTES; i++) {
+			buf.putLong(i * 5L);
+		}
+		buf.flip();
+		return buf;
+	}
+
+	private static List<String> names(List<BloscBackend> backends) {
+		List<String> names = new ArrayList<>();
+		for (BloscBackend backend : backends) {
+			names.add(backend.getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void testServiceLoader() {
+		Assert.assertEquals(Arrays.asList("ffm", "jnr", "jna", "java"), names(BloscBackends.getBackends()));
+		List<String> available = names(BloscBackends.getAvailable());
+		//both need c-blosc on the library path
+		Assert.assertEquals(available.contains("jna"), available.contains("jnr"));
+		Assert.assertEquals("java", available.get(available.size() - 1));
+		Assert.assertTrue(BloscBackends.getDefault().isAvailable());
+		Assert.assertEquals(BloscBackends.getAvailable().get(0), BloscBackends.get(BloscBackends.AUTO));
+		Assert.assertSame(BloscBackends.getDefault(), BloscBackends.get(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownBackend() {
+		BloscBackends.get("lz4-java");
+	}
+
+	@Test
+	public void testUnavailableBackend() {
+		BloscBackend ffm = null;
+		for (BloscBackend backend : BloscBackends.getBackends()) {
+			if (backend.getName().equals("ffm")) {
+				ffm = backend;
+			}
+		}
+		Assert.assertNotNull(ffm);
+		if (!ffm.isAvailable()) {
+			try {
+				BloscBackends.get("ffm");
+				Assert.fail("ffm is not available");
+			} catch (IllegalStateException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void testCalibrate() {
+		BloscBackend fastest = BloscBackends.calibrate(BloscBackends.getAvailable());
+		Assert.assertTrue(fastest.isAvailable());
+		//java is only a candidate when no native backend is available
+		boolean nativeAvailable = false;
+		for (BloscBackend backend : BloscBackends.getAvailable()) {
+			nativeAvailable |= backend.isNative();
+		}
+		Assert.assertEquals(nativeAvailable, BloscBackends.get(BloscBackends.CALIBRATE).isNative());
+		Assert.assertSame(BloscBackends.get(BloscBackends.CALIBRATE), BloscBackends.get(BloscBackends.CALIBRATE));
+	}
+
+	@Test
+	public void testCalibrateWithoutNativeBackend() {
+		BloscBackend java = BloscBackends.get("java");
+		Assert.assertSame(java, BloscBackends.calibrateNative(Arrays.asList(java)));
+		//a native backend that is available but fails every call, like a binding without c-blosc
+		BloscBackend failing = new BloscBackend() {
+			@Override
+			public String getName() {
+				return "failing";
+			}
+
+			@Override
+			public boolean isAvailable() {
+				return true;
+			}
+
+			@Override
+			public int compress(int compressionLevel, int shuffleType, int typeSize, ByteBuffer src, ByteBuffer dst, BloscCompressorType compressor, int blockSize, int numThreads) {
+				throw new UnsatisfiedLinkError("blosc");
+			}
+
+			@Override
+			public int decompress(ByteBuffer src, ByteBuffer dst, int numThreads) {
+				throw new UnsatisfiedLinkError("blosc");
+			}
+
+			@Override
+			public int getItem(ByteBuffer src, int start, int nitems, ByteBuffer dst) {
+				throw new UnsatisfiedLinkError("blosc");
+			}
+		};
+		Assert.assertSame(java, BloscBackends.calibrateNative(Arrays.asList(failing, java)));
+		try {
+			BloscBackends.calibrateNative(Arrays.asList(failing));
+			Assert.fail("no backend left");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (BloscBackend backend : BloscBackends.getAvailable()) {
+			for (boolean direct : new boolean[] { false, true }) {
+				ByteBuffer src = data(32 * 1024);
+				ByteBuffer compressed = direct ? ByteBuffer.allocateDirect(10 + src.remaining() + Blosc.MAX_OVERHEAD)
+						: ByteBuffer.allocate(10 + src.remaining() + Blosc.MAX_OVERHEAD);
+				ByteBuffer dst = direct ? ByteBuffer.allocateDirect(src.remaining()) : ByteBuffer.allocate(src.remaining());
+				compressed.position(10);
+				int w = backend.compress(5, BloscShuffleType.BYTE_SHUFFLE.getShuffleType(), Long.BYTES, src, compressed, BloscCompressorType.LZ4, 0, 1);
+				Assert.assertEquals(0, src.position());
+				Assert.assertEquals(10, compressed.position());
+				compressed.limit(10 + w);
+				BloscChunkHeader header = backend.readHeader(compressed);
+				Assert.assertEquals(src.remaining(), header.getUncompressedSize());
+				Assert.assertEquals(w, header.getCompressedSize());
+				Assert.assertEquals(backend.getName(), src.remaining(), backend.decompress(compressed, dst, 1));
+				Assert.assertEquals(backend.getName(), src, dst);
+
+				ByteBuffer items = ByteBuffer.allocate(3 * Long.BYTES);
+				Assert.assertEquals(items.capacity(), backend.getItem(compressed, 100, 3, items));
+				Assert.assertEquals(500L, items.getLong(0));
+				Assert.assertEquals(510L, items.getLong(2 * Long.BYTES));
+			}
+		}
+	}
+
+	@Test
+	public void testContextWithBackend() {
+		for (BloscBackend backend : BloscBackends.getAvailable()) {
+			ByteBuffer src = data(8192);
+			ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+			ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+			try (PerCallBloscContext ctx = new PerCallBloscContext(backend, BloscCompressorType.LZ4, 5, BloscShuffleType.BIT_SHUFFLE, 0, 1)) {
+				Assert.assertSame(backend, ctx.getBackend());
+				compressed.limit(ctx.compress(src, Long.BYTES, compressed));
+				Assert.assertEquals(src.remaining(), ctx.decompress(compressed, dst));
+				Assert.assertEquals(src, dst);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscBufferPoolTest {
+
+	@Test
+	public void testSizeClasses() {
+		BloscBufferPool pool = new BloscBufferPool(1024 * 1024);
+		Assert.assertEquals(4096, pool.acquire(0).capacity());
+		Assert.assertEquals(4096, pool.acquire(4096).capacity());
+		Assert.assertEquals(8192, pool.acquire(4097).capacity());
+		Assert.assertEquals(64 * 1024, pool.acquire(64 * 1024).capacity());
+		Assert.assertEquals(128 * 1024, pool.acquire(64 * 1024 + 16).capacity());
+		//larger than the largest size class
+		Assert.assertEquals(64 * 1024 * 1024 + 1, pool.acquire(64 * 1024 * 1024 + 1).capacity());
+		Assert.assertTrue(pool.acquire(100).isDirect());
+	}
+
+	@Test
+	public void testReuse() {
+		BloscBufferPool pool = new BloscBufferPool(1024 * 1024);
+		ByteBuffer first = pool.acquire(10000);
+		first.position(100);
+		Assert.assertEquals(16384, pool.getLeasedBytes());
+		pool.release(first);
+		Assert.assertEquals(0, pool.getLeasedBytes());
+		Assert.assertEquals(16384, pool.getPooledBytes());
+		ByteBuffer second = pool.acquire(16000);
+		Assert.assertSame(first, second);
+		Assert.assertEquals(0, second.position());
+		Assert.assertEquals(second.capacity(), second.limit());
+		Assert.assertEquals(1, pool.getAllocationCount());
+		Assert.assertEquals(1, pool.getReuseCount());
+		Assert.assertEquals(0, pool.getPooledBytes());
+		Assert.assertEquals(16384, pool.getHighWaterBytes());
+	}
+
+	@Test
+	public void testMaxPooledBytes() {
+		BloscBufferPool pool = new BloscBufferPool(8192);
+		ByteBuffer a = pool.acquire(4096);
+		ByteBuffer b = pool.acquire(4096);
+		ByteBuffer c = pool.acquire(4096);
+		Assert.assertEquals(3 * 4096, pool.getHighWaterBytes());
+		pool.release(a);
+		pool.release(b);
+		//over the limit, left to the garbage collector
+		pool.release(c);
+		Assert.assertEquals(8192, pool.getPooledBytes());
+		Assert.assertEquals(0, pool.getLeasedBytes());
+		Assert.assertEquals(3 * 4096, pool.getHighWaterBytes());
+	}
+
+	@Test
+	public void testForeignBuffersAreNotPooled() {
+		BloscBufferPool pool = new BloscBufferPool(1024 * 1024);
+		pool.release(ByteBuffer.allocateDirect(5000));
+		pool.release(ByteBuffer.allocate(4096));
+		Assert.assertEquals(0, pool.getPooledBytes());
+	}
+
+}
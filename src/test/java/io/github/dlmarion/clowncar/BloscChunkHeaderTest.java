@@ -0,0 +1,84 @@
+package io.github.dlmarion.clowncar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscChunkHeaderTest {
+
+	private static ByteBuffer compress(int size, int typeSize) {
+		ByteBuffer src = ByteBuffer.allocateDirect(size);
+		for (int i = 0; i < size; i++) {
+			src.put((byte) (i % 7));
+		}
+		src.flip();
+		ByteBuffer dst = ByteBuffer.allocateDirect(size + Blosc.MAX_OVERHEAD);
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1)) {
+			dst.limit(ctx.compress(src, typeSize, dst));
+		}
+		return dst;
+	}
+
+	private static void assertRejected(ByteBuffer chunk) {
+		try {
+			BloscChunkHeader.parse(chunk);
+			Assert.fail("expected the header to be rejected");
+		} catch (IOException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testRead() throws Exception {
+		ByteBuffer chunk = compress(10000, Integer.BYTES);
+		chunk.position(0);
+		BloscChunkHeader header = BloscChunkHeader.parse(chunk);
+		Assert.assertEquals(0, chunk.position());
+		Assert.assertTrue(header.getVersion() > 0);
+		Assert.assertEquals(Integer.BYTES, header.getTypeSize());
+		Assert.assertEquals(10000, header.getUncompressedSize());
+		Assert.assertEquals(chunk.limit(), header.getCompressedSize());
+		Assert.assertTrue(header.getBlockSize() > 0);
+		Assert.assertTrue(header.getCompressedSize() >= header.getHeaderLength());
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		ByteBuffer first = compress(1000, Long.BYTES);
+		ByteBuffer second = compress(3000, 1);
+		//two chunks back to back, split without decompressing
+		ByteBuffer both = ByteBuffer.allocate(first.remaining() + second.remaining());
+		both.put(first.duplicate()).put(second.duplicate()).flip();
+		BloscChunkHeader header = new BloscChunkHeader();
+		Assert.assertEquals(1000, header.read(both).getUncompressedSize());
+		Assert.assertEquals(Long.BYTES, header.getTypeSize());
+		both.position(both.position() + header.getCompressedSize());
+		Assert.assertEquals(3000, header.read(both).getUncompressedSize());
+		Assert.assertEquals(1, header.getTypeSize());
+		Assert.assertEquals(both.remaining(), header.getCompressedSize());
+	}
+
+	@Test
+	public void testCorrupt() {
+		ByteBuffer chunk = compress(1000, Long.BYTES);
+		ByteBuffer truncated = chunk.duplicate();
+		truncated.limit(BloscChunkHeader.LENGTH - 1);
+		assertRejected(truncated);
+
+		ByteBuffer zeros = ByteBuffer.allocate(BloscChunkHeader.LENGTH);
+		assertRejected(zeros);
+
+		ByteBuffer negative = ByteBuffer.allocate(chunk.remaining());
+		negative.put(chunk.duplicate()).flip();
+		negative.put(7, (byte) 0x80);
+		assertRejected(negative);
+
+		ByteBuffer tooLarge = ByteBuffer.allocate(chunk.remaining());
+		tooLarge.put(chunk.duplicate()).flip();
+		tooLarge.putInt(12, Integer.reverseBytes(1000 + 2 * Blosc.MAX_OVERHEAD));
+		assertRejected(tooLarge);
+	}
+
+}
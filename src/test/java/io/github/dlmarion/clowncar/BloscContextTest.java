@@ -0,0 +1,98 @@
+package io.github.dlmarion.clowncar;
+
+import io.github.dlmarion.clowncar.jna.Blosc2Context;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class BloscContextTest {
+
+	private static ByteBuffer data(int size) {
+		ByteBuffer buf = ByteBuffer.allocateDirect(size);
+		for (int i = 0; i < size / Long.BYTES; i++) {
+			buf.putLong(i * 3L);
+		}
+		buf.flip();
+		return buf;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		ByteBuffer src = data(64 * 1024);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1);
+				BloscContext dctx = BloscContext.create(1)) {
+			//the same contexts are reused for every call
+			for (int i = 0; i < 3; i++) {
+				int w = ctx.compress(src, Long.BYTES, compressed);
+				Assert.assertTrue(w > 0);
+				Assert.assertEquals(0, src.position());
+				Assert.assertEquals(0, compressed.position());
+				compressed.limit(w);
+				Assert.assertEquals(src.remaining(), dctx.decompress(compressed, dst));
+				Assert.assertEquals(src, dst);
+				compressed.clear();
+				dst.clear();
+			}
+		}
+	}
+
+	@Test
+	public void testPositionedBuffers() {
+		ByteBuffer src = data(4096);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(100 + src.remaining() + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(50 + src.remaining());
+		src.position(Long.BYTES);
+		compressed.position(100);
+		dst.position(50);
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.ZSTD, 5, BloscShuffleType.NO_SHUFFLE, 0, 1)) {
+			int w = ctx.compress(src, Long.BYTES, compressed);
+			compressed.limit(100 + w);
+			Assert.assertEquals(src.remaining(), ctx.decompress(compressed, dst));
+			Assert.assertEquals(100, compressed.position());
+			Assert.assertEquals(50, dst.position());
+			dst.limit(50 + src.remaining());
+			Assert.assertEquals(src, dst);
+		}
+	}
+
+	@Test
+	public void testGetItems() {
+		ByteBuffer src = data(64 * 1024);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(100 * Long.BYTES);
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 4096, 1)) {
+			compressed.limit(ctx.compress(src, Long.BYTES, compressed));
+			//spans a block boundary
+			Assert.assertEquals(dst.remaining(), ctx.getItems(compressed, 480, 100, dst));
+			Assert.assertEquals(0, dst.position());
+			for (int i = 0; i < 100; i++) {
+				Assert.assertEquals((480 + i) * 3L, dst.getLong(i * Long.BYTES));
+			}
+			try {
+				ctx.getItems(compressed, 0, 101, dst);
+				Assert.fail("expected the destination to be too small");
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDecompressOnly() {
+		try (BloscContext ctx = BloscContext.create(1)) {
+			ctx.compress(data(1024), Long.BYTES, ByteBuffer.allocateDirect(2048));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNativeDeltaNeedsBlosc2() {
+		Assume.assumeFalse(Blosc2Context.isAvailable());
+		BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1, true);
+	}
+
+}
@@ -0,0 +1,77 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscPrefilterTest {
+
+	private final Random rand = new Random(98230598235L);
+
+	private ByteBuffer randomBuffer(int size) {
+		byte[] b = new byte[size];
+		rand.nextBytes(b);
+		ByteBuffer buf = ByteBuffer.allocateDirect(size);
+		buf.put(b);
+		buf.flip();
+		return buf;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		for (BloscPrefilter prefilter : BloscPrefilter.values()) {
+			for (int typeSize : new int[] {Integer.BYTES, Long.BYTES}) {
+				//a partial element at the end and a buffer that does not start at 0
+				ByteBuffer buf = randomBuffer(1000 * typeSize + 3);
+				buf.position(5);
+				ByteBuffer copy = ByteBuffer.allocateDirect(buf.capacity());
+				ByteBuffer all = buf.duplicate();
+				all.position(0);
+				copy.put(all);
+				copy.flip();
+				copy.position(5);
+				prefilter.encode(buf, typeSize);
+				Assert.assertEquals(5, buf.position());
+				if (prefilter.isJava()) {
+					Assert.assertNotEquals(prefilter + "/" + typeSize, copy, buf);
+				}
+				prefilter.decode(buf, typeSize);
+				Assert.assertEquals(5, buf.position());
+				Assert.assertEquals(prefilter + "/" + typeSize, copy, buf);
+			}
+		}
+	}
+
+	@Test
+	public void testTimestamps() {
+		ByteBuffer buf = ByteBuffer.allocateDirect(Long.BYTES * 1440);
+		long time = System.currentTimeMillis();
+		for (int i = 0; i < 1440; i++) {
+			buf.putLong(time + i * 60000L);
+		}
+		buf.flip();
+		BloscPrefilter.DELTA_OF_DELTA.encode(buf, Long.BYTES);
+		Assert.assertEquals(time, buf.getLong(0));
+		Assert.assertEquals(60000L, buf.getLong(Long.BYTES));
+		for (int i = 2; i < 1440; i++) {
+			Assert.assertEquals(0L, buf.getLong(i * Long.BYTES));
+		}
+		BloscPrefilter.DELTA_OF_DELTA.decode(buf, Long.BYTES);
+		Assert.assertEquals(time + 1439 * 60000L, buf.getLong(1439 * Long.BYTES));
+	}
+
+	@Test
+	public void testNames() {
+		for (BloscPrefilter prefilter : BloscPrefilter.values()) {
+			Assert.assertSame(prefilter, BloscPrefilter.getPrefilter(prefilter.getPrefilterName()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTypeSize() {
+		BloscPrefilter.XOR.checkTypeSize(2);
+	}
+
+}
@@ -0,0 +1,129 @@
+package io.github.dlmarion.clowncar;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscThreadGovernorTest {
+
+	private static final long LARGE = 1024 * 1024;
+
+	@Test
+	public void testSmallCalls() {
+		BloscThreadGovernor governor = new BloscThreadGovernor(8, 8);
+		int threads = governor.acquire(4, 1024);
+		Assert.assertEquals(1, threads);
+		Assert.assertEquals(0, governor.getWorkers());
+		governor.release(threads);
+		threads = governor.acquire(4, 2 * BloscThreadGovernor.BYTES_PER_THREAD);
+		Assert.assertEquals(2, threads);
+		governor.release(threads);
+		Assert.assertEquals(2, governor.getCallCount());
+		Assert.assertEquals(2, governor.getReducedCallCount());
+		Assert.assertEquals(8, governor.getRequestedThreads());
+		Assert.assertEquals(3, governor.getGrantedThreads());
+	}
+
+	@Test
+	public void testBudget() {
+		BloscThreadGovernor governor = new BloscThreadGovernor(6, 64);
+		int first = governor.acquire(4, LARGE);
+		int second = governor.acquire(4, LARGE);
+		int third = governor.acquire(4, LARGE);
+		Assert.assertEquals(4, first);
+		Assert.assertEquals(2, second);
+		//one thread left, the call runs in the calling thread
+		Assert.assertEquals(1, third);
+		Assert.assertEquals(6, governor.getWorkers());
+		Assert.assertEquals(3, governor.getCallsInFlight());
+		governor.release(first);
+		Assert.assertEquals(4, governor.acquire(4, LARGE));
+		governor.release(4);
+		governor.release(second);
+		governor.release(third);
+		Assert.assertEquals(0, governor.getWorkers());
+		Assert.assertEquals(0, governor.getCallsInFlight());
+		Assert.assertEquals(6, governor.getPeakWorkers());
+		Assert.assertEquals(2, governor.getReducedCallCount());
+	}
+
+	@Test
+	public void testCallsShareCores() {
+		BloscThreadGovernor governor = new BloscThreadGovernor(100, 4);
+		Assert.assertEquals(4, governor.acquire(8, LARGE));
+		Assert.assertEquals(2, governor.acquire(8, LARGE));
+		Assert.assertEquals(1, governor.acquire(8, LARGE));
+		Assert.assertEquals(3, governor.getCallsInFlight());
+	}
+
+	@Test
+	public void testOff() {
+		BloscThreadGovernor governor = new BloscThreadGovernor(0, 4);
+		Assert.assertEquals(16, governor.acquire(16, 10));
+		Assert.assertEquals(0, governor.getWorkers());
+		governor.release(16);
+		Assert.assertEquals(0, governor.getWorkers());
+		Assert.assertEquals(0, governor.getReducedCallCount());
+		Assert.assertEquals(1, governor.acquire(0, LARGE));
+	}
+
+	@Test
+	public void testConcurrentCalls() throws Exception {
+		final BloscThreadGovernor governor = new BloscThreadGovernor(8, 64);
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<>();
+		final List<Throwable> errors = new ArrayList<>();
+		for (int t = 0; t < 16; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < 10000; i++) {
+						int granted = governor.acquire(4, LARGE);
+						if (governor.getWorkers() > 8) {
+							throw new AssertionError("Over budget: " + governor);
+						}
+						governor.release(granted);
+					}
+				} catch (Throwable e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assert.assertEquals(errors.toString(), 0, errors.size());
+		Assert.assertEquals(0, governor.getWorkers());
+		Assert.assertEquals(0, governor.getCallsInFlight());
+		Assert.assertTrue(governor.getPeakWorkers() <= 8);
+		Assert.assertEquals(160000, governor.getCallCount());
+	}
+
+	@Test
+	public void testContextCalls() {
+		BloscThreadGovernor shared = BloscThreadGovernor.getShared();
+		long calls = shared.getCallCount();
+		long requested = shared.getRequestedThreads();
+		long granted = shared.getGrantedThreads();
+		ByteBuffer src = ByteBuffer.allocateDirect(8192);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+		try (PerCallBloscContext ctx = new PerCallBloscContext(BloscBackends.get("jnr"), BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 4)) {
+			compressed.limit(ctx.compress(src, Long.BYTES, compressed));
+		}
+		Assert.assertEquals(calls + 1, shared.getCallCount());
+		Assert.assertEquals(requested + 4, shared.getRequestedThreads());
+		//8 KB is too small for more than one thread
+		Assert.assertEquals(granted + 1, shared.getGrantedThreads());
+		Assert.assertEquals(0, shared.getCallsInFlight());
+	}
+
+}
@@ -0,0 +1,105 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.CompressorStream;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the steady state of the hdfs compressor and decompressor against per call heap allocation.
+ */
+public class TestBloscAllocation {
+
+	private static final int ITERATIONS = 1000;
+	private static final int CHUNK = 16 * 1024;
+	/* allowance for the measurement itself and any lazily initialized JDK internals */
+	private static final long MAX_ALLOCATED = 8 * 1024;
+	/* jnr marshals calls with more than six arguments, like blosc_compress_ctx, through a small heap invocation buffer */
+	private static final long MAX_ALLOCATED_PER_COMPRESS = 256;
+
+	private com.sun.management.ThreadMXBean threads;
+	private byte[] input;
+	private Configuration conf;
+
+	@Before
+	public void setup() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		input = TestBloscCompressorDecompressor.generate(CHUNK);
+		conf = new Configuration(false);
+		conf.set(BloscCompressor.COMPRESSOR_NAME_KEY, "lz4");
+		conf.set(BloscCompressor.NUM_THREADS_KEY, "1");
+		conf.set(BloscDecompressor.NUM_THREADS_KEY, "1");
+	}
+
+	private long allocated() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	@Test
+	public void testCompressorStreamSteadyState() throws Exception {
+		CompressorStream stream = new CompressorStream(new NullOutputStream(), new BloscCompressor(conf), 2 * CHUNK);
+		for (int i = 0; i < ITERATIONS; i++) {
+			writeChunk(stream);
+		}
+		long before = allocated();
+		for (int i = 0; i < ITERATIONS; i++) {
+			writeChunk(stream);
+		}
+		long used = allocated() - before;
+		Assert.assertTrue("compressor allocated " + used + " bytes over " + ITERATIONS + " chunks",
+				used < MAX_ALLOCATED + ITERATIONS * MAX_ALLOCATED_PER_COMPRESS);
+	}
+
+	private void writeChunk(CompressorStream stream) throws IOException {
+		stream.write(input, 0, input.length);
+		stream.finish();
+		stream.resetState();
+	}
+
+	@Test
+	public void testDecompressorSteadyState() throws Exception {
+		BloscCompressor compressor = new BloscCompressor(conf);
+		byte[] compressed = new byte[2 * CHUNK];
+		compressor.setInput(input, 0, input.length);
+		int cSize = compressor.compress(compressed, 0, compressed.length);
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		byte[] output = new byte[CHUNK];
+		for (int i = 0; i < ITERATIONS; i++) {
+			readChunk(decompressor, compressed, cSize, output);
+		}
+		long before = allocated();
+		for (int i = 0; i < ITERATIONS; i++) {
+			readChunk(decompressor, compressed, cSize, output);
+		}
+		long used = allocated() - before;
+		Assert.assertTrue("decompressor allocated " + used + " bytes over " + ITERATIONS + " chunks", used < MAX_ALLOCATED);
+		Assert.assertArrayEquals(input, output);
+	}
+
+	private void readChunk(BloscDecompressor decompressor, byte[] compressed, int cSize, byte[] output) throws IOException {
+		decompressor.setInput(compressed, 0, cSize);
+		decompressor.decompress(output, 0, output.length);
+		decompressor.reset();
+	}
+
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import io.github.dlmarion.clowncar.BloscBufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBloscCodecPool {
+
+	private Configuration conf;
+	private BloscCodec codec;
+
+	@Before
+	public void setup() {
+		conf = new Configuration(false);
+		conf.set(BloscCompressor.COMPRESSOR_NAME_KEY, "lz4");
+		conf.setInt(BloscCompressor.NUM_THREADS_KEY, 1);
+		codec = new BloscCodec();
+		codec.setConf(conf);
+	}
+
+	private byte[] roundTrip(byte[] input) throws IOException {
+		Compressor compressor = CodecPool.getCompressor(codec, conf);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (OutputStream out = codec.createOutputStream(baos, compressor)) {
+			out.write(input);
+		} finally {
+			CodecPool.returnCompressor(compressor);
+		}
+		Decompressor decompressor = CodecPool.getDecompressor(codec);
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = codec.createInputStream(new ByteArrayInputStream(baos.toByteArray()), decompressor)) {
+			byte[] b = new byte[4096];
+			int n;
+			while ((n = in.read(b)) > 0) {
+				result.write(b, 0, n);
+			}
+		} finally {
+			CodecPool.returnDecompressor(decompressor);
+		}
+		return result.toByteArray();
+	}
+
+	@Test
+	public void testPooledInstancesAreReused() throws Exception {
+		byte[] input = TestBloscCompressorDecompressor.generate(200 * 1024);
+		Assert.assertArrayEquals(input, roundTrip(input));
+
+		Compressor compressor = CodecPool.getCompressor(codec, conf);
+		CodecPool.returnCompressor(compressor);
+		Assert.assertSame(compressor, CodecPool.getCompressor(codec, conf));
+		CodecPool.returnCompressor(compressor);
+		Decompressor decompressor = CodecPool.getDecompressor(codec);
+		CodecPool.returnDecompressor(decompressor);
+		Assert.assertSame(decompressor, CodecPool.getDecompressor(codec));
+		CodecPool.returnDecompressor(decompressor);
+
+		//the reused instances start from a clean state
+		byte[] other = TestBloscCompressorDecompressor.generate(100 * 1024);
+		Assert.assertArrayEquals(other, roundTrip(other));
+	}
+
+	@Test
+	public void testReinitChangesBufferSize() throws Exception {
+		BloscCompressor compressor = new BloscCompressor(conf);
+		Configuration larger = new Configuration(conf);
+		larger.setInt(BloscCompressor.BUFFER_SIZE_KEY, 256 * 1024);
+		compressor.reinit(larger);
+		byte[] input = TestBloscCompressorDecompressor.generate(300 * 1024);
+		compressor.setInput(input, 0, input.length);
+		Assert.assertTrue(compressor.needsInput());
+		compressor.reinit(null);
+		Assert.assertEquals(0, compressor.getBytesRead());
+		compressor.end();
+	}
+
+	@Test
+	public void testEndReleasesBuffers() {
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		long leased = pool.getLeasedBytes();
+		BloscCompressor compressor = new BloscCompressor(conf);
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		Assert.assertTrue(pool.getLeasedBytes() > leased);
+		compressor.end();
+		decompressor.end();
+		//ending twice is harmless
+		compressor.end();
+		decompressor.end();
+		Assert.assertEquals(leased, pool.getLeasedBytes());
+		try {
+			compressor.setInput(new byte[10], 0, 10);
+			Assert.fail("expected the ended compressor to be rejected");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+	}
+
+	@Test
+	public void testCodecStreamsReleaseBuffers() throws Exception {
+		BloscBufferPool pool = BloscBufferPool.getShared();
+		long leased = pool.getLeasedBytes();
+		byte[] input = TestBloscCompressorDecompressor.generate(100 * 1024);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (OutputStream out = codec.createOutputStream(baos)) {
+			out.write(input);
+			Assert.assertTrue(pool.getLeasedBytes() > leased);
+		}
+		Assert.assertEquals(leased, pool.getLeasedBytes());
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = codec.createInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+			Assert.assertTrue(pool.getLeasedBytes() > leased);
+			byte[] b = new byte[4096];
+			int n;
+			while ((n = in.read(b)) > 0) {
+				result.write(b, 0, n);
+			}
+		}
+		Assert.assertEquals(leased, pool.getLeasedBytes());
+		Assert.assertArrayEquals(input, result.toByteArray());
+	}
+
+	@Test
+	public void testPrefilter() throws Exception {
+		conf.set(BloscCompressor.PREFILTER_KEY, "delta-of-delta");
+		//a partial element at the end of the stream
+		byte[] input = TestBloscCompressorDecompressor.generate(200 * 1024 + 5);
+		//not pooled, pooled decompressors keep the prefilter they were created with
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (OutputStream out = codec.createOutputStream(baos)) {
+			out.write(input);
+		}
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try (InputStream in = codec.createInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+			byte[] b = new byte[4096];
+			int n;
+			while ((n = in.read(b)) > 0) {
+				result.write(b, 0, n);
+			}
+		}
+		Assert.assertArrayEquals(input, result.toByteArray());
+	}
+
+}
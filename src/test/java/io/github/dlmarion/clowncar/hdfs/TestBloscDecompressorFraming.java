@@ -0,0 +1,156 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.DecompressorStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Feeds {@link BloscDecompressor} input that does not line up with Blosc chunks.
+ */
+public class TestBloscDecompressorFraming {
+
+	private static final int CHUNK = 16 * 1024;
+	private static final int CHUNKS = 20;
+
+	private Configuration conf;
+	private byte[] input;
+	/* CHUNKS Blosc chunks back to back, without any framing */
+	private byte[] compressed;
+
+	@Before
+	public void setup() throws IOException {
+		conf = new Configuration(false);
+		conf.set(BloscCompressor.COMPRESSOR_NAME_KEY, "lz4");
+		conf.set(BloscCompressor.NUM_THREADS_KEY, "1");
+		conf.set(BloscDecompressor.NUM_THREADS_KEY, "1");
+		input = TestBloscCompressorDecompressor.generate(CHUNK * CHUNKS);
+		BloscCompressor compressor = new BloscCompressor(conf);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] out = new byte[2 * CHUNK];
+		for (int i = 0; i < CHUNKS; i++) {
+			compressor.setInput(input, i * CHUNK, CHUNK);
+			compressor.finish();
+			baos.write(out, 0, compressor.compress(out, 0, out.length));
+			compressor.reset();
+		}
+		compressor.end();
+		compressed = baos.toByteArray();
+	}
+
+	private byte[] read(InputStream in, int readSize) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] b = new byte[readSize];
+		int n;
+		while ((n = in.read(b, 0, b.length)) >= 0) {
+			baos.write(b, 0, n);
+		}
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testLargeStreamBuffer() throws Exception {
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		//every chunk in one setInput call
+		try (InputStream in = new DecompressorStream(new ByteArrayInputStream(compressed), decompressor, 4 * 1024 * 1024)) {
+			Assert.assertArrayEquals(input, read(in, 64 * 1024));
+		}
+	}
+
+	@Test
+	public void testCompressAtOffset() throws Exception {
+		BloscCompressor compressor = new BloscCompressor(conf);
+		byte[] out = new byte[100 + CHUNK + Blosc.MAX_OVERHEAD + 100];
+		Arrays.fill(out, (byte) 7);
+		compressor.setInput(input, 0, CHUNK);
+		compressor.finish();
+		//the whole chunk, written inside the slice
+		int w = compressor.compress(out, 100, CHUNK + Blosc.MAX_OVERHEAD);
+		compressor.end();
+		Assert.assertTrue(w <= CHUNK + Blosc.MAX_OVERHEAD);
+		for (int i = 100 + w; i < out.length; i++) {
+			Assert.assertEquals(7, out[i]);
+		}
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		decompressor.setInput(out, 100, w);
+		byte[] result = new byte[CHUNK];
+		Assert.assertEquals(CHUNK, decompressor.decompress(result, 0, result.length));
+		decompressor.end();
+		Assert.assertArrayEquals(Arrays.copyOf(input, CHUNK), result);
+	}
+
+	@Test
+	public void testSmallStreamBuffer() throws Exception {
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		//chunks straddle setInput calls and outgrow the initial input buffer
+		try (InputStream in = new DecompressorStream(new ByteArrayInputStream(compressed), decompressor, 1000)) {
+			Assert.assertArrayEquals(input, read(in, 777));
+		}
+	}
+
+	@Test
+	public void testDrainMultipleChunks() throws Exception {
+		BloscDecompressor decompressor = new BloscDecompressor(1024, 1, BloscPrefilter.NONE, 0);
+		//in the middle of the 11th chunk
+		ByteBuffer chunks = ByteBuffer.wrap(compressed);
+		BloscChunkHeader header = new BloscChunkHeader();
+		for (int i = 0; i < CHUNKS / 2; i++) {
+			chunks.position(chunks.position() + header.read(chunks).getCompressedSize());
+		}
+		int half = chunks.position() + 7;
+		decompressor.setInput(compressed, 0, half);
+		Assert.assertFalse(decompressor.needsInput());
+		byte[] output = new byte[input.length];
+		int read = 0;
+		int n;
+		while ((n = decompressor.decompress(output, read, Math.min(5000, output.length - read))) > 0) {
+			read += n;
+		}
+		Assert.assertTrue(decompressor.needsInput());
+		Assert.assertFalse(decompressor.finished());
+		Assert.assertEquals(0, read % CHUNK);
+		decompressor.setInput(compressed, half, compressed.length - half);
+		while ((n = decompressor.decompress(output, read, output.length - read)) > 0) {
+			read += n;
+		}
+		Assert.assertTrue(decompressor.finished());
+		Assert.assertEquals(0, decompressor.getRemaining());
+		Assert.assertArrayEquals(input, output);
+		decompressor.end();
+	}
+
+	@Test
+	public void testTruncatedInput() throws Exception {
+		byte[] truncated = Arrays.copyOf(compressed, compressed.length - 10);
+		try (InputStream in = new DecompressorStream(new ByteArrayInputStream(truncated), new BloscDecompressor(conf), 64 * 1024)) {
+			read(in, 64 * 1024);
+			Assert.fail("expected the truncated chunk to be reported");
+		} catch (EOFException e) {
+			//expected
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptHeader() throws Exception {
+		byte[] corrupt = compressed.clone();
+		//uncompressed size of the first chunk
+		corrupt[7] = (byte) 0x80;
+		BloscDecompressor decompressor = new BloscDecompressor(conf);
+		decompressor.setInput(corrupt, 0, corrupt.length);
+		decompressor.decompress(new byte[CHUNK], 0, CHUNK);
+	}
+
+}
@@ -0,0 +1,184 @@
+package io.github.dlmarion.clowncar.hdfs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.CompressorStream;
+import org.apache.hadoop.io.compress.SplitCompressionInputStream;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.util.LineReader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBloscSplittableCodec {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Configuration conf;
+	private BloscCodec codec;
+	private FileSystem fs;
+
+	@Before
+	public void setup() throws IOException {
+		conf = new Configuration(false);
+		conf.set(BloscCompressor.COMPRESSOR_NAME_KEY, "lz4");
+		conf.setInt(BloscCompressor.NUM_THREADS_KEY, 1);
+		conf.setInt(BloscCodec.BUFFER_SIZE, 4 * 1024);
+		codec = new BloscCodec();
+		codec.setConf(conf);
+		fs = FileSystem.getLocal(conf).getRaw();
+	}
+
+	private List<String> writeLines(Path path, int count) throws IOException {
+		return writeLines(codec.createOutputStream(fs.create(path)), count);
+	}
+
+	private List<String> writeLines(OutputStream stream, int count) throws IOException {
+		Random rand = new Random(923523L);
+		List<String> lines = new ArrayList<>(count);
+		try (OutputStream out = stream) {
+			for (int i = 0; i < count; i++) {
+				StringBuilder line = new StringBuilder();
+				line.append(i).append(',');
+				int len = rand.nextInt(200);
+				for (int j = 0; j < len; j++) {
+					line.append((char) ('a' + rand.nextInt(26)));
+				}
+				lines.add(line.toString());
+				out.write((line + "\n").getBytes("UTF-8"));
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * Reads the lines of one split the way LineRecordReader does.
+	 */
+	private List<String> readSplit(Path path, long start, long end) throws IOException {
+		List<String> lines = new ArrayList<>();
+		FSDataInputStream fileIn = fs.open(path);
+		try (SplitCompressionInputStream in = codec.createInputStream(fileIn, codec.createDecompressor(), start, end, SplittableCompressionCodec.READ_MODE.BYBLOCK)) {
+			LineReader reader = new LineReader(in, conf);
+			Text line = new Text();
+			if (in.getAdjustedStart() != 0) {
+				reader.readLine(line);
+			}
+			while (in.getPos() <= in.getAdjustedEnd()) {
+				if (reader.readLine(line) == 0) {
+					break;
+				}
+				lines.add(line.toString());
+			}
+		}
+		return lines;
+	}
+
+	@Test
+	public void testWholeFile() throws Exception {
+		Path path = new Path(folder.getRoot().getAbsolutePath(), "whole.blosc");
+		List<String> expected = writeLines(path, 5000);
+		List<String> actual = new ArrayList<>();
+		try (InputStream in = codec.createInputStream(fs.open(path))) {
+			LineReader reader = new LineReader(in, conf);
+			Text line = new Text();
+			while (reader.readLine(line) > 0) {
+				actual.add(line.toString());
+			}
+		}
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testSplits() throws Exception {
+		Path path = new Path(folder.getRoot().getAbsolutePath(), "split.blosc");
+		List<String> expected = writeLines(path, 5000);
+		long length = new File(path.toUri().getPath()).length();
+		for (long splitSize : new long[] {21, 22, 1000, 4096, 4121, 10000, 77777, length}) {
+			List<String> actual = new ArrayList<>();
+			for (long start = 0; start < length; start += splitSize) {
+				actual.addAll(readSplit(path, start, Math.min(length, start + splitSize)));
+			}
+			Assert.assertEquals("split size " + splitSize, expected, actual);
+		}
+	}
+
+	@Test
+	public void testResetState() throws Exception {
+		Path path = new Path(folder.getRoot().getAbsolutePath(), "reset.blosc");
+		StringBuilder text = new StringBuilder();
+		for (String line : writeLines(path, 5000)) {
+			text.append(line).append('\n');
+		}
+		byte[] expected = text.toString().getBytes("UTF-8");
+		try (SplitCompressionInputStream in = codec.createInputStream(fs.open(path), codec.createDecompressor(), 0, Long.MAX_VALUE, SplittableCompressionCodec.READ_MODE.BYBLOCK)) {
+			byte[] b = new byte[100];
+			Assert.assertEquals(b.length, in.read(b));
+			long pos = in.getPos();
+			in.resetState();
+			Assert.assertEquals(pos, in.getPos());
+			//the rest of the first block is dropped
+			ByteArrayOutputStream rest = new ByteArrayOutputStream();
+			IOUtils.copyBytes(in, rest, 4096, false);
+			Assert.assertArrayEquals(Arrays.copyOfRange(expected, 4 * 1024, expected.length), rest.toByteArray());
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		Path path = new Path(folder.getRoot().getAbsolutePath(), "empty.blosc");
+		Assert.assertTrue(writeLines(path, 0).isEmpty());
+		Assert.assertTrue(readSplit(path, 0, 100).isEmpty());
+		Assert.assertTrue(readSplit(path, 10, 100).isEmpty());
+	}
+
+	@Test
+	public void testUnsplittableFile() throws Exception {
+		Path path = new Path(folder.getRoot().getAbsolutePath(), "unsplittable.blosc");
+		//the format written before the codec was splittable, the compressor takes at most its
+		//buffer size per setInput so the bytes are passed on one at a time
+		OutputStream old = new FilterOutputStream(new CompressorStream(fs.create(path), new BloscCompressor(4 * 1024, conf), 64 * 1024));
+		List<String> expected = writeLines(old, 5000);
+		List<String> actual = new ArrayList<>();
+		try (InputStream in = codec.createInputStream(fs.open(path))) {
+			LineReader reader = new LineReader(in, conf);
+			Text line = new Text();
+			while (reader.readLine(line) > 0) {
+				actual.add(line.toString());
+			}
+		}
+		Assert.assertEquals(expected, actual);
+
+		//the first split reads the whole file, the others are empty
+		long length = new File(path.toUri().getPath()).length();
+		for (long splitSize : new long[] {1000, 77777, length}) {
+			actual = new ArrayList<>();
+			for (long start = 0; start < length; start += splitSize) {
+				List<String> split = readSplit(path, start, Math.min(length, start + splitSize));
+				if (start > 0) {
+					Assert.assertTrue(split.isEmpty());
+				}
+				actual.addAll(split);
+			}
+			Assert.assertEquals("split size " + splitSize, expected, actual);
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BloscServiceTest {
+
+	private static final FrameCompressor COMPRESSOR = new FrameCompressor(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1);
+
+	private static byte[] data(int size, int seed) {
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		for (int i = 0; i < size / Long.BYTES; i++) {
+			buf.putLong(seed + i * 60000L);
+		}
+		return buf.array();
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		try (BloscService service = new BloscService(COMPRESSOR, 2, 8)) {
+			byte[] data = data(64 * 1024, 1);
+			byte[] compressed = service.compress(data, Long.BYTES).get();
+			Assert.assertArrayEquals(data, service.decompress(compressed).get());
+
+			//buffers, positioned, and left as they were
+			ByteBuffer src = ByteBuffer.allocateDirect(100 + data.length);
+			src.position(100);
+			src.put(data);
+			src.position(100);
+			byte[] fromBuffer = service.compress(src, Long.BYTES).get();
+			Assert.assertEquals(100, src.position());
+			ByteBuffer chunk = ByteBuffer.allocate(10 + fromBuffer.length);
+			chunk.position(10);
+			chunk.put(fromBuffer);
+			chunk.position(10);
+			Assert.assertArrayEquals(data, service.decompress(chunk).get());
+			Assert.assertEquals(10, chunk.position());
+			Assert.assertEquals(4, service.getCompletedJobs());
+		}
+	}
+
+	@Test
+	public void testManyCallers() throws Exception {
+		final int callers = 16;
+		final int jobs = 200;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+		try (final BloscService service = new BloscService(COMPRESSOR, 3, 32)) {
+			List<Future<?>> results = new ArrayList<>();
+			for (int c = 0; c < callers; c++) {
+				final int caller = c;
+				results.add(pool.submit(() -> {
+					List<CompletableFuture<byte[]>> pending = new ArrayList<>();
+					List<byte[]> inputs = new ArrayList<>();
+					for (int i = 0; i < jobs; i++) {
+						byte[] data = data(1024 + (i % 7) * 4096, caller * jobs + i);
+						inputs.add(data);
+						pending.add(service.compress(data, Long.BYTES).thenCompose(service::decompress));
+					}
+					for (int i = 0; i < jobs; i++) {
+						Assert.assertArrayEquals(inputs.get(i), pending.get(i).get());
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : results) {
+				f.get();
+			}
+			Assert.assertEquals(2 * callers * jobs, service.getSubmittedJobs());
+			Assert.assertEquals(2 * callers * jobs, service.getCompletedJobs());
+			Assert.assertEquals(0, service.getRejectedJobs());
+			Assert.assertEquals(0, service.getQueuedJobs());
+			Assert.assertTrue(service.getBatches() <= service.getCompletedJobs());
+			Assert.assertTrue(service.getMaxQueueLatencyNanos() >= service.getMeanQueueLatencyNanos());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testReject() throws Exception {
+		byte[] data = data(1024 * 1024, 3);
+		List<CompletableFuture<byte[]>> results = new ArrayList<>();
+		try (BloscService service = new BloscService(COMPRESSOR, 1, 1, BloscService.OverflowPolicy.REJECT, BloscService.DEFAULT_MAX_JOB_SIZE)) {
+			for (int i = 0; i < 200; i++) {
+				results.add(service.compress(data, Long.BYTES));
+			}
+			int rejected = 0;
+			for (CompletableFuture<byte[]> result : results) {
+				try {
+					Assert.assertTrue(result.get().length > 0);
+				} catch (ExecutionException e) {
+					Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+					rejected++;
+				}
+			}
+			Assert.assertTrue(rejected > 0);
+			Assert.assertEquals(rejected, service.getRejectedJobs());
+			Assert.assertEquals(200 - rejected, service.getCompletedJobs());
+		}
+	}
+
+	@Test
+	public void testFailures() throws Exception {
+		try (BloscService service = new BloscService(COMPRESSOR, 1, 4, BloscService.OverflowPolicy.BLOCK, 4096)) {
+			try {
+				service.compress(new byte[4097], 1);
+				Assert.fail("larger than the largest job");
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+			try {
+				service.decompress(new byte[] { 1, 2, 3 }).get();
+				Assert.fail("not a chunk");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IOException);
+			}
+			byte[] compressed = service.compress(data(4096, 1), 8).get();
+			try {
+				service.decompress(ByteBuffer.wrap(compressed, 0, compressed.length - 1)).get();
+				Assert.fail("truncated");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof IOException);
+			}
+			Assert.assertEquals(2, service.getFailedJobs());
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		BloscService service = new BloscService(COMPRESSOR, 1, 64);
+		List<CompletableFuture<byte[]>> results = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			results.add(service.compress(data(64 * 1024, i), Long.BYTES));
+		}
+		service.close();
+		//queued jobs still run
+		for (CompletableFuture<byte[]> result : results) {
+			Assert.assertTrue(result.isDone());
+			Assert.assertTrue(result.get().length > 0);
+		}
+		try {
+			service.compress(new byte[8], 8);
+			Assert.fail("service is closed");
+		} catch (IllegalStateException e) {
+			//expected
+		}
+		service.close();
+	}
+
+	@Test
+	public void testWorkerInterrupted() throws Exception {
+		final AtomicReference<Thread> worker = new AtomicReference<>();
+		final CountDownLatch completing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		//holds the pool thread while it completes the first job
+		Executor completions = command -> {
+			if (worker.compareAndSet(null, Thread.currentThread())) {
+				completing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			command.run();
+		};
+		BloscService service = new BloscService(COMPRESSOR, 1, 8, BloscService.OverflowPolicy.BLOCK, BloscService.DEFAULT_MAX_JOB_SIZE, completions);
+		CompletableFuture<byte[]> first = service.compress(data(1024, 1), Long.BYTES);
+		completing.await();
+		List<CompletableFuture<byte[]>> queued = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			queued.add(service.compress(data(1024, i), Long.BYTES));
+		}
+		worker.get().interrupt();
+		worker.get().join();
+		Assert.assertTrue(first.get().length > 0);
+		//nothing is left to run the queued jobs
+		for (CompletableFuture<byte[]> result : queued) {
+			try {
+				result.get();
+				Assert.fail("pool thread stopped");
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+				Assert.assertTrue(e.getCause().getCause() instanceof InterruptedException);
+			}
+		}
+		Assert.assertEquals(0, service.getQueuedJobs());
+		Assert.assertEquals(3, service.getRejectedJobs());
+		try {
+			service.compress(new byte[8], 8);
+			Assert.fail("service is closed");
+		} catch (IllegalStateException e) {
+			Assert.assertTrue(e.getCause() instanceof InterruptedException);
+		}
+		service.close();
+	}
+
+}
@@ -0,0 +1,211 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ChannelTest {
+
+	private static final int BLOCK_SIZE = Long.BYTES * 128;
+	private static final FrameCompressor COMPRESSOR = new FrameCompressor(BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, BLOCK_SIZE, 1);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Random rand = new Random(7623462346L);
+
+	private long[] generate(int size) {
+		long[] values = new long[size];
+		long value = rand.nextLong();
+		for (int i = 0; i < size; i++) {
+			value += rand.nextInt(1000);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private byte[] writeStream(long[] values) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(new BloscFrameWriter(baos, COMPRESSOR), BLOCK_SIZE)) {
+			out.write(values);
+		}
+		return baos.toByteArray();
+	}
+
+	private ByteBuffer toBuffer(long[] values) {
+		ByteBuffer buf = ByteBuffer.allocate(values.length * Long.BYTES);
+		buf.asLongBuffer().put(values);
+		return buf;
+	}
+
+	private long[] readAll(ReadableByteChannel in, int length) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(length * Long.BYTES + 1);
+		//small reads that do not line up with the frames
+		ByteBuffer chunk = ByteBuffer.allocate(1000);
+		int n;
+		while ((n = in.read(chunk)) >= 0) {
+			Assert.assertTrue(n > 0);
+			chunk.flip();
+			buf.put(chunk);
+			chunk.clear();
+		}
+		buf.flip();
+		Assert.assertEquals(length * Long.BYTES, buf.remaining());
+		long[] actual = new long[length];
+		buf.asLongBuffer().get(actual);
+		return actual;
+	}
+
+	@Test
+	public void testFileChannelMatchesStream() throws Exception {
+		long[] values = generate(10000);
+		File file = folder.newFile();
+		try (BloscWritableByteChannel out = new BloscWritableByteChannel(FileChannel.open(file.toPath(), StandardOpenOption.WRITE), COMPRESSOR, BLOCK_SIZE, Long.BYTES)) {
+			ByteBuffer src = toBuffer(values);
+			//writes that do not line up with the frames
+			while (src.hasRemaining()) {
+				ByteBuffer part = src.duplicate();
+				part.limit(Math.min(src.limit(), src.position() + 1000));
+				src.position(src.position() + out.write(part));
+			}
+		}
+		Assert.assertArrayEquals(writeStream(values), Files.readAllBytes(file.toPath()));
+
+		long[] actual = new long[values.length];
+		try (LongBloscInputStream in = new LongBloscInputStream(new FileInputStream(file), 1)) {
+			Assert.assertEquals(values.length, in.read(actual));
+		}
+		Assert.assertArrayEquals(values, actual);
+	}
+
+	@Test
+	public void testReadFileChannel() throws Exception {
+		long[] values = generate(10000);
+		File file = folder.newFile();
+		Files.write(file.toPath(), writeStream(values));
+		try (BloscReadableByteChannel in = new BloscReadableByteChannel(FileChannel.open(file.toPath(), StandardOpenOption.READ), 1)) {
+			Assert.assertArrayEquals(values, readAll(in, values.length));
+		}
+	}
+
+	private File writeWithTrailer(byte[] stream, byte[] trailer) throws IOException {
+		File file = folder.newFile();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(stream);
+			out.write(trailer);
+		}
+		return file;
+	}
+
+	@Test
+	public void testDeclaredLengthLeavesTrailingData() throws Exception {
+		long[] values = generate(10000);
+		byte[] stream = writeStream(values);
+		byte[] trailer = "trailing data".getBytes(StandardCharsets.UTF_8);
+		File file = writeWithTrailer(stream, trailer);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			//the file channel supports scattering reads, the next header is read ahead
+			BloscReadableByteChannel in = new BloscReadableByteChannel(channel, 1, stream.length);
+			Assert.assertArrayEquals(values, readAll(in, values.length));
+			Assert.assertEquals(stream.length, channel.position());
+			ByteBuffer rest = ByteBuffer.allocate(trailer.length);
+			Assert.assertEquals(trailer.length, channel.read(rest));
+			Assert.assertArrayEquals(trailer, rest.array());
+		}
+	}
+
+	@Test
+	public void testUndeclaredLengthReadsFramesExactly() throws Exception {
+		long[] values = generate(10000);
+		byte[] stream = writeStream(values);
+		byte[] trailer = "trailing data".getBytes(StandardCharsets.UTF_8);
+		File file = writeWithTrailer(stream, trailer);
+		int frames = (values.length * Long.BYTES + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ChannelBloscFrameReader reader = new ChannelBloscFrameReader(channel, 1);
+			LongBuffer actual = LongBuffer.allocate(values.length);
+			for (int i = 0; i < frames; i++) {
+				actual.put(reader.next().asLongBuffer());
+			}
+			Assert.assertArrayEquals(values, actual.array());
+			//nothing after the last frame was consumed
+			Assert.assertEquals(stream.length, channel.position());
+		}
+	}
+
+	@Test(expected = EOFException.class)
+	public void testDeclaredLengthInsideFrame() throws Exception {
+		byte[] stream = writeStream(generate(1000));
+		ChannelBloscFrameReader reader = new ChannelBloscFrameReader(Channels.newChannel(new ByteArrayInputStream(stream)), 1, stream.length - 1);
+		while (reader.next() != null) {
+			//the last frame is cut short by the declared length
+		}
+	}
+
+	@Test
+	public void testStreamChannels() throws Exception {
+		long[] values = generate(10000);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (BloscWritableByteChannel out = new BloscWritableByteChannel(Channels.newChannel(baos), COMPRESSOR, BLOCK_SIZE, Long.BYTES)) {
+			out.write(toBuffer(values));
+		}
+		Assert.assertArrayEquals(writeStream(values), baos.toByteArray());
+		try (BloscReadableByteChannel in = new BloscReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())), 1)) {
+			Assert.assertArrayEquals(values, readAll(in, values.length));
+		}
+	}
+
+	@Test
+	public void testFlushWritesShortFrame() throws Exception {
+		long[] values = generate(100);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		BloscWritableByteChannel out = new BloscWritableByteChannel(Channels.newChannel(baos), COMPRESSOR, BLOCK_SIZE, Long.BYTES);
+		out.write(toBuffer(values));
+		out.flush();
+		try (BloscReadableByteChannel in = new BloscReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())), 1)) {
+			Assert.assertArrayEquals(values, readAll(in, values.length));
+		}
+		out.close();
+	}
+
+	@Test
+	public void testFrameSizeIndependentOfBlockSize() throws Exception {
+		//a block size of 0 lets Blosc choose
+		FrameCompressor compressor = new FrameCompressor(BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 0, 1);
+		long[] values = generate(10000);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (BloscWritableByteChannel out = new BloscWritableByteChannel(Channels.newChannel(baos), compressor, BLOCK_SIZE, Long.BYTES)) {
+			out.write(toBuffer(values));
+		}
+		try (BloscReadableByteChannel in = new BloscReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())), 1)) {
+			Assert.assertArrayEquals(values, readAll(in, values.length));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroFrameSize() throws Exception {
+		new BloscWritableByteChannel(Channels.newChannel(new ByteArrayOutputStream()), COMPRESSOR, 0, Long.BYTES);
+	}
+
+}
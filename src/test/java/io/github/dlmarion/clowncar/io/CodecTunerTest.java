@@ -0,0 +1,99 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CodecTunerTest {
+
+	private static final int BLOCK_SIZE = Long.BYTES * 1024;
+
+	private final Random rand = new Random(2309582305L);
+
+	private long[] generate(int size) {
+		long[] values = new long[size];
+		long value = rand.nextLong();
+		for (int i = 0; i < size; i++) {
+			value += rand.nextInt(1000);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private static CodecTuner.Trial sampleTrial() {
+		CodecTuner tuner = new CodecTuner(Arrays.asList(new FrameCompressor(BloscCompressorType.LZ4, 1, BloscShuffleType.NO_SHUFFLE, 0, 1)), CodecTuner.minLatency());
+		ByteBuffer frame = ByteBuffer.allocateDirect(1024);
+		tuner.sample(frame, 1);
+		tuner.close();
+		return tuner.getTrials().get(0);
+	}
+
+	@Test
+	public void testObjectives() {
+		CodecTuner.Trial trial = sampleTrial();
+		double speed = trial.getMBPerSecond();
+		Assert.assertTrue(trial.getRatio() > 0);
+		Assert.assertEquals(trial.getRatio(), CodecTuner.maxRatio(speed / 2).score(trial), 0.0D);
+		Assert.assertTrue(CodecTuner.maxRatio(speed * 2).score(trial) < 0);
+		Assert.assertEquals(speed, CodecTuner.minLatency().score(trial), 0.0D);
+	}
+
+	@Test
+	public void testBestCandidate() {
+		List<FrameCompressor> candidates = CodecTuner.defaultCandidates(1);
+		ByteBuffer frame = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		for (long value : generate(BLOCK_SIZE / Long.BYTES)) {
+			frame.putLong(value);
+		}
+		frame.flip();
+		try (CodecTuner tuner = new CodecTuner(candidates, CodecTuner.maxRatio(0))) {
+			Assert.assertSame(candidates.get(0), tuner.getBest());
+			tuner.sample(frame, Long.BYTES);
+			Assert.assertEquals(0, frame.position());
+			double bestRatio = tuner.getTrials().get(tuner.best()).getRatio();
+			for (CodecTuner.Trial trial : tuner.getTrials()) {
+				Assert.assertTrue(trial.getRatio() <= bestRatio);
+			}
+			tuner.reset();
+			for (CodecTuner.Trial trial : tuner.getTrials()) {
+				Assert.assertEquals(0.0D, trial.getRatio(), 0.0D);
+			}
+		}
+	}
+
+	@Test
+	public void testWriterRoundTrip() throws Exception {
+		long[] values = generate(100000);
+		List<FrameCompressor> candidates = Arrays.asList(
+				new FrameCompressor(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1),
+				new FrameCompressor(BloscCompressorType.ZSTD, 1, BloscShuffleType.BIT_SHUFFLE, 4096, 1),
+				new FrameCompressor(BloscCompressorType.BLOSCLZ, 9, BloscShuffleType.NO_SHUFFLE, 0, 1));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		AutoTuningFrameWriter writer = new AutoTuningFrameWriter(baos, candidates, CodecTuner.maxRatio(0), 2, 5);
+		try (LongBloscOutputStream out = new LongBloscOutputStream(writer, BLOCK_SIZE)) {
+			out.write(values);
+			Assert.assertTrue(candidates.contains(writer.getCurrent()));
+		}
+		long[] actual = new long[values.length];
+		try (LongBloscInputStream in = new LongBloscInputStream(new ByteArrayInputStream(baos.toByteArray()), 1)) {
+			Assert.assertEquals(values.length, in.read(actual));
+			Assert.assertEquals(-1, in.read(actual));
+		}
+		Assert.assertArrayEquals(values, actual);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResampleIntervalTooShort() {
+		new AutoTuningFrameWriter(new ByteArrayOutputStream(), CodecTuner.defaultCandidates(1), CodecTuner.minLatency(), 4, 2);
+	}
+
+}
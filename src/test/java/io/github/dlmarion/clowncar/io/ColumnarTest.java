@@ -0,0 +1,123 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnarTest {
+
+	private static final ColumnSchema SCHEMA = new ColumnSchema(
+			new ColumnSchema.Column("time", Long.class, BloscShuffleType.BYTE_SHUFFLE, BloscPrefilter.DELTA_OF_DELTA),
+			new ColumnSchema.Column("value", Double.class),
+			new ColumnSchema.Column("quality", Integer.class),
+			new ColumnSchema.Column("host", String.class));
+
+	private static final int ROWS = 2500;
+
+	private final Random rand = new Random(52352351L);
+	private final long[] times = new long[ROWS];
+	private final double[] values = new double[ROWS];
+	private final int[] qualities = new int[ROWS];
+	private final String[] hosts = new String[ROWS];
+
+	private byte[] write(int rowsPerGroup) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ColumnarWriter writer = new ColumnarWriter(baos, SCHEMA, BloscCompressorType.LZ4, 5, rowsPerGroup, 1)) {
+			int time = writer.column("time");
+			int value = writer.column("value");
+			int quality = writer.column("quality");
+			int host = writer.column("host");
+			for (int i = 0; i < ROWS; i++) {
+				times[i] = 1500000000000L + i * 60000L;
+				values[i] = rand.nextDouble();
+				qualities[i] = rand.nextInt(3);
+				hosts[i] = i % 100 == 0 ? "" : "host-" + rand.nextInt(20) + ".example.com";
+				writer.setLong(time, times[i]);
+				writer.setDouble(value, values[i]);
+				//quality left at 0 every 7 rows
+				if (i % 7 != 0) {
+					writer.setInt(quality, qualities[i]);
+				} else {
+					qualities[i] = 0;
+				}
+				writer.setString(host, hosts[i]);
+				writer.endRow();
+			}
+		}
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testAllColumns() throws Exception {
+		byte[] data = write(1000);
+		try (ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(data), 1)) {
+			Assert.assertEquals(SCHEMA.size(), reader.getSchema().size());
+			Assert.assertEquals(BloscPrefilter.DELTA_OF_DELTA, reader.getSchema().getColumn(0).getPrefilter());
+			int row = 0;
+			int groups = 0;
+			while (reader.next()) {
+				groups++;
+				int n = reader.getRowCount();
+				LongBuffer t = reader.getLongs("time");
+				DoubleBuffer v = reader.getDoubles("value");
+				IntBuffer q = reader.getInts("quality");
+				String[] h = reader.getStrings("host");
+				Assert.assertEquals(n, t.remaining());
+				for (int i = 0; i < n; i++, row++) {
+					Assert.assertEquals(times[row], t.get(i));
+					Assert.assertEquals(values[row], v.get(i), 0.0D);
+					Assert.assertEquals(qualities[row], q.get(i));
+					Assert.assertEquals(hosts[row], h[i]);
+				}
+			}
+			Assert.assertEquals(3, groups);
+			Assert.assertEquals(ROWS, row);
+		}
+	}
+
+	@Test
+	public void testProjection() throws Exception {
+		byte[] data = write(ROWS);
+		try (ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(data), 1, "host", "value")) {
+			Assert.assertTrue(reader.next());
+			Assert.assertEquals(ROWS, reader.getRowCount());
+			Assert.assertEquals(hosts[ROWS - 1], reader.getString("host", ROWS - 1));
+			Assert.assertEquals(values[10], reader.getDoubles("value").get(10), 0.0D);
+			try {
+				reader.getLongs("time");
+				Assert.fail("time was not projected");
+			} catch (IllegalArgumentException e) {
+				//expected
+			}
+			Assert.assertFalse(reader.next());
+		}
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		new ColumnarWriter(baos, SCHEMA, BloscCompressorType.LZ4, 5, 10, 1).close();
+		try (ColumnarReader reader = new ColumnarReader(new ByteArrayInputStream(baos.toByteArray()), 1)) {
+			Assert.assertEquals("host", reader.getSchema().getColumn(3).getName());
+			Assert.assertFalse(reader.next());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongType() throws Exception {
+		try (ColumnarWriter writer = new ColumnarWriter(new ByteArrayOutputStream(), SCHEMA, BloscCompressorType.LZ4, 5, 10, 1)) {
+			writer.setDouble(writer.column("time"), 1.0D);
+		}
+	}
+
+}
@@ -0,0 +1,183 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FrameReaderTest {
+
+	private static final int BLOCK_SIZE = Long.BYTES * 128;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Random rand = new Random(27352352L);
+
+	private long[] generate(int size) {
+		long[] values = new long[size];
+		long value = rand.nextLong();
+		for (int i = 0; i < size; i++) {
+			value += rand.nextInt(1000);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private byte[] write(long[] values, int chunk) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(baos, BLOCK_SIZE, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 1)) {
+			for (int i = 0; i < values.length; i += chunk) {
+				out.write(values, i, Math.min(chunk, values.length - i));
+				//short frames
+				out.flush();
+			}
+		}
+		return baos.toByteArray();
+	}
+
+	@Test
+	public void testReadAheadMatchesValues() throws Exception {
+		long[] values = generate(100000);
+		byte[] data = write(values, 1000);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			long[] actual = new long[values.length];
+			try (LongBloscInputStream in = new LongBloscInputStream(new ReadAheadBloscFrameReader(new ByteArrayInputStream(data), pool, 8))) {
+				Assert.assertEquals(values.length, in.read(actual));
+				Assert.assertEquals(-1, in.read(actual));
+			}
+			Assert.assertArrayEquals(values, actual);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testReadAheadFrames() throws Exception {
+		long[] values = generate(10000);
+		byte[] data = write(values, 333);
+		long[] actual = new long[values.length];
+		int n = 0;
+		try (LongBloscInputStream in = new LongBloscInputStream(new ReadAheadBloscFrameReader(new ByteArrayInputStream(data), 1))) {
+			LongBuffer frame;
+			while ((frame = in.frame()) != null) {
+				int len = frame.remaining();
+				frame.get(actual, n, len);
+				n += len;
+			}
+			Assert.assertNull(in.frame());
+		}
+		Assert.assertEquals(values.length, n);
+		Assert.assertArrayEquals(values, actual);
+	}
+
+	@Test
+	public void testReadAheadEmptyStream() throws Exception {
+		try (LongBloscInputStream in = new LongBloscInputStream(new ReadAheadBloscFrameReader(new ByteArrayInputStream(new byte[0]), 4))) {
+			Assert.assertEquals(-1, in.read(new long[10]));
+		}
+	}
+
+	@Test
+	public void testReadAheadTruncatedStream() throws Exception {
+		long[] values = generate(10000);
+		byte[] data = write(values, 1000);
+		byte[] truncated = Arrays.copyOf(data, data.length - 10);
+		long[] actual = new long[values.length];
+		try (LongBloscInputStream in = new LongBloscInputStream(new ReadAheadBloscFrameReader(new ByteArrayInputStream(truncated), 4))) {
+			try {
+				in.read(actual);
+				Assert.fail("expected the truncated frame to be reported");
+			} catch (EOFException e) {
+				//expected
+			}
+			try {
+				in.read(actual);
+				Assert.fail("expected the truncated frame to be reported");
+			} catch (EOFException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptChunkHeader() throws Exception {
+		byte[] data = write(generate(1000), 1000);
+		//uncompressed size in the chunk header no longer matches the frame
+		data[BloscFrameReader.HEADER_SIZE + 4] ^= 0x08;
+		try (LongBloscInputStream in = new LongBloscInputStream(new ByteArrayInputStream(data), 1)) {
+			in.read(new long[1000]);
+		}
+	}
+
+	private File writeFile(byte[] data) throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), data);
+		return file;
+	}
+
+	private void verify(long[] expected, FrameReader reader) throws IOException {
+		long[] actual = new long[expected.length];
+		try (LongBloscInputStream in = new LongBloscInputStream(reader)) {
+			Assert.assertEquals(expected.length, in.read(actual));
+			Assert.assertEquals(-1, in.read(actual));
+		}
+		Assert.assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	public void testMappedMatchesValues() throws Exception {
+		long[] values = generate(100000);
+		File file = writeFile(write(values, 1000));
+		verify(values, new MappedBloscFrameReader(file.toPath(), 1));
+	}
+
+	@Test
+	public void testMappedSmallWindows() throws Exception {
+		long[] values = generate(10000);
+		File file = writeFile(write(values, 77));
+		//windows smaller than a frame, every frame is mapped on its own
+		verify(values, new MappedBloscFrameReader(FileChannel.open(file.toPath(), StandardOpenOption.READ), 1, 64));
+		//windows holding a few frames each
+		verify(values, new MappedBloscFrameReader(FileChannel.open(file.toPath(), StandardOpenOption.READ), 1, 4096));
+	}
+
+	@Test(expected = EOFException.class)
+	public void testMappedTruncatedFile() throws Exception {
+		long[] values = generate(10000);
+		byte[] data = write(values, 1000);
+		File file = writeFile(Arrays.copyOf(data, data.length - 10));
+		verify(values, new MappedBloscFrameReader(file.toPath(), 1));
+	}
+
+	@Test(expected = EOFException.class)
+	public void testMappedCorruptFrameSize() throws Exception {
+		long[] values = generate(10000);
+		byte[] data = write(values, 1000);
+		//a last frame whose size overflows an int once the header is added
+		ByteBuffer corrupt = ByteBuffer.allocate(data.length + BloscFrameReader.HEADER_SIZE);
+		corrupt.put(data).putInt(Integer.MAX_VALUE).putInt(1);
+		File file = writeFile(corrupt.array());
+		verify(values, new MappedBloscFrameReader(file.toPath(), 1));
+	}
+
+}
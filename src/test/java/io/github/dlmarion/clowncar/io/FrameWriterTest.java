@@ -0,0 +1,233 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrameWriterTest {
+
+	private static final int BLOCK_SIZE = Long.BYTES * 128;
+	private static final FrameCompressor COMPRESSOR = new FrameCompressor(BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, BLOCK_SIZE, 1);
+
+	private final Random rand = new Random(89523598235L);
+
+	private long[] generate(int size) {
+		long[] values = new long[size];
+		long value = rand.nextLong();
+		for (int i = 0; i < size; i++) {
+			value += rand.nextInt(1000);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private byte[] writeSync(long[] values) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(new BloscFrameWriter(baos, COMPRESSOR), BLOCK_SIZE)) {
+			out.write(values);
+		}
+		return baos.toByteArray();
+	}
+
+	private void verify(long[] expected, byte[] data) throws IOException {
+		long[] actual = new long[expected.length];
+		try (LongBloscInputStream in = new LongBloscInputStream(new ByteArrayInputStream(data), 1)) {
+			Assert.assertEquals(expected.length, in.read(actual));
+			Assert.assertEquals(-1, in.read(actual));
+		}
+		Assert.assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	public void testAsyncMatchesSync() throws Exception {
+		long[] values = generate(100000);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(new AsyncBloscFrameWriter(baos, COMPRESSOR, BLOCK_SIZE, 4), BLOCK_SIZE)) {
+			for (int i = 0; i < values.length; i += 1000) {
+				out.write(values, i, 1000);
+			}
+		}
+		Assert.assertArrayEquals(writeSync(values), baos.toByteArray());
+		verify(values, baos.toByteArray());
+	}
+
+	@Test
+	public void testAsyncFlushWritesEverything() throws Exception {
+		long[] values = generate(1000);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		LongBloscOutputStream out = new LongBloscOutputStream(new AsyncBloscFrameWriter(baos, COMPRESSOR, BLOCK_SIZE, 2), BLOCK_SIZE);
+		out.write(values);
+		out.flush();
+		verify(values, baos.toByteArray());
+		out.close();
+	}
+
+	@Test
+	public void testAsyncPropagatesErrors() throws Exception {
+		OutputStream broken = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("disk full");
+			}
+		};
+		LongBloscOutputStream out = new LongBloscOutputStream(new AsyncBloscFrameWriter(broken, COMPRESSOR, BLOCK_SIZE, 2), BLOCK_SIZE);
+		try {
+			out.write(generate(1000));
+			out.flush();
+			Assert.fail("expected the write failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("disk full", e.getCause().getMessage());
+		}
+		try {
+			out.close();
+			Assert.fail("expected the write failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("disk full", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testParallelMatchesSync() throws Exception {
+		long[] values = generate(100000);
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try (LongBloscOutputStream out = new LongBloscOutputStream(new ParallelBloscFrameWriter(baos, COMPRESSOR, BLOCK_SIZE, pool, 8), BLOCK_SIZE)) {
+				for (int i = 0; i < values.length; i += 1000) {
+					out.write(values, i, 1000);
+				}
+			}
+			Assert.assertArrayEquals(writeSync(values), baos.toByteArray());
+			verify(values, baos.toByteArray());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testParallelFlushWritesEverything() throws Exception {
+		long[] values = generate(1000);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		LongBloscOutputStream out = new LongBloscOutputStream(new ParallelBloscFrameWriter(baos, COMPRESSOR, BLOCK_SIZE, 3), BLOCK_SIZE);
+		out.write(values);
+		out.flush();
+		verify(values, baos.toByteArray());
+		out.close();
+	}
+
+	/**
+	 * Runs tasks on the calling thread, except the one with the given index which fails.
+	 */
+	private static class FailingExecutor extends AbstractExecutorService {
+		private final int failing;
+		private int submitted = 0;
+
+		private FailingExecutor(int failing) {
+			this.failing = failing;
+		}
+
+		@Override
+		public <T> Future<T> submit(Callable<T> task) {
+			if (submitted++ == failing) {
+				CompletableFuture<T> failed = new CompletableFuture<>();
+				failed.completeExceptionally(new IllegalStateException("compression failed"));
+				return failed;
+			}
+			return super.submit(task);
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return false;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return false;
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+
+	@Test
+	public void testParallelStopsAfterFailure() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ParallelBloscFrameWriter writer = new ParallelBloscFrameWriter(baos, COMPRESSOR, BLOCK_SIZE, new FailingExecutor(1), 2);
+		ByteBuffer frame = ByteBuffer.allocate(BLOCK_SIZE);
+		writer.write(frame, Long.BYTES);
+		writer.write(frame, Long.BYTES);
+		//the slots are full, the first frame is written
+		writer.write(frame, Long.BYTES);
+		try {
+			//the failed second frame is reported
+			writer.write(frame, Long.BYTES);
+			Assert.fail("expected the compression failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("compression failed", e.getCause().getMessage());
+		}
+		int written = baos.size();
+		try {
+			writer.write(frame, Long.BYTES);
+			Assert.fail("expected the compression failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("compression failed", e.getCause().getCause().getMessage());
+		}
+		try {
+			writer.flush();
+			Assert.fail("expected the compression failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("compression failed", e.getCause().getCause().getMessage());
+		}
+		try {
+			writer.close();
+			Assert.fail("expected the compression failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("compression failed", e.getCause().getCause().getMessage());
+		}
+		try {
+			writer.close();
+			Assert.fail("expected the compression failure to be reported");
+		} catch (IOException e) {
+			Assert.assertEquals("compression failed", e.getCause().getCause().getMessage());
+		}
+		//only the frame before the failure made it to the stream
+		Assert.assertEquals(written, baos.size());
+		Assert.assertEquals(2 * Integer.BYTES + ByteBuffer.wrap(baos.toByteArray()).getInt(0), written);
+	}
+
+}
@@ -0,0 +1,185 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SeekableBloscReaderTest {
+
+	private static final int BLOCK_SIZE = Long.BYTES * 128;
+	private static final FrameCompressor COMPRESSOR = new FrameCompressor(BloscCompressorType.ZSTD, 5, BloscShuffleType.BYTE_SHUFFLE, BLOCK_SIZE, 1);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Random rand = new Random(5982359823L);
+
+	private long[] generate(int size) {
+		long[] values = new long[size];
+		long value = rand.nextLong();
+		for (int i = 0; i < size; i++) {
+			value += rand.nextInt(1000);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private File write(long[] values) throws IOException {
+		File file = folder.newFile();
+		try (LongBloscOutputStream out = new LongBloscOutputStream(new IndexedBloscFrameWriter(new FileOutputStream(file), COMPRESSOR, Long.class), BLOCK_SIZE)) {
+			int i = 0;
+			while (i < values.length) {
+				//frames of different sizes
+				int n = Math.min(values.length - i, 1 + rand.nextInt(300));
+				out.write(values, i, n);
+				out.flush();
+				i += n;
+			}
+		}
+		return file;
+	}
+
+	@Test
+	public void testHeader() throws Exception {
+		long[] values = generate(1000);
+		try (SeekableBloscReader reader = new SeekableBloscReader(write(values).toPath())) {
+			Assert.assertEquals(Long.class, reader.getElementType());
+			Assert.assertEquals(Long.BYTES, reader.getTypeSize());
+			Assert.assertEquals(BloscCompressorType.ZSTD, reader.getCompressor());
+			Assert.assertEquals(BloscShuffleType.BYTE_SHUFFLE, reader.getShuffleType());
+			Assert.assertEquals(5, reader.getCompressionLevel());
+			Assert.assertEquals(BLOCK_SIZE, reader.getBlockSize());
+			Assert.assertEquals(values.length, reader.size());
+			Assert.assertTrue(reader.getFrameCount() > 1);
+		}
+	}
+
+	@Test
+	public void testCompressorCodeInHeader() throws Exception {
+		File file = write(generate(1000));
+		byte[] data = Files.readAllBytes(file.toPath());
+		//magic, version and element type come first
+		Assert.assertEquals(BloscCompressorType.ZSTD.getCompressorCode(), data[6]);
+		data[6] = 42;
+		Files.write(file.toPath(), data);
+		try (SeekableBloscReader reader = new SeekableBloscReader(file.toPath())) {
+			Assert.fail("expected an unknown compressor code to be rejected");
+		} catch (IOException e) {
+			Assert.assertEquals("Unsupported container compressor", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testPointLookups() throws Exception {
+		long[] values = generate(20000);
+		try (SeekableBloscReader reader = new SeekableBloscReader(write(values).toPath())) {
+			for (int i = 0; i < 1000; i++) {
+				int index = rand.nextInt(values.length);
+				Assert.assertEquals(values[index], reader.getLong(index));
+			}
+			Assert.assertEquals(values[0], reader.getLong(0));
+			Assert.assertEquals(values[values.length - 1], reader.getLong(values.length - 1));
+			try {
+				reader.getLong(values.length);
+				Assert.fail("expected the index to be rejected");
+			} catch (IndexOutOfBoundsException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void testRangeReads() throws Exception {
+		long[] values = generate(20000);
+		try (SeekableBloscReader reader = new SeekableBloscReader(write(values).toPath())) {
+			for (int i = 0; i < 100; i++) {
+				int start = rand.nextInt(values.length);
+				int len = rand.nextInt(2000);
+				ByteBuffer dst = ByteBuffer.allocate(len * Long.BYTES);
+				reader.seek(start);
+				int expected = Math.min(len, values.length - start);
+				Assert.assertEquals(expected, reader.read(dst));
+				Assert.assertEquals(start + expected, reader.position());
+				dst.flip();
+				long[] actual = new long[expected];
+				dst.asLongBuffer().get(actual);
+				Assert.assertArrayEquals(Arrays.copyOfRange(values, start, start + expected), actual);
+			}
+			reader.seek(values.length);
+			Assert.assertEquals(-1, reader.read(ByteBuffer.allocate(Long.BYTES)));
+		}
+	}
+
+	@Test
+	public void testItemRanges() throws Exception {
+		long[] values = generate(5000);
+		try (SeekableBloscReader reader = new SeekableBloscReader(write(values).toPath())) {
+			long start = 0;
+			for (int frame = 0; frame < reader.getFrameCount(); frame++) {
+				int n = reader.frame(frame).remaining() / Long.BYTES;
+				int first = rand.nextInt(n);
+				int count = rand.nextInt(n - first + 1);
+				//the first call hits the decompressed frame, the second goes through getitem
+				for (int i = 0; i < 2; i++) {
+					ByteBuffer items = reader.get(frame, first, count);
+					Assert.assertEquals(count * Long.BYTES, items.remaining());
+					for (int j = 0; j < count; j++) {
+						Assert.assertEquals(values[(int) start + first + j], items.getLong(j * Long.BYTES));
+					}
+					reader.frame((frame + 1) % reader.getFrameCount());
+				}
+				start += n;
+			}
+			Assert.assertEquals(values.length, start);
+			try {
+				reader.get(0, 0, reader.frame(0).remaining() / Long.BYTES + 1);
+				Assert.fail("expected the range to be rejected");
+			} catch (IndexOutOfBoundsException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyContainer() throws Exception {
+		File file = folder.newFile();
+		new IndexedBloscFrameWriter(new FileOutputStream(file), COMPRESSOR, Long.class).close();
+		try (SeekableBloscReader reader = new SeekableBloscReader(file.toPath())) {
+			Assert.assertEquals(0, reader.size());
+			Assert.assertEquals(0, reader.getFrameCount());
+			Assert.assertEquals(-1, reader.read(ByteBuffer.allocate(Long.BYTES)));
+		}
+	}
+
+	@Test
+	public void testJavaPrefilterRejected() throws Exception {
+		File file = folder.newFile();
+		try (IndexedBloscFrameWriter writer = new IndexedBloscFrameWriter(new FileOutputStream(file), COMPRESSOR, Long.class)) {
+			new LongBloscOutputStream(writer, BLOCK_SIZE, BloscPrefilter.DELTA);
+			Assert.fail("item lookups would return the deltas");
+		} catch (IllegalArgumentException e) {
+			//expected
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAContainer() throws Exception {
+		File file = folder.newFile();
+		Files.write(file.toPath(), new byte[100]);
+		new SeekableBloscReader(file.toPath()).close();
+	}
+
+}
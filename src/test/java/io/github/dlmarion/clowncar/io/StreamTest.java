@@ -1,11 +1,15 @@
 package io.github.dlmarion.clowncar.io;
 
 import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscPrefilter;
 import io.github.dlmarion.clowncar.BloscShuffleType;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -127,4 +131,158 @@ public class StreamTest {
 		}
 	}
 	
+	@Test
+	public void testLongStreamMatchesGenericFormat() throws Exception {
+		long[] expected = new long[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = rand.nextLong();
+		}
+		ByteArrayOutputStream generic = new ByteArrayOutputStream(Long.BYTES*500);
+		try (BloscOutputStream<Long> blosc = new BloscOutputStream<>(generic, Long.BYTES*100, Long.class, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2)) {
+			for (long l : expected) {
+				blosc.write(l);
+			}
+		}
+		ByteArrayOutputStream primitive = new ByteArrayOutputStream(Long.BYTES*500);
+		try (LongBloscOutputStream blosc = new LongBloscOutputStream(primitive, Long.BYTES*100, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2)) {
+			for (int i = 0; i < 10; i++) {
+				blosc.writeLong(expected[i]);
+			}
+			blosc.write(expected, 10, 500);
+			blosc.write(expected, 510, expected.length - 510);
+		}
+		Assert.assertArrayEquals(generic.toByteArray(), primitive.toByteArray());
+	}
+
+	@Test
+	public void testDoubleStream() throws Exception {
+		double[] expected = new double[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = rand.nextDouble()*rand.nextLong();
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(Double.BYTES*500);
+		try (DoubleBloscOutputStream blosc = new DoubleBloscOutputStream(baos, Double.BYTES*128, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2)) {
+			blosc.write(expected, 0, 3);
+			blosc.writeDouble(expected[3]);
+			blosc.write(expected, 4, expected.length - 4);
+		}
+		ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+		try (BloscInputStream<Double> bloscIn = new BloscInputStream<>(bais, Double.class, 4)) {
+			for (double l : expected) {
+				Assert.assertEquals(l, bloscIn.get(), 0.0D);
+			}
+		}
+	}
+
+	@Test
+	public void testIntAndFloatStreams() throws Exception {
+		int[] ints = new int[1000];
+		float[] floats = new float[1000];
+		for (int i = 0; i < ints.length; i++) {
+			ints[i] = rand.nextInt();
+			floats[i] = rand.nextFloat() * rand.nextLong();
+		}
+		ByteArrayOutputStream intOut = new ByteArrayOutputStream(Integer.BYTES*500);
+		try (IntBloscOutputStream blosc = new IntBloscOutputStream(intOut, Integer.BYTES*100, BloscCompressorType.LZ4, 6, BloscShuffleType.NO_SHUFFLE, 2)) {
+			blosc.write(ints);
+		}
+		ByteArrayOutputStream floatOut = new ByteArrayOutputStream(Float.BYTES*500);
+		try (FloatBloscOutputStream blosc = new FloatBloscOutputStream(floatOut, Float.BYTES*100, BloscCompressorType.LZ4, 6, BloscShuffleType.NO_SHUFFLE, 2)) {
+			for (float f : floats) {
+				blosc.writeFloat(f);
+			}
+		}
+		try (BloscInputStream<Integer> intIn = new BloscInputStream<>(new ByteArrayInputStream(intOut.toByteArray()), Integer.class, 4);
+				BloscInputStream<Float> floatIn = new BloscInputStream<>(new ByteArrayInputStream(floatOut.toByteArray()), Float.class, 4)) {
+			for (int i = 0; i < ints.length; i++) {
+				Assert.assertEquals(ints[i], intIn.get().intValue());
+				Assert.assertEquals(floats[i], floatIn.get(), 0.0F);
+			}
+		}
+	}
+	
+	@Test
+	public void testLongBulkReads() throws Exception {
+		long[] expected = new long[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = rand.nextLong();
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(Long.BYTES*500);
+		try (LongBloscOutputStream blosc = new LongBloscOutputStream(baos, Long.BYTES*100, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2)) {
+			blosc.write(expected);
+		}
+		long[] actual = new long[expected.length + 100];
+		try (LongBloscInputStream bloscIn = new LongBloscInputStream(new ByteArrayInputStream(baos.toByteArray()), 4)) {
+			actual[0] = bloscIn.readLong();
+			Assert.assertEquals(250, bloscIn.read(actual, 1, 250));
+			LongBuffer frame = bloscIn.frame();
+			Assert.assertEquals(49, frame.remaining());
+			frame.get(actual, 251, 49);
+			Assert.assertEquals(700, bloscIn.read(actual, 300, 800));
+			Assert.assertEquals(-1, bloscIn.read(actual, 0, 1));
+			Assert.assertNull(bloscIn.frame());
+		}
+		Assert.assertArrayEquals(expected, Arrays.copyOf(actual, expected.length));
+	}
+
+	@Test
+	public void testDoubleFrames() throws Exception {
+		double[] expected = new double[1000];
+		for (int i = 0; i < expected.length; i++) {
+			expected[i] = rand.nextDouble()*rand.nextLong();
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(Double.BYTES*500);
+		try (DoubleBloscOutputStream blosc = new DoubleBloscOutputStream(baos, Double.BYTES*128, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2)) {
+			blosc.write(expected);
+		}
+		try (DoubleBloscInputStream bloscIn = new DoubleBloscInputStream(new ByteArrayInputStream(baos.toByteArray()), 4)) {
+			int i = 0;
+			DoubleBuffer frame;
+			while ((frame = bloscIn.frame()) != null) {
+				while (frame.hasRemaining()) {
+					Assert.assertEquals(expected[i++], frame.get(), 0.0D);
+				}
+			}
+			Assert.assertEquals(expected.length, i);
+		}
+	}
+	
+	@Test
+	public void testPrefilters() throws Exception {
+		long[] times = new long[1000];
+		double[] values = new double[1000];
+		for (int i = 0; i < times.length; i++) {
+			times[i] = 1500000000000L + i * 60000L;
+			values[i] = 100.0D + rand.nextInt(4) * 0.5D;
+		}
+		for (BloscPrefilter prefilter : new BloscPrefilter[] {BloscPrefilter.DELTA, BloscPrefilter.DELTA_OF_DELTA, BloscPrefilter.XOR}) {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try (LongBloscOutputStream blosc = new LongBloscOutputStream(baos, Long.BYTES*100, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2, prefilter)) {
+				blosc.write(times);
+			}
+			long[] actualTimes = new long[times.length];
+			try (LongBloscInputStream bloscIn = new LongBloscInputStream(new ByteArrayInputStream(baos.toByteArray()), 2, prefilter)) {
+				Assert.assertEquals(times.length, bloscIn.read(actualTimes));
+			}
+			Assert.assertArrayEquals(prefilter.getPrefilterName(), times, actualTimes);
+
+			baos = new ByteArrayOutputStream();
+			try (BloscOutputStream<Double> blosc = new BloscOutputStream<>(baos, Double.BYTES*100, Double.class, BloscCompressorType.LZ4, 6, BloscShuffleType.BYTE_SHUFFLE, 2, prefilter)) {
+				for (double d : values) {
+					blosc.write(d);
+				}
+			}
+			try (BloscInputStream<Double> bloscIn = new BloscInputStream<>(new ByteArrayInputStream(baos.toByteArray()), Double.class, 2, prefilter)) {
+				for (double d : values) {
+					Assert.assertEquals(d, bloscIn.get(), 0.0D);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPrefilterNeedsNumbers() throws Exception {
+		new BloscOutputStream<>(new ByteArrayOutputStream(), 1024, String.class, BloscCompressorType.LZ4, 6, BloscShuffleType.NO_SHUFFLE, 1, BloscPrefilter.DELTA).close();
+	}
+
 }
@@ -0,0 +1,109 @@
+package io.github.dlmarion.clowncar.io;
+
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StringStreamTest {
+
+	private static final int BLOCK_SIZE = 4096;
+
+	private final Random rand = new Random(87235982352L);
+
+	private byte[] write(String[] values, boolean dictionary) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (StringBloscOutputStream out = new StringBloscOutputStream(baos, BLOCK_SIZE, BloscCompressorType.LZ4, 5, 1, dictionary)) {
+			out.write(values);
+		}
+		return baos.toByteArray();
+	}
+
+	private void verify(String[] expected, byte[] data) throws Exception {
+		String[] actual = new String[expected.length + 10];
+		try (StringBloscInputStream in = new StringBloscInputStream(new ByteArrayInputStream(data), 1)) {
+			Assert.assertEquals(expected.length, in.read(actual));
+			Assert.assertEquals(-1, in.read(actual));
+		}
+		Assert.assertArrayEquals(expected, Arrays.copyOf(actual, expected.length));
+	}
+
+	private String randomString(int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + rand.nextInt(26)));
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testPlain() throws Exception {
+		String[] values = new String[5000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i % 50 == 0 ? "" : randomString(rand.nextInt(40)) + "é中";
+		}
+		verify(values, write(values, false));
+		//too many distinct values for a dictionary
+		verify(values, write(values, true));
+	}
+
+	@Test
+	public void testDictionary() throws Exception {
+		String[] hosts = new String[20];
+		for (int i = 0; i < hosts.length; i++) {
+			hosts[i] = "host-" + i + ".example.com";
+		}
+		String[] values = new String[10000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = hosts[rand.nextInt(hosts.length)];
+		}
+		byte[] plain = write(values, false);
+		byte[] dictionary = write(values, true);
+		Assert.assertTrue(dictionary.length < plain.length);
+		verify(values, plain);
+		verify(values, dictionary);
+	}
+
+	@Test
+	public void testValuesLargerThanAFrame() throws Exception {
+		String[] values = new String[] {"a", randomString(BLOCK_SIZE * 3 + 17), "b", randomString(BLOCK_SIZE), "c"};
+		verify(values, write(values, true));
+		//the async writer only takes frames of up to BLOCK_SIZE bytes
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		FrameCompressor compressor = new FrameCompressor(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, BLOCK_SIZE, 1);
+		try (StringBloscOutputStream out = new StringBloscOutputStream(new AsyncBloscFrameWriter(baos, compressor, BLOCK_SIZE, 4), BLOCK_SIZE, false)) {
+			out.write(values);
+		}
+		verify(values, baos.toByteArray());
+	}
+
+	@Test
+	public void testReadString() throws Exception {
+		byte[] data = write(new String[] {"x", "y"}, false);
+		try (StringBloscInputStream in = new StringBloscInputStream(new ByteArrayInputStream(data), 1)) {
+			Assert.assertEquals("x", in.readString());
+			Assert.assertEquals("y", in.readString());
+			try {
+				in.readString();
+				Assert.fail("expected the end of the stream");
+			} catch (EOFException e) {
+				//expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBoxedStringLargerThanAFrame() throws Exception {
+		try (BloscOutputStream<String> out = new BloscOutputStream<>(new ByteArrayOutputStream(), 64, String.class, BloscCompressorType.LZ4, 5, BloscShuffleType.NO_SHUFFLE, 1)) {
+			out.write(randomString(61));
+		}
+	}
+
+}
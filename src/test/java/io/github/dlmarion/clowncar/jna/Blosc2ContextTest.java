@@ -0,0 +1,148 @@
+package io.github.dlmarion.clowncar.jna;
+
+import io.github.dlmarion.clowncar.Blosc;
+import io.github.dlmarion.clowncar.BloscCompressorType;
+import io.github.dlmarion.clowncar.BloscContext;
+import io.github.dlmarion.clowncar.BloscShuffleType;
+import io.github.dlmarion.clowncar.BloscThreadGovernor;
+import io.github.dlmarion.clowncar.PerCallBloscContext;
+
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs only where libblosc2 can be loaded.
+ */
+public class Blosc2ContextTest {
+
+	private static ByteBuffer data(int size) {
+		ByteBuffer buf = ByteBuffer.allocateDirect(size);
+		for (int i = 0; i < size / Long.BYTES; i++) {
+			buf.putLong(i * 3L);
+		}
+		buf.flip();
+		return buf;
+	}
+
+	@Before
+	public void setup() {
+		Assume.assumeTrue(Blosc2Context.isAvailable());
+	}
+
+	@After
+	public void teardown() {
+		System.clearProperty(BloscContext.IMPLEMENTATION_PROPERTY);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		ByteBuffer src = data(64 * 1024);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(100 + src.remaining() + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+		ByteBuffer items = ByteBuffer.allocateDirect(100 * Long.BYTES);
+		try (Blosc2Context ctx = new Blosc2Context(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 2, false)) {
+			compressed.position(100);
+			//the same native contexts are reused for every call
+			for (int i = 0; i < 3; i++) {
+				int w = ctx.compress(src, Long.BYTES, compressed);
+				Assert.assertTrue(w > 0);
+				Assert.assertEquals(0, src.position());
+				Assert.assertEquals(100, compressed.position());
+				compressed.limit(100 + w);
+				Assert.assertEquals(src.remaining(), ctx.decompress(compressed, dst));
+				Assert.assertEquals(src, dst);
+				Assert.assertEquals(items.remaining(), ctx.getItems(compressed, 480, 100, items));
+				Assert.assertEquals(480 * 3L, items.getLong(0));
+				compressed.limit(compressed.capacity());
+				dst.clear();
+			}
+		}
+	}
+
+	@Test
+	public void testWritesBlosc1ChunksByDefault() {
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1);
+				BloscContext dctx = BloscContext.create(1)) {
+			Assert.assertTrue(ctx instanceof PerCallBloscContext);
+			//c-blosc2 reads the chunks of c-blosc 1.x
+			Assert.assertTrue(dctx instanceof Blosc2Context);
+			ByteBuffer src = data(64 * 1024);
+			ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+			ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+			compressed.limit(ctx.compress(src, Long.BYTES, compressed));
+			Assert.assertEquals(src.remaining(), dctx.decompress(compressed, dst));
+			Assert.assertEquals(src, dst);
+		}
+	}
+
+	@Test
+	public void testImplementationProperty() {
+		System.setProperty(BloscContext.IMPLEMENTATION_PROPERTY, "blosc2");
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1)) {
+			Assert.assertTrue(ctx instanceof Blosc2Context);
+		}
+		//c-blosc2 dropped snappy
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.SNAPPY, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1)) {
+			Assert.assertTrue(ctx instanceof PerCallBloscContext);
+		}
+		System.setProperty(BloscContext.IMPLEMENTATION_PROPERTY, "blosc1");
+		try (BloscContext dctx = BloscContext.create(1)) {
+			Assert.assertTrue(dctx instanceof PerCallBloscContext);
+		}
+	}
+
+	@Test
+	public void testNativeDeltaUsesBlosc2() {
+		try (BloscContext ctx = BloscContext.create(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 1, true)) {
+			Assert.assertTrue(ctx instanceof Blosc2Context);
+		}
+	}
+
+	@Test
+	public void testIdleContextHoldsNoThreads() {
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		int available = Math.min(governor.getBudget(), Runtime.getRuntime().availableProcessors());
+		Assume.assumeTrue(available > 1);
+		ByteBuffer src = data(1024 * 1024);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(src.remaining() + Blosc.MAX_OVERHEAD);
+		ByteBuffer dst = ByteBuffer.allocateDirect(src.remaining());
+		try (Blosc2Context ctx = new Blosc2Context(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 4, false)) {
+			compressed.limit(ctx.compress(src, Long.BYTES, compressed));
+			Assert.assertEquals(src.remaining(), ctx.decompress(compressed, dst));
+			//both native contexts are open but idle
+			Assert.assertEquals(0, governor.getCallsInFlight());
+			Assert.assertEquals(0, governor.getWorkers());
+			int threads = governor.acquire(4, src.remaining());
+			try {
+				Assert.assertEquals(Math.min(4, available), threads);
+			} finally {
+				governor.release(threads);
+			}
+		}
+	}
+
+	@Test
+	public void testContextsReusedAcrossGrants() {
+		BloscThreadGovernor governor = BloscThreadGovernor.getShared();
+		Assume.assumeTrue(Math.min(governor.getBudget(), Runtime.getRuntime().availableProcessors()) > 1);
+		//granted several threads, then one
+		ByteBuffer large = data(1024 * 1024);
+		ByteBuffer small = data(BloscThreadGovernor.BYTES_PER_THREAD);
+		ByteBuffer compressed = ByteBuffer.allocateDirect(large.remaining() + Blosc.MAX_OVERHEAD);
+		try (Blosc2Context ctx = new Blosc2Context(BloscCompressorType.LZ4, 5, BloscShuffleType.BYTE_SHUFFLE, 0, 4, false)) {
+			for (int i = 0; i < 4; i++) {
+				compressed.clear();
+				Assert.assertTrue(ctx.compress(large, Long.BYTES, compressed) > 0);
+				compressed.clear();
+				Assert.assertTrue(ctx.compress(small, Long.BYTES, compressed) > 0);
+			}
+			Assert.assertEquals(2, ctx.getContextsCreated());
+		}
+	}
+
+}
@@ -0,0 +1,404 @@
+package io.github.dlmarion.clowncar.pure;
+
+import io.github.dlmarion.clowncar.BloscChunkHeader;
+import io.github.dlmarion.clowncar.BloscContext;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Chunks are built here, with simple encoders and the shuffles written out bit by bit, so the
+ * decoder is checked against the format rather than against itself.
+ */
+public class BloscDecoderTest {
+
+	private static final int BLOSCLZ = 0;
+	private static final int LZ4 = 1;
+
+	private static byte[] data(int size, long seed) {
+		Random rand = new Random(seed);
+		ByteBuffer buf = ByteBuffer.allocate(size);
+		long v = 1_500_000_000_000L;
+		while (buf.remaining() >= Long.BYTES) {
+			v += rand.nextInt(3) * 60000;
+			buf.putLong(v);
+		}
+		while (buf.hasRemaining()) {
+			buf.put((byte) rand.nextInt());
+		}
+		return buf.array();
+	}
+
+	private static byte[] byteShuffle(int typeSize, byte[] block) {
+		int n = block.length / typeSize;
+		byte[] out = block.clone();
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < typeSize; j++) {
+				out[j * n + i] = block[i * typeSize + j];
+			}
+		}
+		return out;
+	}
+
+	private static byte[] bitShuffle(int typeSize, byte[] block) {
+		int n = block.length / typeSize;
+		if (n % 8 != 0) {
+			return block.clone();
+		}
+		byte[] out = block.clone();
+		Arrays.fill(out, 0, n * typeSize, (byte) 0);
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < typeSize; j++) {
+				for (int k = 0; k < 8; k++) {
+					int bit = (block[i * typeSize + j] >> k) & 1;
+					int index = (j * 8 + k) * n + i;
+					out[index / 8] |= bit << (index % 8);
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Greedy LZ4 block encoder, the last 5 bytes are always literals.
+	 */
+	private static byte[] lz4(byte[] in) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] table = new int[1 << 12];
+		Arrays.fill(table, -1);
+		int anchor = 0;
+		int i = 0;
+		int limit = in.length - 5;
+		while (i + 4 <= limit) {
+			int h = hash(in, i, 4);
+			int ref = table[h];
+			table[h] = i;
+			if (ref >= 0 && i - ref <= 65535 && matches(in, ref, i, 4)) {
+				int len = 4;
+				while (i + len < limit && in[ref + len] == in[i + len]) {
+					len++;
+				}
+				lz4Sequence(out, in, anchor, i - anchor, i - ref, len);
+				i += len;
+				anchor = i;
+			} else {
+				i++;
+			}
+		}
+		lz4Sequence(out, in, anchor, in.length - anchor, 0, 0);
+		return out.toByteArray();
+	}
+
+	private static void lz4Sequence(ByteArrayOutputStream out, byte[] in, int from, int literals, int distance, int len) {
+		int matchCode = len == 0 ? 0 : len - 4;
+		out.write((Math.min(literals, 15) << 4) | Math.min(matchCode, 15));
+		writeLength(out, literals, 15);
+		out.write(in, from, literals);
+		if (len > 0) {
+			out.write(distance & 0xFF);
+			out.write(distance >>> 8);
+			writeLength(out, matchCode, 15);
+		}
+	}
+
+	private static void writeLength(ByteArrayOutputStream out, int value, int max) {
+		if (value < max) {
+			return;
+		}
+		value -= max;
+		while (value >= 255) {
+			out.write(255);
+			value -= 255;
+		}
+		out.write(value);
+	}
+
+	/**
+	 * Greedy blosclz encoder, it always ends with literals.
+	 */
+	private static byte[] blosclz(byte[] in) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] table = new int[1 << 12];
+		Arrays.fill(table, -1);
+		int anchor = 0;
+		int i = 0;
+		int limit = in.length - 4;
+		while (i + 3 <= limit) {
+			int h = hash(in, i, 3);
+			int ref = table[h];
+			table[h] = i;
+			int distance = i - ref;
+			if (ref >= 0 && distance <= 8191 + 65535 && matches(in, ref, i, 3)) {
+				int len = 3;
+				while (i + len < limit && in[ref + len] == in[i + len]) {
+					len++;
+				}
+				blosclzLiterals(out, in, anchor, i - anchor);
+				int top = len <= 8 ? len - 2 : 7;
+				if (distance <= 8191) {
+					out.write(top << 5 | (distance - 1) >>> 8);
+					if (top == 7) {
+						writeLength(out, len - 9, 0);
+					}
+					out.write((distance - 1) & 0xFF);
+				} else {
+					out.write(top << 5 | 31);
+					if (top == 7) {
+						writeLength(out, len - 9, 0);
+					}
+					out.write(255);
+					out.write((distance - 8192) >>> 8);
+					out.write((distance - 8192) & 0xFF);
+				}
+				i += len;
+				anchor = i;
+			} else {
+				i++;
+			}
+		}
+		blosclzLiterals(out, in, anchor, in.length - anchor);
+		return out.toByteArray();
+	}
+
+	private static void blosclzLiterals(ByteArrayOutputStream out, byte[] in, int from, int count) {
+		while (count > 0) {
+			int n = Math.min(count, 32);
+			out.write(n - 1);
+			out.write(in, from, n);
+			from += n;
+			count -= n;
+		}
+	}
+
+	private static int hash(byte[] in, int i, int n) {
+		int v = 0;
+		for (int k = 0; k < n; k++) {
+			v = v * 257 + (in[i + k] & 0xFF);
+		}
+		return (v * 0x9E3779B1) >>> 20;
+	}
+
+	private static boolean matches(byte[] in, int a, int b, int n) {
+		for (int k = 0; k < n; k++) {
+			if (in[a + k] != in[b + k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int v) {
+		out.write(v);
+		out.write(v >>> 8);
+		out.write(v >>> 16);
+		out.write(v >>> 24);
+	}
+
+	/**
+	 * Builds a c-blosc 1.x chunk: header, block starts, then for each block its streams, each
+	 * prefixed by its compressed length.
+	 */
+	private static byte[] chunk(byte[] data, int typeSize, int blockSize, int shuffleFlag, int format, boolean split) {
+		int nblocks = (data.length + blockSize - 1) / blockSize;
+		int leftover = data.length % blockSize;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(2);
+		out.write(1);
+		out.write(shuffleFlag | (split ? 0 : BloscChunkHeader.NO_SPLIT_FLAG) | format << 5);
+		out.write(typeSize);
+		writeInt(out, data.length);
+		writeInt(out, blockSize);
+		writeInt(out, 0);
+		ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+		int[] starts = new int[nblocks];
+		for (int j = 0; j < nblocks; j++) {
+			boolean leftoverBlock = leftover > 0 && j == nblocks - 1;
+			byte[] block = Arrays.copyOfRange(data, j * blockSize, leftoverBlock ? data.length : (j + 1) * blockSize);
+			if (shuffleFlag == BloscChunkHeader.BYTE_SHUFFLE_FLAG && typeSize > 1) {
+				block = byteShuffle(typeSize, block);
+			} else if (shuffleFlag == BloscChunkHeader.BIT_SHUFFLE_FLAG && block.length >= typeSize) {
+				block = bitShuffle(typeSize, block);
+			}
+			starts[j] = BloscChunkHeader.LENGTH + 4 * nblocks + blocks.size();
+			int splits = split && !leftoverBlock ? typeSize : 1;
+			int streamSize = block.length / splits;
+			for (int s = 0; s < splits; s++) {
+				byte[] stream = Arrays.copyOfRange(block, s * streamSize, (s + 1) * streamSize);
+				byte[] compressed = format == LZ4 ? lz4(stream) : blosclz(stream);
+				if (compressed.length >= streamSize) {
+					compressed = stream;
+				}
+				writeInt(blocks, compressed.length);
+				blocks.write(compressed, 0, compressed.length);
+			}
+		}
+		for (int start : starts) {
+			writeInt(out, start);
+		}
+		out.write(blocks.toByteArray(), 0, blocks.size());
+		byte[] chunk = out.toByteArray();
+		ByteBuffer.wrap(chunk).order(ByteOrder.LITTLE_ENDIAN).putInt(12, chunk.length);
+		return chunk;
+	}
+
+	private static ByteBuffer buffer(byte[] bytes, int offset, boolean direct) {
+		ByteBuffer buf = direct ? ByteBuffer.allocateDirect(offset + bytes.length) : ByteBuffer.allocate(offset + bytes.length);
+		buf.position(offset);
+		buf.put(bytes);
+		buf.position(offset);
+		return buf;
+	}
+
+	private static void assertDecodes(BloscDecoder decoder, byte[] data, byte[] chunk, String name) {
+		for (boolean direct : new boolean[] { false, true }) {
+			ByteBuffer src = buffer(chunk, 3, direct);
+			Assert.assertTrue(name, decoder.supports(src));
+			ByteBuffer dst = direct ? ByteBuffer.allocateDirect(5 + data.length) : ByteBuffer.allocate(5 + data.length);
+			dst.position(5);
+			Assert.assertEquals(name, data.length, decoder.decompress(src, dst));
+			Assert.assertEquals(3, src.position());
+			Assert.assertEquals(5, dst.position());
+			Assert.assertEquals(name, ByteBuffer.wrap(data), dst);
+		}
+	}
+
+	@Test
+	public void testCodecsAndShuffles() {
+		BloscDecoder decoder = new BloscDecoder();
+		int[] shuffles = { 0, BloscChunkHeader.BYTE_SHUFFLE_FLAG, BloscChunkHeader.BIT_SHUFFLE_FLAG };
+		for (int format : new int[] { BLOSCLZ, LZ4 }) {
+			for (int shuffle : shuffles) {
+				for (int typeSize : new int[] { 1, 2, 4, 8, 3 }) {
+					for (boolean split : new boolean[] { false, true }) {
+						//a partial last block, with a partial last element
+						byte[] data = data(5 * 2040 + 13, typeSize);
+						byte[] chunk = chunk(data, typeSize, 2040 / typeSize * typeSize, shuffle, format, split);
+						assertDecodes(decoder, data, chunk, "format " + format + ", shuffle " + shuffle + ", type size " + typeSize + ", split " + split);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCompressible() {
+		BloscDecoder decoder = new BloscDecoder();
+		byte[] data = new byte[64 * 1024];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i / 1000);
+		}
+		for (int format : new int[] { BLOSCLZ, LZ4 }) {
+			byte[] chunk = chunk(data, 8, 16 * 1024, BloscChunkHeader.BYTE_SHUFFLE_FLAG, format, false);
+			Assert.assertTrue(chunk.length < data.length / 10);
+			assertDecodes(decoder, data, chunk, "format " + format);
+		}
+	}
+
+	@Test
+	public void testBloscLzFarMatches() {
+		BloscDecoder decoder = new BloscDecoder();
+		byte[] data = new byte[40000];
+		new Random(7).nextBytes(data);
+		System.arraycopy(data, 0, data, 20000, 15000);
+		byte[] chunk = chunk(data, 1, data.length, 0, BLOSCLZ, false);
+		Assert.assertTrue(chunk.length < 30000);
+		assertDecodes(decoder, data, chunk, "far matches");
+	}
+
+	@Test
+	public void testMemcpyed() {
+		byte[] data = data(1000, 3);
+		ByteBuffer compressed = ByteBuffer.allocate(data.length + BloscChunkHeader.LENGTH);
+		new JavaBackend().compress(5, 1, 8, ByteBuffer.wrap(data), compressed, null, 0, 1);
+		byte[] chunk = compressed.array();
+		assertDecodes(new BloscDecoder(), data, chunk, "memcpyed");
+		ByteBuffer items = ByteBuffer.allocateDirect(16);
+		Assert.assertEquals(16, new BloscDecoder().getItems(ByteBuffer.wrap(chunk), 10, 2, items));
+		Assert.assertEquals(ByteBuffer.wrap(data, 80, 16), items);
+	}
+
+	@Test
+	public void testGetItems() {
+		BloscDecoder decoder = new BloscDecoder();
+		byte[] data = data(8 * 1000, 11);
+		byte[] chunk = chunk(data, 8, 1024, BloscChunkHeader.BIT_SHUFFLE_FLAG, LZ4, true);
+		int[][] ranges = { { 0, 1 }, { 127, 2 }, { 100, 300 }, { 990, 10 }, { 0, 1000 }, { 500, 0 } };
+		for (boolean direct : new boolean[] { false, true }) {
+			ByteBuffer src = buffer(chunk, 0, direct);
+			for (int[] range : ranges) {
+				ByteBuffer dst = direct ? ByteBuffer.allocateDirect(range[1] * 8) : ByteBuffer.allocate(range[1] * 8);
+				Assert.assertEquals(range[1] * 8, decoder.getItems(src, range[0], range[1], dst));
+				Assert.assertEquals(ByteBuffer.wrap(data, range[0] * 8, range[1] * 8), dst);
+			}
+			Assert.assertTrue(decoder.getItems(src, 999, 2, ByteBuffer.allocate(16)) < 0);
+			Assert.assertTrue(decoder.getItems(src, -1, 1, ByteBuffer.allocate(8)) < 0);
+		}
+	}
+
+	@Test
+	public void testCorrupt() {
+		BloscDecoder decoder = new BloscDecoder();
+		byte[] data = data(4096, 5);
+		byte[] chunk = chunk(data, 8, 1024, BloscChunkHeader.BYTE_SHUFFLE_FLAG, LZ4, false);
+		ByteBuffer dst = ByteBuffer.allocate(data.length);
+		//truncated
+		Assert.assertTrue(decoder.decompress(ByteBuffer.wrap(chunk, 0, chunk.length - 1), dst) < 0);
+		//destination too small
+		Assert.assertTrue(decoder.decompress(ByteBuffer.wrap(chunk), ByteBuffer.allocate(100)) < 0);
+		//block start past the end
+		byte[] badStart = chunk.clone();
+		badStart[BloscChunkHeader.LENGTH + 1] = 127;
+		Assert.assertTrue(decoder.decompress(ByteBuffer.wrap(badStart), dst) < 0);
+		//every other corruption of the streams is either detected or decodes to the wrong bytes
+		Random rand = new Random(1);
+		int headers = BloscChunkHeader.LENGTH + 4 * 4;
+		for (int i = 0; i < 200; i++) {
+			byte[] bad = chunk.clone();
+			bad[headers + rand.nextInt(bad.length - headers)] ^= 1 << rand.nextInt(8);
+			dst.clear();
+			decoder.decompress(ByteBuffer.wrap(bad), dst);
+		}
+	}
+
+	@Test
+	public void testUnsupported() {
+		BloscDecoder decoder = new BloscDecoder();
+		byte[] chunk = chunk(data(1024, 1), 8, 1024, 0, LZ4, false);
+		//zstd
+		chunk[2] = (byte) (4 << 5 | BloscChunkHeader.NO_SPLIT_FLAG);
+		Assert.assertFalse(decoder.supports(ByteBuffer.wrap(chunk)));
+		try {
+			decoder.decompress(ByteBuffer.wrap(chunk), ByteBuffer.allocate(1024));
+			Assert.fail("zstd is not supported");
+		} catch (UnsupportedOperationException e) {
+			//expected
+		}
+		chunk[2] = (byte) (LZ4 << 5);
+		Assert.assertTrue(decoder.supports(ByteBuffer.wrap(chunk)));
+		Assert.assertFalse(decoder.supports(ByteBuffer.wrap(chunk), 1023));
+		Assert.assertFalse(decoder.supports(ByteBuffer.wrap(chunk, 0, 10)));
+	}
+
+	@Test
+	public void testSmallChunksInContext() {
+		//the native library cannot decode these chunks when it is the test stub, the context must
+		//not call it
+		byte[] data = data(2048, 9);
+		byte[] chunk = chunk(data, 8, 1024, BloscChunkHeader.BIT_SHUFFLE_FLAG, BLOSCLZ, true);
+		try (BloscContext ctx = BloscContext.create(1)) {
+			ByteBuffer dst = ByteBuffer.allocateDirect(data.length);
+			Assert.assertEquals(data.length, ctx.decompress(buffer(chunk, 0, true), dst));
+			Assert.assertEquals(ByteBuffer.wrap(data), dst);
+			ByteBuffer items = ByteBuffer.allocate(24);
+			Assert.assertEquals(24, ctx.getItems(ByteBuffer.wrap(chunk), 200, 3, items));
+			Assert.assertEquals(ByteBuffer.wrap(data, 1600, 24), items);
+		}
+	}
+
+}